@@ -0,0 +1,581 @@
+/**
+ * BalanceSweep tries many sets of GameRules on one labyrinth to find rules
+ * that make the quest neither too easy nor too hard. Each rule can be given
+ * a list of candidate values; the sweep plays every combination of them, or
+ * a random sample of the combinations, and writes a table of the delivery
+ * rate and average quest length for each set of rules.
+ *
+ * Every set of rules is a task for a pool with a thread per core, and each
+ * task plays its quests with its own QuestSimulator over the one shared
+ * LabyrinthGraph. Quest number i uses the same seed under every set of
+ * rules, so the sets are compared on the same creatures and dice rolls.
+ *
+ * Quests are played in batches. After each batch the delivery rate is
+ * checked against the target band with a Hoeffding bound, and a set of
+ * rules that is clearly too easy or too hard stops early, so most of the
+ * time goes on the sets worth a closer look.
+ *
+ * To run a sweep from the command line, use:
+ *       java BalanceSweep [--labyrinth=FILE] [--out=FILE] [--quests=N] [--sample=N]
+ *                         [--target=LOW,HIGH] [--seed=N] [--RULE=V1,V2,...]
+ * where RULE is one of the names in GameRules.PARAMETER_NAMES, for example
+ * --troll=7,9,11 --spawn=50,75,90.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BalanceSweep
+{
+    public static final int DEFAULT_QUESTS = 2_000; // Quests for a set of rules that is not stopped early
+    public static final int BATCH_SIZE = 100; // Quests between early stopping checks
+    private static final double CONFIDENCE = 0.001; // Chance of stopping a set of rules wrongly at one check
+    private static final int DEFAULT_MAX_MOVES = 2_000; // Moves before a simulated Fellowship gives up
+    private static final int BEST_SHOWN = 5; // Sets of rules printed at the end of a sweep
+    private static final String DEFAULT_RESULTS_FILE = "balance.tsv";
+
+    // Rules swept when none are given: a step either side of the standard value
+    private static final String[] DEFAULT_SWEPT = {"troll", "max-damage", "loss-damage", "spawn", "win-step"};
+    private static final int[][] DEFAULT_CANDIDATES = {{7, 9, 11}, {8, 10, 12}, {3, 4, 5}, {50, 75, 90}, {8, 10, 12}};
+
+    private LabyrinthGraph graph;
+    private ArrayList<String> names; // names of the swept rules
+    private ArrayList<int[]> candidates; // candidate values of each swept rule
+    private int maxQuests;
+    private double targetLow;
+    private double targetHigh;
+    private long seed;
+
+    /**
+     * Non-default constructor for BalanceSweep.
+     *
+     * @param graph The labyrinth to play
+     * @param maxQuests The number of quests for a set of rules that is not stopped early
+     * @param targetLow The lowest delivery rate wanted, from 0 to 1
+     * @param targetHigh The highest delivery rate wanted, from 0 to 1
+     * @param seed The seed of the first quest; quest i uses seed + i
+     */
+    public BalanceSweep(LabyrinthGraph graph, int maxQuests, double targetLow, double targetHigh, long seed)
+    {
+        this.graph = graph;
+        this.names = new ArrayList<>();
+        this.candidates = new ArrayList<>();
+        this.maxQuests = Math.max(maxQuests, 1);
+        this.targetLow = targetLow;
+        this.targetHigh = targetHigh;
+        this.seed = seed;
+    }
+
+    /**
+     * Adds a rule to sweep, with the values to try.
+     *
+     * @param name One of GameRules.PARAMETER_NAMES
+     * @param values The candidate values
+     * @return true if the rule exists and every value is allowed for it
+     */
+    public boolean addRule(String name, int[] values)
+    {
+        GameRules check = new GameRules();
+        if (values.length == 0 || this.names.contains(name))
+        {
+            return false;
+        }
+        for (int value : values)
+        {
+            if (!check.set(name, value))
+            {
+                return false;
+            }
+        }
+        this.names.add(name);
+        this.candidates.add(values.clone());
+        return true;
+    }
+
+    /**
+     * Gets the number of sets of rules in the full grid.
+     *
+     * @return The product of the numbers of candidate values
+     */
+    public long getGridSize()
+    {
+        long size = 1;
+        for (int[] values : this.candidates)
+        {
+            size *= values.length;
+        }
+        return size;
+    }
+
+    /**
+     * Plays every set of rules in the grid, or a random sample of them,
+     * in parallel.
+     *
+     * @param sample The number of sets of rules to sample, or 0 for the full grid
+     * @return A result for each set of rules played
+     * @throws InterruptedException if interrupted while waiting for the results
+     */
+    public ArrayList<SweepResult> run(int sample) throws InterruptedException
+    {
+        ArrayList<int[]> configs = sample > 0 && sample < this.getGridSize() ?
+                this.sampleConfigs(sample) : this.gridConfigs();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try
+        {
+            ArrayList<Future<SweepResult>> pending = new ArrayList<>();
+            for (int[] config : configs)
+            {
+                pending.add(executor.submit(() -> this.evaluate(config)));
+            }
+
+            ArrayList<SweepResult> results = new ArrayList<>();
+            for (Future<SweepResult> future : pending)
+            {
+                results.add(future.get());
+            }
+            return results;
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Sweep failed: " + e.getCause(), e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Lists every combination of candidate values.
+     *
+     * @return The values of the swept rules for each set of rules
+     */
+    private ArrayList<int[]> gridConfigs()
+    {
+        ArrayList<int[]> configs = new ArrayList<>();
+        long size = this.getGridSize();
+        for (long number = 0; number < size; number++)
+        {
+            configs.add(this.configAt(number));
+        }
+        return configs;
+    }
+
+    /**
+     * Picks different combinations of candidate values at random.
+     *
+     * @param sample The number of combinations, less than the grid size
+     * @return The values of the swept rules for each set of rules
+     */
+    private ArrayList<int[]> sampleConfigs(int sample)
+    {
+        Random random = new Random(this.seed);
+        long size = this.getGridSize();
+        HashSet<Long> picked = new HashSet<>();
+        ArrayList<int[]> configs = new ArrayList<>();
+        while (configs.size() < sample)
+        {
+            long number = Math.floorMod(random.nextLong(), size);
+            if (picked.add(number))
+            {
+                configs.add(this.configAt(number));
+            }
+        }
+        return configs;
+    }
+
+    /**
+     * Works out one combination of candidate values from its number in the
+     * grid, counting with the last rule changing fastest.
+     *
+     * @param number The number of the combination, from 0 to the grid size - 1
+     * @return The value of each swept rule
+     */
+    private int[] configAt(long number)
+    {
+        int[] config = new int[this.names.size()];
+        for (int i = config.length - 1; i >= 0; i--)
+        {
+            int[] values = this.candidates.get(i);
+            config[i] = values[(int) (number % values.length)];
+            number /= values.length;
+        }
+        return config;
+    }
+
+    /**
+     * Plays quests under one set of rules, in batches, until the maximum is
+     * reached or the delivery rate is clearly outside the target band.
+     *
+     * @param config The value of each swept rule
+     * @return The result for the set of rules
+     */
+    private SweepResult evaluate(int[] config)
+    {
+        GameRules rules = new GameRules();
+        for (int i = 0; i < config.length; i++)
+        {
+            rules.set(this.names.get(i), config[i]);
+        }
+
+        QuestSimulator simulator = new QuestSimulator(this.graph, rules, DEFAULT_MAX_MOVES);
+        SweepResult result = new SweepResult(config);
+        while (result.quests < this.maxQuests)
+        {
+            int batchEnd = Math.min(result.quests + BATCH_SIZE, this.maxQuests);
+            for (int quest = result.quests; quest < batchEnd; quest++)
+            {
+                if (simulator.play(this.seed + quest))
+                {
+                    result.delivered++;
+                }
+                result.moves += simulator.getMoves();
+                result.cavesVisited += simulator.getCavesVisited();
+            }
+            result.quests = batchEnd;
+
+            // Hoeffding bound: the true rate is within margin of the measured one
+            double rate = result.getDeliveryRate();
+            double margin = Math.sqrt(Math.log(2 / CONFIDENCE) / (2.0 * result.quests));
+            if (result.quests < this.maxQuests && (rate + margin < this.targetLow || rate - margin > this.targetHigh))
+            {
+                result.stoppedEarly = true;
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the results as a table of tab separated values, one line per
+     * set of rules, with a header line.
+     *
+     * @param filename The file to write
+     * @param results The results of a sweep
+     * @throws IOException if the file cannot be written
+     */
+    public void writeResults(String filename, ArrayList<SweepResult> results) throws IOException
+    {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename)))
+        {
+            StringBuilder line = new StringBuilder();
+            for (String name : this.names)
+            {
+                line.append(name).append('\t');
+            }
+            line.append("quests\tdelivered\tdelivery_rate\tavg_moves\tavg_caves_visited\tverdict");
+            writer.write(line.toString());
+            writer.newLine();
+
+            for (SweepResult result : results)
+            {
+                line.setLength(0);
+                for (int value : result.config)
+                {
+                    line.append(value).append('\t');
+                }
+                line.append(result.quests).append('\t').append(result.delivered).append('\t')
+                        .append(String.format("%.4f", result.getDeliveryRate())).append('\t')
+                        .append(String.format("%.1f", result.getAverageMoves())).append('\t')
+                        .append(String.format("%.1f", result.getAverageCavesVisited())).append('\t')
+                        .append(this.getVerdict(result));
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Describes how a set of rules compares with the target band.
+     *
+     * @param result The result for the set of rules
+     * @return "too hard", "too easy" or "in band"
+     */
+    public String getVerdict(SweepResult result)
+    {
+        double rate = result.getDeliveryRate();
+        return rate < this.targetLow ? "too hard" : rate > this.targetHigh ? "too easy" : "in band";
+    }
+
+    /**
+     * Describes a set of rules by the values of the swept rules.
+     *
+     * @param result The result for the set of rules
+     * @return The rules, e.g. "troll=9 spawn=75"
+     */
+    public String describe(SweepResult result)
+    {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < this.names.size(); i++)
+        {
+            if (i > 0)
+            {
+                text.append(' ');
+            }
+            text.append(this.names.get(i)).append('=').append(result.config[i]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * The outcome of playing quests under one set of rules.
+     */
+    public static class SweepResult
+    {
+        private int[] config;
+        private int quests;
+        private int delivered;
+        private long moves;
+        private long cavesVisited;
+        private boolean stoppedEarly;
+
+        /**
+         * Non-default constructor for SweepResult.
+         *
+         * @param config The value of each swept rule
+         */
+        public SweepResult(int[] config)
+        {
+            this.config = config;
+            this.quests = 0;
+            this.delivered = 0;
+            this.moves = 0;
+            this.cavesVisited = 0;
+            this.stoppedEarly = false;
+        }
+
+        /**
+         * Gets the value of each swept rule.
+         *
+         * @return The values, in the order the rules were added
+         */
+        public int[] getConfig()
+        {
+            return this.config;
+        }
+
+        /**
+         * Gets the number of quests played.
+         *
+         * @return The number of quests
+         */
+        public int getQuests()
+        {
+            return this.quests;
+        }
+
+        /**
+         * Gets the share of quests in which the code was delivered.
+         *
+         * @return The delivery rate, from 0 to 1
+         */
+        public double getDeliveryRate()
+        {
+            return this.quests == 0 ? 0 : (double) this.delivered / this.quests;
+        }
+
+        /**
+         * Gets the average number of moves in a quest.
+         *
+         * @return The average quest length
+         */
+        public double getAverageMoves()
+        {
+            return this.quests == 0 ? 0 : (double) this.moves / this.quests;
+        }
+
+        /**
+         * Gets the average number of different caves entered in a quest.
+         *
+         * @return The average number of caves visited
+         */
+        public double getAverageCavesVisited()
+        {
+            return this.quests == 0 ? 0 : (double) this.cavesVisited / this.quests;
+        }
+
+        /**
+         * Checks if the quests stopped before the maximum because the
+         * delivery rate was clearly outside the target band.
+         *
+         * @return true if stopped early
+         */
+        public boolean isStoppedEarly()
+        {
+            return this.stoppedEarly;
+        }
+    }
+
+    /**
+     * Parses a comma separated list of numbers.
+     *
+     * @param text The list, e.g. "7,9,11"
+     * @return The numbers
+     * @throws NumberFormatException if an entry is not a number
+     */
+    private static int[] parseValues(String text)
+    {
+        String[] parts = text.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++)
+        {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    /**
+     * Runs a sweep and writes the results table.
+     *
+     * @param args The options described in the class comment
+     */
+    public static void main(String[] args)
+    {
+        String filename = GameFileHandler.DEFAULT_LABYRINTH_FILE;
+        String resultsFile = DEFAULT_RESULTS_FILE;
+        int quests = DEFAULT_QUESTS;
+        int sample = 0;
+        int[] target = {40, 80};
+        long seed = 1;
+        ArrayList<String> ruleNames = new ArrayList<>();
+        ArrayList<int[]> ruleValues = new ArrayList<>();
+
+        try
+        {
+            for (String arg : args)
+            {
+                if (arg.startsWith("--labyrinth="))
+                {
+                    filename = arg.substring("--labyrinth=".length());
+                }
+                else if (arg.startsWith("--out="))
+                {
+                    resultsFile = arg.substring("--out=".length());
+                }
+                else if (arg.startsWith("--quests="))
+                {
+                    quests = Integer.parseInt(arg.substring("--quests=".length()));
+                }
+                else if (arg.startsWith("--sample="))
+                {
+                    sample = Integer.parseInt(arg.substring("--sample=".length()));
+                }
+                else if (arg.startsWith("--target="))
+                {
+                    target = parseValues(arg.substring("--target=".length()));
+                }
+                else if (arg.startsWith("--seed="))
+                {
+                    seed = Long.parseLong(arg.substring("--seed=".length()));
+                }
+                else if (arg.startsWith("--") && arg.indexOf('=') > 2)
+                {
+                    ruleNames.add(arg.substring(2, arg.indexOf('=')));
+                    ruleValues.add(parseValues(arg.substring(arg.indexOf('=') + 1)));
+                }
+                else
+                {
+                    System.out.println("Unknown option: " + arg);
+                    return;
+                }
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            System.out.println("Please enter valid numbers: " + e.getMessage());
+            return;
+        }
+        if (target.length != 2 || target[0] < 0 || target[0] > target[1] || target[1] > 100)
+        {
+            System.out.println("The target must be two percentages, e.g. --target=40,80");
+            return;
+        }
+
+        LabyrinthGraph graph;
+        try
+        {
+            graph = GameFileHandler.loadLabyrinthGraph(filename, new ArrayList<>());
+        }
+        catch (IOException e)
+        {
+            System.out.println("Error loading labyrinth: " + e.getMessage());
+            return;
+        }
+        if (graph.size() == 0)
+        {
+            System.out.println("Error: No valid caves were loaded from " + filename + ".");
+            return;
+        }
+
+        BalanceSweep sweep = new BalanceSweep(graph, quests, target[0] / 100.0, target[1] / 100.0, seed);
+        if (ruleNames.isEmpty())
+        {
+            for (int i = 0; i < DEFAULT_SWEPT.length; i++)
+            {
+                sweep.addRule(DEFAULT_SWEPT[i], DEFAULT_CANDIDATES[i]);
+            }
+        }
+        for (int i = 0; i < ruleNames.size(); i++)
+        {
+            if (!sweep.addRule(ruleNames.get(i), ruleValues.get(i)))
+            {
+                System.out.println("Unknown rule or value not allowed: --" + ruleNames.get(i) + ". Rules are " +
+                        String.join(", ", GameRules.PARAMETER_NAMES) + ".");
+                return;
+            }
+        }
+
+        long start = System.nanoTime();
+        ArrayList<SweepResult> results;
+        try
+        {
+            results = sweep.run(sample);
+            sweep.writeResults(resultsFile, results);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        catch (IOException e)
+        {
+            System.out.println("Error writing results: " + e.getMessage());
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long totalQuests = 0;
+        int stoppedEarly = 0;
+        for (SweepResult result : results)
+        {
+            totalQuests += result.getQuests();
+            stoppedEarly += result.isStoppedEarly() ? 1 : 0;
+        }
+        System.out.println("=== BALANCE SWEEP (" + results.size() + " sets of rules, " + graph.size() + " caves) ===");
+        System.out.println(String.format("%d quests in %.1f s, %d sets of rules stopped early. Results written to %s.",
+                totalQuests, elapsed / 1e9, stoppedEarly, resultsFile));
+
+        // The sets of rules closest to the middle of the target band
+        double middle = (target[0] + target[1]) / 200.0;
+        results.sort((a, b) -> Double.compare(Math.abs(a.getDeliveryRate() - middle),
+                Math.abs(b.getDeliveryRate() - middle)));
+        System.out.println("\nClosest to a " + Math.round(middle * 100) + "% delivery rate:");
+        for (int i = 0; i < Math.min(BEST_SHOWN, results.size()); i++)
+        {
+            SweepResult result = results.get(i);
+            System.out.println(String.format("  %-50s %5.1f%% delivered, %6.1f moves", sweep.describe(result),
+                    result.getDeliveryRate() * 100, result.getAverageMoves()));
+        }
+    }
+}
@@ -6,12 +6,19 @@
  */
 public class Cave
 {
+    // Direction names in passage order, for passage descriptions
+    private static final String[] DIRECTIONS = {"North", "East", "South", "West"};
+
     private int id;
     private int north;
     private int east;
     private int south;
     private int west;
     private Creature creature;
+    private boolean cleared; // true once the cave is known to stay empty
+    private boolean visited; // true once the Fellowship has entered the cave, see QuestHistory
+    private byte[] label; // "Cave 7", formatted when first rendered
+    private byte[] passageDescription; // "North and South", formatted when first rendered
     
     /**
      * Default constructor for Cave.
@@ -24,6 +31,10 @@ public class Cave
         this.south = 0;
         this.west = 0;
         this.creature = null;
+        this.cleared = false;
+        this.visited = false;
+        this.label = null;
+        this.passageDescription = null;
     }
     
     /**
@@ -43,6 +54,10 @@ public class Cave
         this.south = south;
         this.west = west;
         this.creature = null;
+        this.cleared = false;
+        this.visited = false;
+        this.label = null;
+        this.passageDescription = null;
     }
     
     /**
@@ -85,6 +100,70 @@ public class Cave
         }
     }
     
+    /**
+     * Gets the label of the cave for display, formatted once and reused.
+     * 
+     * @return "Mount Api" for the Mount Api cave, otherwise "Cave " and the id, as UTF-8
+     */
+    public byte[] getLabelBytes()
+    {
+        if (this.label == null)
+        {
+            this.label = TextBuffer.bytes(this.id == 100 ? "Mount Api" : "Cave " + this.id);
+        }
+        return this.label;
+    }
+    
+    /**
+     * Gets the directions with open passages joined with "and", formatted
+     * once and reused.
+     * 
+     * @return The passage description, e.g. "North and South", as UTF-8
+     */
+    public byte[] getPassageDescriptionBytes()
+    {
+        if (this.passageDescription == null)
+        {
+            StringBuilder sb = new StringBuilder();
+            for (int direction = 0; direction < DIRECTIONS.length; direction++)
+            {
+                if (this.getPassage(direction) != 0)
+                {
+                    if (sb.length() > 0)
+                    {
+                        sb.append(" and ");
+                    }
+                    sb.append(DIRECTIONS[direction]);
+                }
+            }
+            this.passageDescription = TextBuffer.bytes(sb.toString());
+        }
+        return this.passageDescription;
+    }
+    
+    /**
+     * Gets the id of the cave in a direction.
+     * 
+     * @param direction 0 for north, 1 for east, 2 for south or 3 for west
+     * @return The id of the cave in that direction, or 0 if blocked
+     */
+    public int getPassage(int direction)
+    {
+        switch (direction)
+        {
+            case 0:
+                return this.north;
+            case 1:
+                return this.east;
+            case 2:
+                return this.south;
+            case 3:
+                return this.west;
+            default:
+                return 0;
+        }
+    }
+    
     /**
      * Gets the creature in the cave.
      * 
@@ -156,6 +235,47 @@ public class Cave
                 this.south == 100 || this.west == 100;
     }
     
+    /**
+     * Checks if the cave has been cleared: no creature lives here, or its
+     * creature died and was released, so no new creature appears here.
+     * 
+     * @return true if the cave has been cleared
+     */
+    public boolean isCleared()
+    {
+        return this.cleared;
+    }
+    
+    /**
+     * Checks if the Fellowship has entered the cave.
+     * 
+     * @return true if the cave has been visited
+     */
+    public boolean isVisited()
+    {
+        return this.visited;
+    }
+    
+    /**
+     * Marks the cave as entered by the Fellowship.
+     * 
+     * @param visited true if the cave has been visited
+     */
+    public void setVisited(boolean visited)
+    {
+        this.visited = visited;
+    }
+    
+    /**
+     * Clears the cave, releasing any dead creature so it can be garbage
+     * collected. No new creature appears in a cleared cave.
+     */
+    public void clear()
+    {
+        this.creature = null;
+        this.cleared = true;
+    }
+    
     /**
      * Sets the creature in the cave.
      * 
@@ -176,6 +296,7 @@ public class Cave
         if (east >= 0)
         {
             this.east = east;
+            this.passageDescription = null;
         }
     }
     
@@ -189,6 +310,7 @@ public class Cave
         if (id >= 0)
         {
             this.id = id;
+            this.label = null;
         }
     }
     
@@ -202,6 +324,7 @@ public class Cave
         if (north >= 0)
         {
             this.north = north;
+            this.passageDescription = null;
         }
     }
     
@@ -215,6 +338,7 @@ public class Cave
         if (south >= 0)
         {
             this.south = south;
+            this.passageDescription = null;
         }
     }
     
@@ -228,6 +352,7 @@ public class Cave
         if (west >= 0)
         {
             this.west = west;
+            this.passageDescription = null;
         }
     }
     
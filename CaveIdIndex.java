@@ -0,0 +1,209 @@
+/**
+ * CaveIdIndex maps cave ids to int values, such as the index of a cave in
+ * a list or array. It is an open addressing table of primitive ints, so
+ * looking up an id boxes nothing and creates no garbage, even for
+ * labyrinths with millions of caves.
+ *
+ * Collisions are resolved by linear probing, and removing an id shifts the
+ * entries after it back, so the table never fills up with removed slots.
+ * The table doubles in size when it is half full.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.Arrays;
+
+public class CaveIdIndex
+{
+    public static final int NOT_FOUND = -1; // Value of an id that is not in the index
+    private static final int EMPTY = -1; // Value of an empty slot; values are never negative
+
+    private int[] keys; // cave id in each slot
+    private int[] values; // value of each slot, or EMPTY
+    private int mask;
+    private int size;
+
+    /**
+     * Non-default constructor for CaveIdIndex.
+     *
+     * @param expectedSize The number of ids expected, so the table does not have to grow
+     */
+    public CaveIdIndex(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        Arrays.fill(this.values, EMPTY);
+        this.mask = capacity - 1;
+        this.size = 0;
+    }
+
+    /**
+     * Spreads the bits of a cave id so nearby ids use different slots. Also
+     * used to pick a lock stripe for a cave.
+     *
+     * @param id The cave id
+     * @return The hashed id
+     */
+    public static int hash(int id)
+    {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Gets the value of an id.
+     *
+     * @param id The cave id
+     * @return The value, or NOT_FOUND if the id is not in the index
+     */
+    public int get(int id)
+    {
+        int slot = hash(id) & this.mask;
+        while (this.values[slot] != EMPTY)
+        {
+            if (this.keys[slot] == id)
+            {
+                return this.values[slot];
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Adds an id unless it is already in the index, so the first value
+     * given for an id is kept, as a search of a list would find it.
+     *
+     * @param id The cave id
+     * @param value The value, at least 0
+     * @return true if the id was added, false if it was already in the index
+     */
+    public boolean putIfAbsent(int id, int value)
+    {
+        int slot = this.findSlot(id);
+        if (this.values[slot] != EMPTY)
+        {
+            return false;
+        }
+        this.add(slot, id, value);
+        return true;
+    }
+
+    /**
+     * Sets the value of an id, adding the id if it is not in the index.
+     *
+     * @param id The cave id
+     * @param value The value, at least 0
+     */
+    public void put(int id, int value)
+    {
+        int slot = this.findSlot(id);
+        if (this.values[slot] != EMPTY)
+        {
+            this.values[slot] = value;
+            return;
+        }
+        this.add(slot, id, value);
+    }
+
+    /**
+     * Removes an id, moving back the entries that were pushed past its slot.
+     *
+     * @param id The cave id
+     * @return The value the id had, or NOT_FOUND if it was not in the index
+     */
+    public int remove(int id)
+    {
+        int hole = this.findSlot(id);
+        int removed = this.values[hole];
+        if (removed == EMPTY)
+        {
+            return NOT_FOUND;
+        }
+
+        int slot = (hole + 1) & this.mask;
+        while (this.values[slot] != EMPTY)
+        {
+            // An entry can fill the hole if the hole lies between its home slot and its slot
+            int home = hash(this.keys[slot]) & this.mask;
+            if (((slot - home) & this.mask) >= ((slot - hole) & this.mask))
+            {
+                this.keys[hole] = this.keys[slot];
+                this.values[hole] = this.values[slot];
+                hole = slot;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.values[hole] = EMPTY;
+        this.size--;
+        return removed;
+    }
+
+    /**
+     * Gets the number of ids in the index.
+     *
+     * @return The number of ids
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * Finds the slot of an id, or the empty slot where it would be added.
+     *
+     * @param id The cave id
+     * @return The slot
+     */
+    private int findSlot(int id)
+    {
+        int slot = hash(id) & this.mask;
+        while (this.values[slot] != EMPTY && this.keys[slot] != id)
+        {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Adds an id to an empty slot, doubling the table first if it is half full.
+     *
+     * @param slot The empty slot found for the id
+     * @param id The cave id
+     * @param value The value
+     */
+    private void add(int slot, int id, int value)
+    {
+        if ((this.size + 1) * 2 > this.keys.length)
+        {
+            this.grow();
+            slot = this.findSlot(id);
+        }
+        this.keys[slot] = id;
+        this.values[slot] = value;
+        this.size++;
+    }
+
+    /**
+     * Doubles the table, adding every entry again.
+     */
+    private void grow()
+    {
+        int[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.keys = new int[oldKeys.length * 2];
+        this.values = new int[oldKeys.length * 2];
+        Arrays.fill(this.values, EMPTY);
+        this.mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldValues[i] != EMPTY)
+            {
+                int slot = this.findSlot(oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,580 @@
+/**
+ * CavePageStore gives access to a labyrinth too large to hold in memory.
+ * The labyrinth file is converted once into a binary page file next to it
+ * (labyrinth.txt.pages): fixed-size records of five ints per cave, grouped
+ * into pages of PAGE_CAVES caves. Only the first cave id of each page is
+ * kept in memory (a sparse index), so finding the page of a cave is a binary
+ * search, and pages are read on demand into a bounded LRU cache as the
+ * Fellowship moves. Looking up a cave on a page in the cache does not touch
+ * the disk.
+ *
+ * Caves that still hold a creature the Fellowship met are kept (see
+ * CaveStore) and put back when their page is read again, so no creature is
+ * lost when a page is dropped from the cache.
+ *
+ * Paging needs the cave ids in the file to be in increasing order, as
+ * written by LabyrinthGenerator. Mount Api may be anywhere in the file: it
+ * is kept in the page file header and always in memory.
+ *
+ * To walk through a paged labyrinth and print the cache statistics, use:
+ *       java CavePageStore [labyrinth file] [cache pages] [moves]
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class CavePageStore extends CaveStore
+{
+    public static final int PAGE_CAVES = 256; // Caves per page, 5 KB of records
+    public static final String PAGE_FILE_SUFFIX = ".pages";
+    public static final int RECORD_BYTES = 5 * Integer.BYTES; // id, north, east, south, west
+    public static final int HEADER_BYTES = 3 * Integer.BYTES + RECORD_BYTES; // Magic, caves per page, cave count and Mount Api
+
+    private static final int MAGIC = 0x4643_5047; // "FCPG", marks a page file
+    private static final int MAX_LOAD_WARNINGS = 10; // Invalid lines reported individually
+    private static final int DEFAULT_CACHE_PAGES = 64;
+    private static final int DEFAULT_MOVES = 1_000_000;
+    private static final int MOUNT_API_ID = 100; // ID for Mount Api
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private int caveCount;
+    private int pageCaves;
+    private int[] firstIds; // id of the first cave on each page
+    private LinkedHashMap<Integer, Cave[]> cache; // pages in memory, least recently used first
+    private ByteBuffer pageBuffer; // reused for every page read
+    private Cave startCave;
+    private Cave mountApi; // kept out of the pages, or null if the labyrinth has none
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Non-default constructor for CavePageStore. Opens a page file; use
+     * open() to convert the labyrinth file first if needed.
+     *
+     * @param pageFile The page file to read
+     * @param cachePages The largest number of pages held in memory
+     * @throws IOException if the page file cannot be read or is not a page file
+     */
+    public CavePageStore(String pageFile, int cachePages) throws IOException
+    {
+        if (cachePages < 1)
+        {
+            throw new IllegalArgumentException("The page cache must hold at least one page");
+        }
+
+        this.file = new RandomAccessFile(pageFile, "r");
+        this.channel = this.file.getChannel();
+        ByteBuffer header = readHeader(this.channel, pageFile);
+        this.pageCaves = header.getInt();
+        this.caveCount = header.getInt(); // not counting Mount Api
+        this.mountApi = readMountApi(header);
+
+        // Sparse index: the first id of every page, read without loading the pages
+        int pages = (this.caveCount + this.pageCaves - 1) / this.pageCaves;
+        this.firstIds = new int[pages];
+        ByteBuffer id = ByteBuffer.allocate(Integer.BYTES);
+        for (int page = 0; page < pages; page++)
+        {
+            id.clear();
+            readFully(this.channel, id, recordOffset(page * this.pageCaves));
+            this.firstIds[page] = id.getInt(0);
+        }
+
+        this.cache = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Cave[]> eldest)
+            {
+                if (this.size() <= cachePages)
+                {
+                    return false;
+                }
+                CavePageStore.this.evictions++;
+                GameMetrics.pageEvicted();
+                return true;
+            }
+        };
+        this.pageBuffer = ByteBuffer.allocate(this.pageCaves * RECORD_BYTES);
+        this.hits = 0;
+        this.misses = 0;
+        this.evictions = 0;
+        this.startCave = this.caveCount == 0 ? null : this.findCave(this.firstIds[0]);
+        this.pin(this.startCave);
+    }
+
+    /**
+     * Opens a labyrinth file for paged access, converting it into a page
+     * file first if there is none or the labyrinth file is newer. Nothing is
+     * printed, so this can run on a background thread.
+     *
+     * @param filename The labyrinth file
+     * @param cachePages The largest number of pages held in memory
+     * @param warnings List that receives a message for each invalid line (the first few only)
+     * @return The opened store
+     * @throws FileNotFoundException if the labyrinth file is not found
+     * @throws IOException if the file cannot be converted or read
+     */
+    public static CavePageStore open(String filename, int cachePages, ArrayList<String> warnings)
+            throws FileNotFoundException, IOException
+    {
+        return new CavePageStore(preparePageFile(filename, warnings), cachePages);
+    }
+
+    /**
+     * Converts a labyrinth file into a page file next to it, unless there
+     * is already one that is newer than the labyrinth file.
+     *
+     * @param filename The labyrinth file
+     * @param warnings List that receives a message for each invalid line (the first few only)
+     * @return The name of the page file
+     * @throws FileNotFoundException if the labyrinth file is not found
+     * @throws IOException if the file cannot be converted
+     */
+    public static String preparePageFile(String filename, ArrayList<String> warnings)
+            throws FileNotFoundException, IOException
+    {
+        File textFile = new File(filename);
+        if (!textFile.exists())
+        {
+            throw new FileNotFoundException(filename + " (No such file or directory)");
+        }
+
+        File pageFile = new File(filename + PAGE_FILE_SUFFIX);
+        if (!pageFile.exists() || pageFile.lastModified() < textFile.lastModified())
+        {
+            convert(filename, pageFile.getPath(), warnings);
+        }
+        return pageFile.getPath();
+    }
+
+    /**
+     * Reads and checks the header of a page file.
+     *
+     * @param channel The page file
+     * @param pageFile The name of the page file, for the error message
+     * @return The header, positioned at the caves per page, followed by the cave count and Mount Api
+     * @throws IOException if the file cannot be read or is not a page file
+     */
+    public static ByteBuffer readHeader(FileChannel channel, String pageFile) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC)
+        {
+            channel.close();
+            throw new IOException(pageFile + " is not a labyrinth page file");
+        }
+        return header;
+    }
+
+    /**
+     * Reads the Mount Api record from a page file header.
+     *
+     * @param header The header, positioned at the Mount Api record
+     * @return Mount Api, or null if the labyrinth has none
+     */
+    public static Cave readMountApi(ByteBuffer header)
+    {
+        int id = header.getInt();
+        if (id != MOUNT_API_ID)
+        {
+            return null;
+        }
+        return new Cave(id, header.getInt(), header.getInt(), header.getInt(), header.getInt());
+    }
+
+    /**
+     * Converts a labyrinth file into a page file, one line at a time, so the
+     * labyrinth never has to fit in memory. Invalid lines are skipped and
+     * reported in warnings.
+     *
+     * @param filename The labyrinth file to convert
+     * @param pageFile The page file to write
+     * @param warnings List that receives a message for each invalid line (the first few only)
+     * @throws IOException if a file cannot be read or written, or the cave ids are not in increasing order
+     */
+    public static void convert(String filename, String pageFile, ArrayList<String> warnings) throws IOException
+    {
+        long start = System.nanoTime();
+        int caveCount = 0;
+        int invalidLines = 0;
+        int[] mountApi = null; // id and passages of Mount Api, once found
+        File tempFile = new File(pageFile + ".tmp");
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename));
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16)))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(PAGE_CAVES);
+            out.writeInt(0); // Cave count, filled in once known
+            out.write(new byte[RECORD_BYTES]); // Mount Api, filled in once found
+
+            String line;
+            int lineNumber = 0;
+            int lastId = Integer.MIN_VALUE;
+            while ((line = reader.readLine()) != null)
+            {
+                lineNumber++;
+                int[] values = parseLine(line);
+                if (values == null)
+                {
+                    invalidLines++;
+                    if (invalidLines <= MAX_LOAD_WARNINGS)
+                    {
+                        warnings.add("Line " + lineNumber + " in " + filename +
+                                " has invalid format. Expected 5 comma-separated integers.");
+                    }
+                    continue;
+                }
+                if (values[0] == MOUNT_API_ID && mountApi == null)
+                {
+                    mountApi = values;
+                    continue;
+                }
+                if (values[0] <= lastId)
+                {
+                    throw new IOException("Cave " + values[0] + " on line " + lineNumber + " of " + filename +
+                            " is out of order. Paged loading needs cave ids in increasing order.");
+                }
+                lastId = values[0];
+
+                for (int value : values)
+                {
+                    out.writeInt(value);
+                }
+                caveCount++;
+            }
+        }
+        catch (IOException e)
+        {
+            tempFile.delete();
+            throw e;
+        }
+
+        if (invalidLines > MAX_LOAD_WARNINGS)
+        {
+            warnings.add((invalidLines - MAX_LOAD_WARNINGS) + " more invalid lines in " +
+                    filename + " were skipped.");
+        }
+
+        try (RandomAccessFile temp = new RandomAccessFile(tempFile, "rw"))
+        {
+            temp.seek(2 * Integer.BYTES);
+            temp.writeInt(caveCount);
+            if (mountApi != null)
+            {
+                for (int value : mountApi)
+                {
+                    temp.writeInt(value);
+                }
+            }
+        }
+        File target = new File(pageFile);
+        target.delete();
+        if (!tempFile.renameTo(target))
+        {
+            throw new IOException("Could not write " + pageFile);
+        }
+        GameMetrics.labyrinthLoaded(System.nanoTime() - start);
+    }
+
+    /**
+     * Parses a line of the labyrinth file.
+     *
+     * @param line The line
+     * @return The id and the four passages, or null if the line is not five comma-separated integers
+     */
+    private static int[] parseLine(String line)
+    {
+        String[] parts = line.split(",");
+        if (parts.length != 5)
+        {
+            return null;
+        }
+        int[] values = new int[5];
+        try
+        {
+            for (int i = 0; i < 5; i++)
+            {
+                values[i] = GameFileHandler.parseCaveField(parts[i]);
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+        return values;
+    }
+
+    /**
+     * Finds a cave by its id, reading its page from the page file if the
+     * page is not in the cache.
+     *
+     * @param id The cave id
+     * @return The cave, or null if there is no cave with that id
+     */
+    @Override
+    public Cave findCave(int id)
+    {
+        if (id == MOUNT_API_ID && this.mountApi != null)
+        {
+            return this.mountApi;
+        }
+
+        int page = Arrays.binarySearch(this.firstIds, id);
+        if (page < 0)
+        {
+            page = -page - 2; // The page whose first id is below this id
+        }
+        if (page < 0)
+        {
+            return null;
+        }
+
+        Cave[] caves = this.cache.get(page);
+        if (caves == null)
+        {
+            caves = this.loadPage(page);
+            this.cache.put(page, caves);
+        }
+        else
+        {
+            this.hits++;
+            GameMetrics.pageHit();
+        }
+
+        // Caves on a page are in id order too
+        int low = 0;
+        int high = caves.length - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int middleId = caves[middle].getId();
+            if (middleId < id)
+            {
+                low = middle + 1;
+            }
+            else if (middleId > id)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return caves[middle];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads a page from the page file, putting back any caves that have
+     * been kept.
+     *
+     * @param page The page number
+     * @return The caves on the page
+     */
+    private Cave[] loadPage(int page)
+    {
+        long start = System.nanoTime();
+        int first = page * this.pageCaves;
+        int count = Math.min(this.pageCaves, this.caveCount - first);
+        this.pageBuffer.clear().limit(count * RECORD_BYTES);
+        try
+        {
+            readFully(this.channel, this.pageBuffer, recordOffset(first));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Could not read labyrinth page " + page, e);
+        }
+        this.pageBuffer.flip();
+
+        Cave[] caves = new Cave[count];
+        for (int i = 0; i < count; i++)
+        {
+            int id = this.pageBuffer.getInt();
+            Cave kept = this.getKeptCave(id);
+            if (kept != null)
+            {
+                this.pageBuffer.position(this.pageBuffer.position() + 4 * Integer.BYTES);
+                caves[i] = kept;
+            }
+            else
+            {
+                caves[i] = new Cave(id, this.pageBuffer.getInt(), this.pageBuffer.getInt(),
+                        this.pageBuffer.getInt(), this.pageBuffer.getInt());
+            }
+        }
+
+        this.misses++;
+        GameMetrics.pageLoaded(System.nanoTime() - start);
+        return caves;
+    }
+
+    /**
+     * Gets the position of a cave record in the page file.
+     *
+     * @param index The index of the cave in the file
+     * @return The byte offset of the record
+     */
+    private static long recordOffset(int index)
+    {
+        return HEADER_BYTES + (long) index * RECORD_BYTES;
+    }
+
+    /**
+     * Reads from a channel until the buffer is full.
+     *
+     * @param channel The channel to read
+     * @param buffer The buffer to fill
+     * @param position The file position to read from
+     * @throws IOException if the file ends before the buffer is full
+     */
+    public static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            int read = channel.read(buffer, position);
+            if (read < 0)
+            {
+                throw new IOException("Unexpected end of the labyrinth page file");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Gets the cave the quest starts in.
+     *
+     * @return The first cave in the file, or null if there are no caves
+     */
+    @Override
+    public Cave getStartCave()
+    {
+        return this.startCave;
+    }
+
+    /**
+     * Gets the number of caves.
+     *
+     * @return The number of caves
+     */
+    @Override
+    public int size()
+    {
+        return this.caveCount + (this.mountApi != null ? 1 : 0);
+    }
+
+    /**
+     * Gets the number of cave lookups served from the cache.
+     *
+     * @return The number of cache hits
+     */
+    public long getHits()
+    {
+        return this.hits;
+    }
+
+    /**
+     * Gets the number of pages read from the page file.
+     *
+     * @return The number of cache misses
+     */
+    public long getMisses()
+    {
+        return this.misses;
+    }
+
+    /**
+     * Gets the number of pages dropped from the cache.
+     *
+     * @return The number of evictions
+     */
+    public long getEvictions()
+    {
+        return this.evictions;
+    }
+
+    /**
+     * Closes the page file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        this.file.close();
+    }
+
+    /**
+     * Walks through a paged labyrinth at random and prints the cache statistics.
+     *
+     * @param args Labyrinth file (labyrinth.txt if not given), cache pages (64 if not given) and moves (1,000,000 if not given)
+     */
+    public static void main(String[] args)
+    {
+        String filename = args.length > 0 ? args[0] : "labyrinth.txt";
+        int cachePages = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CACHE_PAGES;
+        int moves = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MOVES;
+
+        ArrayList<String> warnings = new ArrayList<>();
+        long start = System.nanoTime();
+        try
+        {
+            CavePageStore store = open(filename, cachePages, warnings);
+            long opened = System.nanoTime();
+            for (String warning : warnings)
+            {
+                System.out.println("Warning: " + warning);
+            }
+            if (store.size() == 0)
+            {
+                System.out.println("Error: No valid caves were loaded from " + filename + ".");
+                return;
+            }
+
+            Random random = new Random(1);
+            Cave cave = store.getStartCave();
+            for (int move = 0; move < moves; move++)
+            {
+                int passage = cave.getPassage(random.nextInt(4));
+                Cave next = passage == 0 || passage == MOUNT_API_ID ? null : store.findCave(passage);
+                cave = next == null ? store.getStartCave() : next;
+            }
+            long walked = System.nanoTime();
+            store.close();
+
+            System.out.println("=== PAGED LABYRINTH (" + store.size() + " caves, " + cachePages + " of " +
+                    store.firstIds.length + " pages cached) ===");
+            System.out.println(String.format("Opened in %.1f ms, %d moves in %.1f ms", (opened - start) / 1e6,
+                    moves, (walked - opened) / 1e6));
+            System.out.println(String.format("Hits: %d, Misses: %d, Evictions: %d, Hit rate: %.2f%%",
+                    store.getHits(), store.getMisses(), store.getEvictions(),
+                    100.0 * store.getHits() / Math.max(1, store.getHits() + store.getMisses())));
+        }
+        catch (IOException e)
+        {
+            System.out.println("Error loading labyrinth: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * CaveStore is the base class for labyrinths whose caves are not all held
+ * in memory as Cave objects. Caves are made from the stored records when
+ * they are looked up. A cave is only kept when making it again would lose
+ * something: while the Fellowship is in it, and after it leaves if the
+ * cave still holds a creature, alive or wounded or (outside bounded-memory
+ * mode) dead. Later lookups of a kept cave return the same object.
+ *
+ * A cave that is empty or was cleared is let go and made again when it is
+ * next looked up, so memory does not grow with the number of caves entered.
+ * An empty cave comes back the same, as CreatureSpawner gives it no
+ * creature again; in bounded-memory mode a cleared cave's creature is
+ * spawned again, as nothing is remembered of it.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.IOException;
+import java.util.Arrays;
+
+public abstract class CaveStore
+{
+    private static final int INITIAL_KEPT_CAVES = 16; // Kept caves held before the array grows
+
+    private Cave[] keptCaves; // caves that would lose their creature if made again
+    private int keptCount;
+    private CaveIdIndex keptIndex; // position of each kept cave in keptCaves, by id
+    private Cave enteredCave; // the cave the Fellowship is in, kept until it leaves
+    private Cave pinnedCave; // the start cave, always kept
+
+    /**
+     * Default constructor for CaveStore.
+     */
+    public CaveStore()
+    {
+        this.keptCaves = new Cave[INITIAL_KEPT_CAVES];
+        this.keptCount = 0;
+        this.keptIndex = new CaveIdIndex(INITIAL_KEPT_CAVES);
+        this.enteredCave = null;
+        this.pinnedCave = null;
+    }
+
+    /**
+     * Finds a cave by its id.
+     *
+     * @param id The cave id
+     * @return The cave, or null if there is no cave with that id
+     */
+    public abstract Cave findCave(int id);
+
+    /**
+     * Gets the cave the quest starts in.
+     *
+     * @return The start cave, or null if there are no caves
+     */
+    public abstract Cave getStartCave();
+
+    /**
+     * Gets the number of caves.
+     *
+     * @return The number of caves
+     */
+    public abstract int size();
+
+    /**
+     * Closes any file the caves are read from.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    public abstract void close() throws IOException;
+
+    /**
+     * Keeps a cave while the Fellowship is in it. Called when the
+     * Fellowship enters a cave; the cave it leaves is then kept only if it
+     * still holds a creature.
+     *
+     * @param cave The cave entered
+     */
+    public void keep(Cave cave)
+    {
+        Cave left = this.enteredCave;
+        this.enteredCave = cave;
+        if (left == null || left == cave || left == this.pinnedCave)
+        {
+            return;
+        }
+
+        if (left.getCreature() != null)
+        {
+            this.putKeptCave(left);
+        }
+        else
+        {
+            this.removeKeptCave(left.getId()); // Empty or cleared, so it can be made again
+        }
+    }
+
+    /**
+     * Keeps a cave for good, for the start cave.
+     *
+     * @param cave The cave to keep
+     */
+    protected void pin(Cave cave)
+    {
+        if (cave != null)
+        {
+            this.pinnedCave = cave;
+            this.putKeptCave(cave);
+        }
+    }
+
+    /**
+     * Gets a cave that has been kept.
+     *
+     * @param id The cave id
+     * @return The kept cave, or null if the cave has not been kept
+     */
+    protected Cave getKeptCave(int id)
+    {
+        Cave entered = this.enteredCave;
+        if (entered != null && entered.getId() == id)
+        {
+            return entered;
+        }
+        int position = this.keptIndex.get(id);
+        return position == CaveIdIndex.NOT_FOUND ? null : this.keptCaves[position];
+    }
+
+    /**
+     * Adds a cave to the kept caves, or replaces the kept cave with its id.
+     *
+     * @param cave The cave to keep
+     */
+    private void putKeptCave(Cave cave)
+    {
+        int position = this.keptIndex.get(cave.getId());
+        if (position != CaveIdIndex.NOT_FOUND)
+        {
+            this.keptCaves[position] = cave;
+            return;
+        }
+
+        if (this.keptCount == this.keptCaves.length)
+        {
+            this.keptCaves = Arrays.copyOf(this.keptCaves, this.keptCount * 2);
+        }
+        this.keptCaves[this.keptCount] = cave;
+        this.keptIndex.put(cave.getId(), this.keptCount);
+        this.keptCount++;
+    }
+
+    /**
+     * Removes a cave from the kept caves, moving the last kept cave into its place.
+     *
+     * @param id The cave id
+     */
+    private void removeKeptCave(int id)
+    {
+        int position = this.keptIndex.remove(id);
+        if (position == CaveIdIndex.NOT_FOUND)
+        {
+            return;
+        }
+
+        this.keptCount--;
+        if (position != this.keptCount)
+        {
+            Cave last = this.keptCaves[this.keptCount];
+            this.keptCaves[position] = last;
+            this.keptIndex.put(last.getId(), position);
+        }
+        this.keptCaves[this.keptCount] = null;
+    }
+
+    /**
+     * Gets the number of caves kept after the Fellowship left them, and the start cave.
+     *
+     * @return The number of kept caves
+     */
+    public int getKeptCount()
+    {
+        return this.keptCount;
+    }
+}
@@ -9,9 +9,24 @@ import java.util.Random;
 
 public abstract class Creature
 {
+    private static final int MAX_POWER_DIFFERENCE = GameRules.MAX_POWER_DIFFERENCE; // Differences beyond this give the same chance
+    private static final int[] WIN_CHANCES = new int[MAX_POWER_DIFFERENCE * 2 + 1]; // by difference, from -4 to 4
+
+    static
+    {
+        GameRules rules = new GameRules();
+        for (int difference = -MAX_POWER_DIFFERENCE; difference <= MAX_POWER_DIFFERENCE; difference++)
+        {
+            WIN_CHANCES[difference + MAX_POWER_DIFFERENCE] = rules.getWinChance(difference);
+        }
+    }
+    
     private String name;
     private int power;
     private int damagePoints;
+    private int lastRoll;
+    private boolean dead;
+    private byte[] displayPrefix; // "name (Type)", formatted once for rendering
     
     /**
      * Default constructor for Creature.
@@ -21,6 +36,9 @@ public abstract class Creature
         this.name = "Unknown";
         this.power = 0;
         this.damagePoints = 0;
+        this.lastRoll = 0;
+        this.dead = false;
+        this.displayPrefix = this.formatDisplayPrefix();
     }
     
     /**
@@ -34,6 +52,9 @@ public abstract class Creature
         this.name = name;
         this.power = power;
         this.damagePoints = 0;
+        this.lastRoll = 0;
+        this.dead = false;
+        this.displayPrefix = this.formatDisplayPrefix();
     }
     
     /**
@@ -54,42 +75,20 @@ public abstract class Creature
      */
     protected int calculateWinChance(int powerDifference)
     {
-        if (powerDifference >= 4)
-        {
-            return 90;
-        }
-        else if (powerDifference >= 3)
-        {
-            return 80;
-        }
-        else if (powerDifference >= 2)
-        {
-            return 70;
-        }
-        else if (powerDifference >= 1)
-        {
-            return 60;
-        }
-        else if (powerDifference == 0)
-        {
-            return 50;
-        }
-        else if (powerDifference >= -1)
-        {
-            return 40;
-        }
-        else if (powerDifference >= -2)
-        {
-            return 30;
-        }
-        else if (powerDifference >= -3)
-        {
-            return 20;
-        }
-        else
-        {
-            return 10;
-        }
+        return winChanceForDifference(powerDifference);
+    }
+    
+    /**
+     * Looks up the win chance for a power difference: 50% for equal power,
+     * 10% more or less for each point of difference, from 10% to 90%.
+     * 
+     * @param powerDifference The power difference between creatures
+     * @return The win chance as a percentage
+     */
+    public static int winChanceForDifference(int powerDifference)
+    {
+        int clamped = Math.max(-MAX_POWER_DIFFERENCE, Math.min(MAX_POWER_DIFFERENCE, powerDifference));
+        return WIN_CHANCES[clamped + MAX_POWER_DIFFERENCE];
     }
     
     /**
@@ -126,6 +125,46 @@ public abstract class Creature
         return this.damagePoints;
     }
     
+    /**
+     * Gets the roll from this creature's last fight.
+     * 
+     * @return The roll between 1 and 100, or 0 if the last fight was not rolled
+     */
+    public int getLastRoll()
+    {
+        return this.lastRoll;
+    }
+    
+    /**
+     * Checks if the creature has died.
+     * 
+     * @return true once the creature has been recorded as dead
+     */
+    public boolean isDead()
+    {
+        return this.dead;
+    }
+    
+    /**
+     * Gets the name and type of the creature for display, formatted once and reused.
+     * 
+     * @return "name (Type)", as UTF-8
+     */
+    public byte[] getDisplayPrefixBytes()
+    {
+        return this.displayPrefix;
+    }
+    
+    /**
+     * Formats the name and type of the creature for display.
+     * 
+     * @return "name (Type)", as UTF-8
+     */
+    private byte[] formatDisplayPrefix()
+    {
+        return TextBuffer.bytes(this.name + " (" + this.getClass().getSimpleName() + ")");
+    }
+    
     /**
      * Gets the name of the creature.
      * 
@@ -146,6 +185,16 @@ public abstract class Creature
         return this.power;
     }
     
+    /**
+     * Sets whether the creature has died.
+     * 
+     * @param dead true if the creature has died
+     */
+    public void setDead(boolean dead)
+    {
+        this.dead = dead;
+    }
+    
     /**
      * Increases the creature's damage points by the specified amount.
      * 
@@ -172,6 +221,16 @@ public abstract class Creature
         }
     }
     
+    /**
+     * Sets the roll from this creature's last fight.
+     * 
+     * @param lastRoll The roll between 1 and 100, or 0 if the fight was not rolled
+     */
+    protected void setLastRoll(int lastRoll)
+    {
+        this.lastRoll = lastRoll;
+    }
+    
     /**
      * Sets the name of the creature.
      * 
@@ -182,6 +241,7 @@ public abstract class Creature
         if (name != null && !name.isEmpty())
         {
             this.name = name;
+            this.displayPrefix = this.formatDisplayPrefix();
         }
     }
     
@@ -0,0 +1,138 @@
+/**
+ * CreatureSpawner decides which evil creature, if any, lives in each cave.
+ * The answer is a pure function of the world seed and the cave id: whether
+ * a creature is there, its type and its name are worked out from a hash of
+ * the two when the Fellowship first enters the cave. Nothing is stored for
+ * a cave until a fight changes its creature, and every player with the same
+ * seed meets the same creatures whichever route they take.
+ *
+ * To list the creatures for a seed from the command line, use:
+ *       java CreatureSpawner [seed] [caves]
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+public class CreatureSpawner
+{
+    private static final int SPAWN_CHANCE = GameRules.SPAWN_CHANCE; // Percentage of caves with a creature
+    private static final int NAME_NUMBERS = 100; // Creature names are numbered from 0 to 99
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L; // Step between hash states
+    private static final int DEFAULT_CAVES = 12;
+
+    // Array of evil creature types - demonstrates use of arrays alongside ArrayLists
+    private static final String[] EVIL_CREATURE_TYPES = {"Orc", "Troll", "Goblin"};
+
+    /**
+     * Private constructor, as CreatureSpawner only has static methods.
+     */
+    private CreatureSpawner()
+    {
+
+    }
+
+    /**
+     * Works out the type of creature that lives in a cave, without creating
+     * it. With the standard spawn chance this agrees with spawn.
+     *
+     * @param worldSeed The seed of the world
+     * @param caveId The ID of the cave
+     * @param spawnChance The percentage of caves with a creature
+     * @return The type, 0 = Orc, 1 = Troll, 2 = Goblin, or -1 if the cave is empty
+     */
+    public static int spawnType(long worldSeed, int caveId, int spawnChance)
+    {
+        long state = worldSeed ^ mix(caveId * GOLDEN_GAMMA);
+        if (roll(state, 1, 100) >= spawnChance)
+        {
+            return -1;
+        }
+        return roll(state, 2, EVIL_CREATURE_TYPES.length);
+    }
+
+    /**
+     * Creates the creature that lives in a cave. Calling this again with
+     * the same seed and cave id gives an identical new creature.
+     *
+     * @param worldSeed The seed of the world
+     * @param caveId The ID of the cave
+     * @return The creature, or null if the cave is empty
+     */
+    public static Creature spawn(long worldSeed, int caveId)
+    {
+        int type = spawnType(worldSeed, caveId, SPAWN_CHANCE);
+        if (type < 0)
+        {
+            return null;
+        }
+
+        long state = worldSeed ^ mix(caveId * GOLDEN_GAMMA);
+        String creatureType = EVIL_CREATURE_TYPES[type];
+        int number = roll(state, 3, NAME_NUMBERS);
+
+        // Create the appropriate creature based on the type
+        switch (creatureType)
+        {
+            case "Orc":
+                return new Orc("Orc " + number);
+            case "Troll":
+                return new Troll("Troll " + number);
+            case "Goblin":
+            default:
+                return new Goblin("Goblin " + number);
+        }
+    }
+
+    /**
+     * Rolls a number for a cave. Each roll of a cave uses a different
+     * step, so presence, type and name are independent of each other.
+     *
+     * @param state The hash state of the cave
+     * @param step The roll number, starting at 1
+     * @param bound The number of possible results
+     * @return A number from 0 to bound - 1
+     */
+    private static int roll(long state, int step, int bound)
+    {
+        return (int) ((mix(state + step * GOLDEN_GAMMA) >>> 1) % bound);
+    }
+
+    /**
+     * Mixes the bits of a value, so that nearby seeds and cave ids give
+     * unrelated results (the SplitMix64 finaliser).
+     *
+     * @param z The value to mix
+     * @return The mixed value
+     */
+    private static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Prints the creature in each cave for a seed.
+     *
+     * @param args Seed (0 if not given) and number of caves (12 if not given)
+     */
+    public static void main(String[] args)
+    {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 0;
+        int caves = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CAVES;
+
+        System.out.println("=== CREATURES FOR SEED " + seed + " ===");
+        int occupied = 0;
+        for (int caveId = 1; caveId <= caves; caveId++)
+        {
+            Creature creature = spawn(seed, caveId);
+            if (creature != null)
+            {
+                occupied++;
+            }
+            System.out.println("Cave " + caveId + ": " + (creature == null ? "Empty" :
+                    creature.getClass().getSimpleName() + " - " + creature.getName()));
+        }
+        System.out.println(String.format("%d of %d caves have a creature (%.1f%%)", occupied, caves,
+                100.0 * occupied / caves));
+    }
+}
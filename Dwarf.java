@@ -6,7 +6,7 @@
  */
 public class Dwarf extends GoodCreature
 {
-    private static final int DWARF_POWER = 7;
+    private static final int DWARF_POWER = GameRules.DWARF_POWER;
     
     /**
      * Default constructor for Dwarf.
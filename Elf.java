@@ -6,7 +6,7 @@
  */
 public class Elf extends GoodCreature
 {
-    private static final int ELF_POWER = 5;
+    private static final int ELF_POWER = GameRules.ELF_POWER;
     
     /**
      * Default constructor for Elf.
@@ -43,6 +43,7 @@ public abstract class EvilCreature extends Creature
         
         int roll = random.nextInt(100) + 1;
         boolean wins = roll <= winChance;
+        this.setLastRoll(roll);
         
         GameUtils.typeText("Power difference: " + powerDifference);
         GameUtils.typeText("Win chance: " + winChance + "%");
@@ -8,28 +8,44 @@
 import java.util.Scanner;
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.io.IOException;
 import java.io.FileNotFoundException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
 
 public class FellowshipOfCode
 {
     private ArrayList<Creature> fellowship;
-    private ArrayList<Cave> labyrinth;
-    private ArrayList<Cave> visitedCaves;
-    private ArrayList<Creature> deadCreatures;
+    private Labyrinth labyrinth;
+    private FutureTask<Labyrinth> labyrinthLoad; // the next labyrinth to play, loading in the background
+    private ArrayList<String> labyrinthFiles; // labyrinths of the campaign, played in turn
+    private int labyrinthNumber; // index of the labyrinth being played
+    private int labyrinthsCompleted; // labyrinths whose Mount Api the code was delivered to
+    private LabyrinthWatcher watcher; // reloads the labyrinth file when it is edited, or null
+    private Labyrinth pendingLabyrinth; // reloaded labyrinth waiting for the Fellowship to move on, or null
+    private QuestHistory history; // caves visited and creatures that died
+    private int liveEnemies; // evil creatures found in visited caves that are still alive
     private Creature codeHolder;
     private int codeExchanges;
     private int totalFights;
     private int fellowshipWins;
     private boolean gameActive;
-    private Scanner scanner;
+    private GameInput input;
     private Random random;
-    private int typingSpeed = 30; //milliseconds between characters, adjust as desired (higher number = slower typing)
+    private long worldSeed; // decides the creature in every cave, see CreatureSpawner
+    private RoutePlanner routePlanner;
+    private StatusView statusView;
+    private TextBuffer text; // reused for every line rendered from labels and numbers
+    private int[] optionDirections; // directions offered by chooseNextCave, reused between moves
+    private GameOptions options;
     private static final int MOUNT_API_ID = 100; // ID for Mount Api
-    private static final int MAX_DAMAGE_POINTS = 10; // Maximum damage points before death
-    
-    // Array of evil creature types - demonstrates use of arrays alongside ArrayLists
-    private static final String[] EVIL_CREATURE_TYPES = {"Orc", "Troll", "Goblin"};
+    private static final int MAX_DAMAGE_POINTS = FightOdds.MAX_DAMAGE_POINTS; // Maximum damage points before death
+    private static final int ODDS_FIGHTS = 3; // Fights covered by the death risk shown in the fighter menu
+    private static final int LEADERBOARD_SIZE = 5; // Number of results shown on each leaderboard
     
     // Array of direction names - demonstrates use of arrays
     private static final String[] DIRECTIONS = {"North", "East", "South", "West"};
@@ -39,16 +55,39 @@ public class FellowshipOfCode
     */
     public FellowshipOfCode()
     {
+        this(new GameOptions(), new GameInput(new Scanner(System.in)));
+    }
+
+    /**
+    * Non-default constructor for FellowshipOfCode
+    *
+    * @param options The command line options
+    * @param input Where the player's answers are read from
+    */
+    public FellowshipOfCode(GameOptions options, GameInput input)
+    {
+        this.options = options;
         this.fellowship = new ArrayList<>();
-        this.labyrinth = new ArrayList<>();
-        this.visitedCaves = new ArrayList<>();
-        this.deadCreatures = new ArrayList<>();
+        this.labyrinth = new Labyrinth(new ArrayList<>());
+        this.labyrinthLoad = null;
+        this.labyrinthFiles = options.getLabyrinthFiles();
+        this.labyrinthNumber = 0;
+        this.labyrinthsCompleted = 0;
+        this.watcher = null;
+        this.pendingLabyrinth = null;
+        int recentCaves = options.isBoundedMemory() ? QuestHistory.DEFAULT_RECENT_CAVES : 0;
+        this.statusView = new StatusView(recentCaves);
+        this.text = new TextBuffer();
+        this.optionDirections = new int[DIRECTIONS.length];
+        this.history = new QuestHistory(recentCaves);
+        this.liveEnemies = 0;
         this.codeExchanges = 0;
         this.totalFights = 0;
         this.fellowshipWins = 0;
         this.gameActive = true;
-        this.scanner = new Scanner(System.in);
-        this.random = new Random();
+        this.input = input;
+        this.random = options.getSeed() == null ? new Random() : new Random(options.getSeed());
+        this.worldSeed = options.getSeed() == null ? this.random.nextLong() : options.getSeed();
     }
 
     /**
@@ -58,27 +97,139 @@ public class FellowshipOfCode
     */
     private void typeText(String text)
     {
-        GameUtils.typeText(text, this.typingSpeed);
+        GameUtils.typeText(text);
+    }
+
+    /**
+    * Types the text in a buffer with the typing effect
+    *
+    * @param text The text to display with typing effect
+    */
+    private void typeText(TextBuffer text)
+    {
+        GameUtils.typeText(text);
     }
 
     /**
     * Main method to run the game.
     *
-    * @param args Command line arguments (not used)
+    * @param args Command line arguments (see GameOptions)
     */
     public static void main(String[] args)
     {
-        FellowshipOfCode game = new FellowshipOfCode();
-        game.displayWelcome();
-        game.createFellowship();
-        game.loadLabyrinth();
-        game.startQuest();
-        game.displaySummary();
-        game.writeSummaryToFile();
+        GameOptions options = GameOptions.parse(args);
+        GameInput input = openInput(options);
+        openOutput(options);
+        MetricsServer metricsServer = startMetricsServer(options);
+
+        try
+        {
+            FellowshipOfCode game = new FellowshipOfCode(options, input);
+            game.startLoadingLabyrinth(); // Loads while the Fellowship is created
+            game.displayWelcome();
+            game.createFellowship();
+            game.startQuest();
+            game.displaySummary();
+            game.writeSummaryToFile();
+            game.recordResult();
+        }
+        finally
+        {
+            // The server thread would otherwise keep the program running
+            if (metricsServer != null)
+            {
+                metricsServer.stop();
+            }
+        }
+    }
+
+    /**
+    * Opens the player's input: the console, or the script file in script mode.
+    * Console lines are read ahead so the player can skip the typing effect.
+    * Script mode turns off the typing effect so the quest runs at full speed.
+    *
+    * @param options The command line options
+    * @return The input to read answers from
+    */
+    private static GameInput openInput(GameOptions options)
+    {
+        if (options.getScriptFile() == null)
+        {
+            // Read ahead so answers entered while text is typed skip the effect and are kept
+            GameInput console = new GameInput(new Scanner(System.in));
+            console.startReadingAhead();
+            return console;
+        }
+
+        try
+        {
+            Scanner script = new Scanner(new File(options.getScriptFile()), StandardCharsets.UTF_8);
+            GameUtils.setTypingSpeed(0);
+            return new GameInput(script, true);
+        }
+        catch (IOException e)
+        {
+            System.out.println("Error: Could not read the script file: " + options.getScriptFile());
+            System.exit(1);
+            return null;
+        }
+    }
+
+    /**
+    * Sends the game output through a GameOutput, to the console or to the
+    * transcript file if one was given. Output is written once per prompt at
+    * the console; in script mode it is only written when the buffer fills
+    * and when the program ends.
+    *
+    * @param options The command line options
+    */
+    private static void openOutput(GameOptions options)
+    {
+        boolean writeAtPrompts = options.getScriptFile() == null;
+        if (options.getTranscriptFile() != null)
+        {
+            try
+            {
+                GameOutput.install(new FileOutputStream(options.getTranscriptFile()), writeAtPrompts);
+                return;
+            }
+            catch (FileNotFoundException e)
+            {
+                System.out.println("Warning: Could not write the transcript file: " + options.getTranscriptFile());
+            }
+        }
+        GameOutput.install(new FileOutputStream(FileDescriptor.out), writeAtPrompts);
+    }
+
+    /**
+    * Starts the metrics server if a metrics port was given.
+    *
+    * @param options The command line options
+    * @return The running server, or null if metrics are not served
+    */
+    private static MetricsServer startMetricsServer(GameOptions options)
+    {
+        if (options.getMetricsPort() < 0)
+        {
+            return null;
+        }
+
+        try
+        {
+            MetricsServer server = new MetricsServer(options.getMetricsPort());
+            server.start();
+            System.out.println("Metrics available at http://localhost:" + server.getPort() + "/metrics");
+            return server;
+        }
+        catch (IOException e)
+        {
+            System.out.println("Warning: Could not start the metrics server: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
-    * Adds a creature to the dead creatures list
+    * Adds a creature to the dead creatures in the quest history
     *
     * @param creature The creature that died :(
     */
@@ -86,21 +237,24 @@ public class FellowshipOfCode
     {
         if (creature != null)
         {
-            this.deadCreatures.add(creature);
+            if (creature instanceof EvilCreature && !creature.isDead())
+            {
+                this.liveEnemies--;
+            }
+            this.history.addDeadCreature(creature);
+            GameMetrics.creatureDied(creature);
         }
     }
 
     /**
-    * Adds a visited cave to the list of visited caves.
+    * Adds a visited cave to the quest history.
     *
     * @param cave The cave that was visited
     */
     public void addVisitedCave(Cave cave)
     {
-        if (cave != null && !this.visitedCaves.contains(cave))
-        {
-            this.visitedCaves.add(cave);
-        }
+        this.history.addVisitedCave(cave);
+        this.labyrinth.keep(cave); // so its creature is not lost if caves are made on demand
     }
 
     /**
@@ -120,6 +274,22 @@ public class FellowshipOfCode
         return false;
     }
 
+    /**
+    * Checks if the input is "status" and displays the full status if it is.
+    *
+    * @param input The input string to check
+    * @return True if the full status was displayed, false otherwise
+    */
+    private boolean checkForStatus(String input)
+    {
+        if (input.equalsIgnoreCase("status"))
+        {
+            this.statusView.renderFull(null, this.history, this.fellowship, this.codeHolder);
+            return true;
+        }
+        return false;
+    }
+
     /**
     * Creates the fellowship based on user input
     */
@@ -135,7 +305,7 @@ public class FellowshipOfCode
         
         while (!validName)
         {
-            name = this.scanner.nextLine();
+            name = this.input.nextLine();
             if (checkForExit(name)) return; //to exit the game.
             
             if (GameUtils.isValidCreatureName(name))
@@ -159,7 +329,7 @@ public class FellowshipOfCode
             typeText("1. Elf (Power: 5. has special weapon)");
             typeText("2. Dwarf (Power: 7, no special weapon)");
 
-            String choice = this.scanner.nextLine();
+            String choice = this.input.nextLine();
             if (checkForExit(choice)) return; //to exit the game.
 
             if (choice.equalsIgnoreCase("done"))
@@ -181,7 +351,7 @@ public class FellowshipOfCode
             
             while (!validName)
             {
-                name = this.scanner.nextLine();
+                name = this.input.nextLine();
                 if (checkForExit(name)) return; //to exit the game.
                 
                 if (GameUtils.isValidCreatureName(name))
@@ -231,52 +401,24 @@ public class FellowshipOfCode
     }
 
     /**
-    * Displays the game status during play
+    * Displays the game status during play: in full the first time, then only what has changed
     *
     * @param currentCave The current cave
     * @param nextCave The next cave to enter
     */
-    private void displayGameStatus(Cave currentCave, Cave nextCave)
+    void displayGameStatus(Cave currentCave, Cave nextCave)
     {
-        typeText("\n--- CURRENT STATUS ---");
+        GameEvents.StatusRenderEvent event = new GameEvents.StatusRenderEvent();
+        event.begin();
 
-        //display visited caves
-        typeText("\nVisited Caves:");
-        for (Cave cave : this.visitedCaves)
-        {
-            String creatureInfo = cave.getCreature() != null ?
-                    " (Contains " + cave.getCreature().getClass().getSimpleName() + " - "
-                    + cave.getCreature().getName() + ")" : " (Empty)";
-            typeText("Cave " + cave.getId() + creatureInfo);
-        }
+        this.statusView.render(currentCave, nextCave, this.history, this.fellowship, this.codeHolder);
 
-        //display code holder
-        typeText("\nSecret Code is held by: " + this.codeHolder.getName() + 
-                " (" + this.codeHolder.getClass().getSimpleName() + ")");
-        
-        //display damage points
-        typeText("\nDamage Points:");
-        for (Creature member : this.fellowship)
+        if (event.shouldCommit())
         {
-            if (!this.deadCreatures.contains(member))
-            {
-                typeText(member.getName() + " (" + 
-                        member.getClass().getSimpleName() + "): " + member.getDamagePoints());
-            }
-        }
-
-        for (Cave cave : this.visitedCaves)
-        {
-            if (cave.getCreature() != null && !this.deadCreatures.contains(cave.getCreature()))
-            {
-                typeText(cave.getCreature().getName() + " (" + 
-                        cave.getCreature().getClass().getSimpleName() + "): " + 
-                        cave.getCreature().getDamagePoints());
-            }
+            event.visitedCaves = this.history.getVisitedCount();
+            event.nextCaveId = nextCave.getId();
+            event.commit();
         }
-
-        //display next cave
-        typeText("\nNext cave to enter: Cave " + nextCave.getId());
     }
 
     /**
@@ -301,7 +443,7 @@ public class FellowshipOfCode
         boolean success = false;
         for (Creature member : this.fellowship)
         {
-            if (!this.deadCreatures.contains(member) && member == this.codeHolder)
+            if (!member.isDead() && member == this.codeHolder)
             {
                 success = true;
                 break;
@@ -322,21 +464,24 @@ public class FellowshipOfCode
         }
 
         //display stats
-        typeText("\nNumber of caves visited: " + this.visitedCaves.size());
+        if (this.labyrinthFiles.size() > 1)
+        {
+            typeText("\nLabyrinths completed: " + this.labyrinthsCompleted + " of " + this.labyrinthFiles.size());
+        }
+        typeText("\nNumber of caves visited: " + this.history.getVisitedCount());
         typeText("Number of times the secret code changed hands: " + this.codeExchanges);
 
         //display dead creatures
         typeText("\nCreatures that died during the quest:");
-        if (this.deadCreatures.isEmpty())
+        if (this.history.getDeathCount() == 0)
         {
             typeText("None");
         }
         else
         {
-            for (Creature creature : this.deadCreatures)
+            for (String line : this.history.describeDeaths())
             {
-                typeText("- " + creature.getName() + " (" + 
-                        creature.getClass().getSimpleName() + ")");
+                typeText(line);
             }
         }
         
@@ -382,6 +527,40 @@ public class FellowshipOfCode
         typeText("- If all Fellowship members die, the quest fails");
         typeText("- Good luck on your journey!");
         typeText("- Type 'exit' at any prompt to exit the program.");
+        typeText("- Type 'status' when choosing a fighter or direction to see the full status.");
+        typeText("- Press Enter to skip typing, or type 'speed' and a number of milliseconds (e.g. 'speed 0') to change it.");
+    }
+
+    /**
+    * Displays the Fellowship members that can be chosen to fight, with
+    * their odds against the creature.
+    *
+    * @param activeMembers The members that are still alive
+    * @param caveCreature The creature to fight
+    */
+    private void displayFighterOptions(ArrayList<Creature> activeMembers, Creature caveCreature)
+    {
+        for (int i = 0; i < activeMembers.size(); i++)
+        {
+            Creature member = activeMembers.get(i);
+            String specialWeaponInfo = "";
+
+            if (member instanceof GoodCreature)
+            {
+                GoodCreature goodMember = (GoodCreature)member;
+                if (goodMember.hasSpecialWeapon())
+                {
+                    specialWeaponInfo = goodMember.hasUsedSpecialWeapon() ?
+                        ", Special weapon: used" : ", Special weapon: available";
+                }
+            }
+
+            typeText((i + 1) + ". " + member.getName() + 
+                    " (" + member.getClass().getSimpleName() + 
+                    ", Power: " + member.getPower() + 
+                    ", Damage: " + member.getDamagePoints() + 
+                    specialWeaponInfo + ") - " + FightOdds.describe(member, caveCreature, ODDS_FIGHTS));
+        }
     }
 
     /**
@@ -395,7 +574,7 @@ public class FellowshipOfCode
 
         for (Creature member : this.fellowship)
         {
-            if (!this.deadCreatures.contains(member))
+            if (!member.isDead())
             {
                 activeMembers.add(member);
             }
@@ -404,6 +583,24 @@ public class FellowshipOfCode
         return activeMembers;
     }
 
+    /**
+    * Gets the active fellowship member with the highest power.
+    *
+    * @return The strongest active member, or null if all members are dead
+    */
+    public Creature getStrongestActiveMember()
+    {
+        Creature strongest = null;
+        for (Creature member : this.getActiveFellowshipMembers())
+        {
+            if (strongest == null || member.getPower() > strongest.getPower())
+            {
+                strongest = member;
+            }
+        }
+        return strongest;
+    }
+
     /**
     * Gets the fellowship members list
     *
@@ -422,6 +619,9 @@ public class FellowshipOfCode
     */
     private void handleFight(Creature fellowshipMember, Creature caveCreature)
     {
+        GameEvents.FightEvent event = new GameEvents.FightEvent();
+        event.begin();
+
         typeText("\n--- FIGHT BEGINS ---");
         typeText(fellowshipMember.getName() + " (" + 
                 fellowshipMember.getClass().getSimpleName() + ") vs " + 
@@ -433,8 +633,8 @@ public class FellowshipOfCode
         // Use the polymorphic fight method
         if (fellowshipMember instanceof GoodCreature)
         {
-            // For good creatures, use the version with scanner for special weapon option
-            fellowshipWins = ((GoodCreature) fellowshipMember).fight(caveCreature, this.random, this.scanner);
+            // For good creatures, use the version with player input for special weapon option
+            fellowshipWins = ((GoodCreature) fellowshipMember).fight(caveCreature, this.random, this.input);
         }
         else
         {
@@ -455,14 +655,14 @@ public class FellowshipOfCode
                     ((GoodCreature) fellowshipMember).hasUsedSpecialWeapon())
             {
                 usedSpecialWeapon = true;
-                this.deadCreatures.add(caveCreature);
+                this.addDeadCreature(caveCreature);
             }
 
             // Update damage points
             if (!usedSpecialWeapon)
             {
-                fellowshipMember.setDamagePoints(fellowshipMember.getDamagePoints() + 1);
-                caveCreature.setDamagePoints(caveCreature.getDamagePoints() + 4);
+                fellowshipMember.setDamagePoints(fellowshipMember.getDamagePoints() + FightOdds.WIN_DAMAGE);
+                caveCreature.setDamagePoints(caveCreature.getDamagePoints() + FightOdds.LOSS_DAMAGE);
             }
 
             // Update code holder (if necessary)
@@ -478,8 +678,8 @@ public class FellowshipOfCode
             typeText(caveCreature.getName() + " wins the fight!");
 
             // Update damage points
-            fellowshipMember.setDamagePoints(fellowshipMember.getDamagePoints() + 4);
-            caveCreature.setDamagePoints(caveCreature.getDamagePoints() + 1);
+            fellowshipMember.setDamagePoints(fellowshipMember.getDamagePoints() + FightOdds.LOSS_DAMAGE);
+            caveCreature.setDamagePoints(caveCreature.getDamagePoints() + FightOdds.WIN_DAMAGE);
 
             // Update code holder (if necessary)
             if (this.codeHolder == fellowshipMember)
@@ -494,7 +694,7 @@ public class FellowshipOfCode
         if (fellowshipMember.getDamagePoints() >= MAX_DAMAGE_POINTS)
         {
             typeText(fellowshipMember.getName() + " has died from their wounds!");
-            this.deadCreatures.add(fellowshipMember);
+            this.addDeadCreature(fellowshipMember);
 
             // Check if the Fellowship is all dead (this will end the game)
             if (this.getActiveFellowshipMembers().isEmpty())
@@ -507,34 +707,186 @@ public class FellowshipOfCode
         if (caveCreature.getDamagePoints() >= MAX_DAMAGE_POINTS)
         {
             typeText(caveCreature.getName() + " has died from their wounds!");
-            this.deadCreatures.add(caveCreature);
+            this.addDeadCreature(caveCreature);
         }
 
         typeText("--- FIGHT ENDS ---");
+        GameMetrics.fightFought(fellowshipWins);
+
+        if (event.shouldCommit())
+        {
+            event.memberType = fellowshipMember.getClass().getSimpleName();
+            event.creatureType = caveCreature.getClass().getSimpleName();
+            event.winChance = fellowshipMember.calculateWinChance(
+                    fellowshipMember.getPower() - caveCreature.getPower());
+            event.roll = fellowshipMember.getLastRoll();
+            event.specialWeapon = fellowshipWins && fellowshipMember.getLastRoll() == 0;
+            event.fellowshipWon = fellowshipWins;
+            event.commit();
+        }
+    }
+
+    /**
+    * Displays the directions that can be chosen from a cave.
+    *
+    * @param currentCave The current cave
+    * @param optionCount The number of directions with a passage, listed in optionDirections
+    */
+    private void displayDirectionOptions(Cave currentCave, int optionCount)
+    {
+        for (int i = 0; i < optionCount; i++)
+        {
+            int caveId = currentCave.getPassage(this.optionDirections[i]);
+            this.text.clear().append(i + 1).append(". ").append(DIRECTIONS[this.optionDirections[i]]).append(" to ");
+            if (caveId == MOUNT_API_ID)
+            {
+                this.text.append("Mount Api");
+            }
+            else
+            {
+                this.text.append("Cave ").append(caveId);
+            }
+            typeText(this.text);
+        }
     }
 
     /**
-    * Loads the labyrinth from the labyrinth.txt file.
+    * Finds the option for a direction given by name, e.g. "east" or "e".
+    *
+    * @param input The player's answer
+    * @param optionCount The number of directions with a passage, listed in optionDirections
+    * @return The index of the option, or -1 if the answer is not one of the directions offered
     */
-    private void loadLabyrinth()
+    private int findDirectionOption(String input, int optionCount)
     {
+        for (int i = 0; i < optionCount; i++)
+        {
+            String direction = DIRECTIONS[this.optionDirections[i]];
+            if (input.equalsIgnoreCase(direction) ||
+                    (input.length() == 1 && Character.toUpperCase(input.charAt(0)) == direction.charAt(0)))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+    * Displays the route to Mount Api with the lowest expected damage.
+    *
+    * @param currentCave The current cave
+    */
+    private void displayRouteHint(Cave currentCave)
+    {
+        this.text.clear().append("Safest known route: ");
+        if (this.routePlanner == null || !this.routePlanner.appendRoute(currentCave, this.text))
+        {
+            return;
+        }
+
+        this.text.append(" (expected damage: ")
+                .appendOneDecimal(this.routePlanner.getExpectedDamage(currentCave)).append(')');
+        typeText(this.text);
+    }
+
+    /**
+    * Starts loading the first labyrinth on a background thread, so that it
+    * loads while the player creates their Fellowship.
+    */
+    private void startLoadingLabyrinth()
+    {
+        this.startLoadingLabyrinth(this.labyrinthFiles.get(0));
+    }
+
+    /**
+    * Starts loading a labyrinth file on a background thread. The labyrinth
+    * is loaded, checked and indexed there, so it is ready to play at once.
+    *
+    * @param filename The labyrinth file to load
+    */
+    private void startLoadingLabyrinth(String filename)
+    {
+        String reorderMode = this.options.getReorderMode();
+        int pageCache = this.options.getPageCache();
+        boolean offHeap = this.options.isOffHeap();
+        this.labyrinthLoad = new FutureTask<>(() -> pageCache > 0 ?
+                Labyrinth.loadPaged(filename, pageCache) : offHeap ?
+                Labyrinth.loadOffHeap(filename) : Labyrinth.load(filename, reorderMode));
+        Thread loader = new Thread(this.labyrinthLoad, "labyrinth-loader");
+        loader.setDaemon(true); // Don't keep the program running if the player exits first
+        loader.start();
+    }
+
+    /**
+    * Waits for the labyrinth to finish loading, starting the load first if
+    * it has not been started, and reports any problems found. The next
+    * labyrinth of a campaign starts loading as soon as this one is ready.
+    * Package-private so RenderBenchmark can load a labyrinth the way the game does.
+    */
+    void loadLabyrinth()
+    {
+        if (this.labyrinthLoad == null)
+        {
+            this.startLoadingLabyrinth(this.getLabyrinthFile());
+        }
+
         try 
         {
-            this.labyrinth = GameFileHandler.loadLabyrinth();
+            Labyrinth loaded = this.awaitLabyrinth();
+            this.labyrinth.close(); // The last labyrinth of a campaign may still have its page file open
+            this.labyrinth = loaded;
+            if (this.labyrinthNumber + 1 < this.labyrinthFiles.size())
+            {
+                this.startLoadingLabyrinth(this.labyrinthFiles.get(this.labyrinthNumber + 1));
+            }
+            else
+            {
+                this.labyrinthLoad = null;
+            }
+
+            for (String warning : this.labyrinth.getLoadWarnings())
+            {
+                typeText("Warning: " + warning);
+            }
             
             if (this.labyrinth.isEmpty())
             {
-                typeText("\nError: No valid caves were loaded from labyrinth.txt.");
+                typeText("\nError: No valid caves were loaded from " + this.getLabyrinthFile() + ".");
                 typeText("The game cannot continue without a labyrinth. Exiting...");
                 System.exit(1);
             }
 
+            this.routePlanner = this.labyrinth.getRoutePlanner();
+
             typeText("\nLabyrinth loaded successfully with " + 
                     this.labyrinth.size() + " caves.");
+
+            // A paged or off-heap labyrinth has no Cave objects to check or plan routes over
+            if (this.labyrinth.isStored())
+            {
+                typeText("The labyrinth is too large to plan routes over, so route hints are not available.");
+                if (this.options.isWatchLabyrinth())
+                {
+                    typeText("The labyrinth is too large to reload, so edits to " + this.getLabyrinthFile() +
+                            " are not picked up.");
+                }
+                return;
+            }
+
+            // Report problems with the labyrinth now rather than mid-quest
+            for (String warning : this.labyrinth.getReport().getWarnings())
+            {
+                typeText("Warning: " + warning + ".");
+            }
+
+            if (this.options.isWatchLabyrinth())
+            {
+                this.startWatchingLabyrinth();
+            }
         }
         catch (FileNotFoundException e)
         {
-            typeText("Error: Could not find the labyrinth file: labyrinth.txt");
+            typeText("Error: Could not find the labyrinth file: " + this.getLabyrinthFile());
             typeText("Please make sure the file exists in the current directory.");
             typeText("The game cannot continue without a labyrinth. Exiting...");
             System.exit(1);
@@ -547,6 +899,154 @@ public class FellowshipOfCode
         }
     }
 
+    /**
+    * Gets the labyrinth being played.
+    *
+    * @return The labyrinth, empty until loadLabyrinth() has been called
+    */
+    Labyrinth getLabyrinth()
+    {
+        return this.labyrinth;
+    }
+
+    /**
+    * Starts watching the labyrinth file, so that edits are picked up between caves.
+    */
+    private void startWatchingLabyrinth()
+    {
+        this.watcher = new LabyrinthWatcher(this.getLabyrinthFile(), this.options.getReorderMode());
+        try
+        {
+            this.watcher.start();
+            typeText("Edits to " + this.getLabyrinthFile() +
+                    " will be picked up as the Fellowship moves between caves.");
+        }
+        catch (IOException e)
+        {
+            typeText("Warning: Could not watch " + this.getLabyrinthFile() + " for edits: " + e.getMessage());
+            this.watcher = null;
+        }
+    }
+
+    /**
+    * Switches to the labyrinth reloaded by the watcher, if there is one.
+    * Called between caves, so no cave is left half explored. Creatures and
+    * cleared caves carry over to the caves with the same id in the new
+    * labyrinth. If the new labyrinth has no cave with the id of the cave the
+    * Fellowship is entering, the switch waits for a later move.
+    *
+    * @param nextCave The cave the Fellowship is about to enter
+    * @return The cave to enter: the one with the same id in the new labyrinth, or nextCave if there is no switch
+    */
+    private Cave applyReloadedLabyrinth(Cave nextCave)
+    {
+        String message;
+        while ((message = this.watcher.takeMessage()) != null)
+        {
+            typeText("\nWarning: " + message);
+        }
+
+        Labyrinth reloaded = this.watcher.takeReloaded();
+        if (reloaded != null)
+        {
+            this.pendingLabyrinth = reloaded; // A newer edit replaces one still waiting
+        }
+        if (this.pendingLabyrinth == null)
+        {
+            return nextCave;
+        }
+
+        Cave newNextCave = this.pendingLabyrinth.findCave(nextCave.getId());
+        if (newNextCave == null)
+        {
+            if (reloaded != null)
+            {
+                typeText("\nThe edited labyrinth has no cave " + nextCave.getId() +
+                        ", so it will be used once the Fellowship has moved on.");
+            }
+            return nextCave;
+        }
+
+        Labyrinth newLabyrinth = this.pendingLabyrinth;
+        this.pendingLabyrinth = null;
+        RoutePlanner planner = newLabyrinth.getRoutePlanner();
+        planner.setStrongestMember(this.getStrongestActiveMember());
+
+        // Only caves the Fellowship has entered have a creature or are cleared
+        for (Cave oldCave : this.labyrinth.getCaves())
+        {
+            Creature creature = oldCave.getCreature();
+            if (creature == null && !oldCave.isCleared())
+            {
+                continue;
+            }
+
+            Cave cave = newLabyrinth.findCave(oldCave.getId());
+            if (cave == null)
+            {
+                // The cave was removed, so its creature can no longer be fought
+                if (creature instanceof EvilCreature && !creature.isDead())
+                {
+                    this.liveEnemies--;
+                }
+                continue;
+            }
+
+            if (oldCave.isCleared())
+            {
+                cave.clear();
+            }
+            cave.setCreature(creature);
+            cave.setVisited(oldCave.isVisited());
+            planner.updateCave(cave, creature != null && !creature.isDead());
+        }
+
+        this.labyrinth = newLabyrinth;
+        this.routePlanner = planner;
+        typeText("\nThe labyrinth has changed! " + this.getLabyrinthFile() + " was reloaded with " +
+                newLabyrinth.size() + " caves.");
+        return newNextCave;
+    }
+
+    /**
+    * Gets the labyrinth file being played.
+    *
+    * @return The file name
+    */
+    private String getLabyrinthFile()
+    {
+        return this.labyrinthFiles.get(this.labyrinthNumber);
+    }
+
+    /**
+    * Waits for the background load to finish.
+    *
+    * @return The loaded labyrinth
+    * @throws FileNotFoundException if the labyrinth file is not found
+    * @throws IOException if there is an error reading the file or the load was interrupted
+    */
+    private Labyrinth awaitLabyrinth() throws FileNotFoundException, IOException
+    {
+        try
+        {
+            return this.labyrinthLoad.get();
+        }
+        catch (ExecutionException e)
+        {
+            // Rethrow the loader's exception so it is reported as if it happened here
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause().toString(), e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading the labyrinth", e);
+        }
+    }
+
     /**
     * Sets the code holder creature.
     *
@@ -587,118 +1087,103 @@ public class FellowshipOfCode
     }
 
     /**
-    * Starts the quest through the labyrinth.
+    * Starts the quest through the labyrinth. In a campaign, the surviving
+    * Fellowship goes on from each Mount Api to the start of the next
+    * labyrinth, keeping their damage and the code.
     */
     private void startQuest()
     {
-        Cave currentCave = this.labyrinth.get(0); //start at the first cave
+        this.exploreLabyrinth();
+
+        while (this.labyrinthsCompleted > this.labyrinthNumber &&
+                this.labyrinthNumber + 1 < this.labyrinthFiles.size())
+        {
+            this.labyrinthNumber++;
+            typeText("\nThe Fellowship sets out from Mount Api for the next labyrinth: " +
+                    this.getLabyrinthFile() + " (" + (this.labyrinthNumber + 1) + " of " +
+                    this.labyrinthFiles.size() + ").");
+
+            // Creatures left behind cannot be met again; the new caves have not been visited
+            this.gameActive = true;
+            this.liveEnemies = 0;
+            this.pendingLabyrinth = null;
+            this.exploreLabyrinth();
+        }
+    }
+
+    /**
+    * Leads the Fellowship through the current labyrinth, until the code is
+    * delivered to its Mount Api or the quest ends.
+    */
+    private void exploreLabyrinth()
+    {
+        this.loadLabyrinth();
+
+        Cave currentCave = this.labyrinth.getStartCave(); //start at the first cave
         this.addVisitedCave(currentCave);
+        if (this.routePlanner != null)
+        {
+            this.routePlanner.setStrongestMember(this.getStrongestActiveMember());
+        }
+        if (this.labyrinthNumber == 0)
+        {
+            GameMetrics.questStarted();
+        }
 
         typeText("\nThe quest begins! The Fellowship enters the first cave.");
 
         while (this.gameActive)
         {
-            typeText("\n--- CAVE " + currentCave.getId() + " ---");
-            
-            // Display available passages from current cave
-            ArrayList<String> availableDirections = new ArrayList<>();
-            if (currentCave.getNorth() != 0) availableDirections.add("North");
-            if (currentCave.getEast() != 0) availableDirections.add("East"); 
-            if (currentCave.getSouth() != 0) availableDirections.add("South");
-            if (currentCave.getWest() != 0) availableDirections.add("West");
-            
-            typeText("You are in cave " + currentCave.getId() + ". Passages lead " + 
-                    String.join(" and ", availableDirections) + ".");
-            
-            // Check and display if this cave has a direct path to Mount Api
-            if (currentCave.hasExitToMountApi()) 
-            {
-                typeText("There is a passage leading directly to Mount Api from this cave!");
-            }
-            // If not, check if nearby caves lead to Mount Api
-            else 
+            GameEvents.CaveEntryEvent caveEvent = new GameEvents.CaveEntryEvent();
+            caveEvent.begin();
+
+            this.displayCave(currentCave);
+
+            //check is there is a creature in the cave: the same one for every player with this seed
+            if (currentCave.getCreature() == null && !currentCave.isCleared())
             {
-                boolean nearbyPathToMountApi = false;
-                ArrayList<String> directionsToMountApi = new ArrayList<>();
-                
-                // Check each nearby cave for a path to Mount Api
-                for (Cave cave : this.labyrinth) 
+                // Each labyrinth of a campaign has its own creatures
+                Creature caveCreature = CreatureSpawner.spawn(this.worldSeed + this.labyrinthNumber,
+                        currentCave.getId());
+                if (caveCreature != null)
                 {
-                    if (cave.hasExitToMountApi()) 
-                    {
-                        // Check if this cave is adjacent to the current cave
-                        if (currentCave.getNorth() == cave.getId()) 
-                        {
-                            directionsToMountApi.add("North to Cave " + cave.getId());
-                            nearbyPathToMountApi = true;
-                        } 
-                        else if (currentCave.getEast() == cave.getId()) 
-                        {
-                            directionsToMountApi.add("East to Cave " + cave.getId());
-                            nearbyPathToMountApi = true;
-                        } 
-                        else if (currentCave.getSouth() == cave.getId()) 
-                        {
-                            directionsToMountApi.add("South to Cave " + cave.getId());
-                            nearbyPathToMountApi = true;
-                        } 
-                        else if (currentCave.getWest() == cave.getId()) 
-                        {
-                            directionsToMountApi.add("West to Cave " + cave.getId());
-                            nearbyPathToMountApi = true;
-                        }
-                    }
+                    currentCave.setCreature(caveCreature);
+                    this.liveEnemies++;
+                    typeText("The Fellowship encounters " + caveCreature.getName() + 
+                            ", a " + caveCreature.getClass().getSimpleName() + "!");
                 }
-                
-                if (nearbyPathToMountApi) 
+                else
                 {
-                    typeText("From here, you can reach a cave with a direct path to Mount Api: " + 
-                             String.join(" or ", directionsToMountApi) + ".");
+                    currentCave.clear(); // Empty for good, so it is not looked up again
                 }
             }
 
-            //check is there is a creature in the cave
-            if (currentCave.getCreature() == null)
+            boolean creatureAlive = currentCave.getCreature() != null && 
+                    !currentCave.getCreature().isDead();
+            if (this.routePlanner != null)
             {
-                //75% chance of generating a creature
-                if (this.random.nextInt(100) < 75)
-                {
-                    // Generate a random evil creature using the EVIL_CREATURE_TYPES array
-                    int creatureTypeIndex = this.random.nextInt(EVIL_CREATURE_TYPES.length);
-                    String creatureType = EVIL_CREATURE_TYPES[creatureTypeIndex];
-                    Creature caveCreature;
-
-                    // Create the appropriate creature based on the type
-                    switch (creatureType)
-                    {
-                        case "Orc":
-                            caveCreature = new Orc("Orc " + this.random.nextInt(100));
-                            break;
-                        case "Troll":
-                            caveCreature = new Troll("Troll " + this.random.nextInt(100));
-                            break;
-                        case "Goblin":
-                        default:
-                            caveCreature = new Goblin("Goblin " + this.random.nextInt(100));
-                            break;
-                    }
+                this.routePlanner.updateCave(currentCave, creatureAlive);
+            }
 
-                    currentCave.setCreature(caveCreature);
-                    typeText("The Fellowship encounters " + caveCreature.getName() + 
-                            ", a " + caveCreature.getClass().getSimpleName() + "!");
-                }
+            if (caveEvent.shouldCommit())
+            {
+                caveEvent.caveId = currentCave.getId();
+                caveEvent.creatureType = currentCave.getCreature() == null ? "" :
+                        currentCave.getCreature().getClass().getSimpleName();
+                caveEvent.creatureAlive = creatureAlive;
+                caveEvent.commit();
             }
 
             //handle cave logic
             if (currentCave.getCreature() == null || 
-                    this.deadCreatures.contains(currentCave.getCreature()))
+                    currentCave.getCreature().isDead())
             {
                 typeText("The cave is empty or the creature is already dead.");
 
                 // Fellowship recovers
-                for (Creature member : this.getActiveFellowshipMembers())
+                for (Creature member : this.fellowship)
                 {
-                    if (member.getDamagePoints() > 0)
+                    if (!member.isDead() && member.getDamagePoints() > 0)
                     {
                         member.setDamagePoints(member.getDamagePoints() - 1);
                     }
@@ -716,26 +1201,10 @@ public class FellowshipOfCode
                 ArrayList<Creature> activeMembers = this.getActiveFellowshipMembers();
 
                 typeText("\nChoose a Fellowship member to fight:");
-                for (int i = 0; i < activeMembers.size(); i++)
+                boolean menuShown = !this.input.hasPendingAnswer(); // the answer is already known
+                if (menuShown)
                 {
-                    Creature member = activeMembers.get(i);
-                    String specialWeaponInfo = "";
-
-                    if (member instanceof GoodCreature)
-                    {
-                        GoodCreature goodMember = (GoodCreature)member;
-                        if (goodMember.hasSpecialWeapon())
-                        {
-                            specialWeaponInfo = goodMember.hasUsedSpecialWeapon() ?
-                                ", Special weapon: used" : ", Special weapon: available";
-                        }
-                    }
-
-                    typeText((i + 1) + ". " + member.getName() + 
-                            " (" + member.getClass().getSimpleName() + 
-                            ", Power: " + member.getPower() + 
-                            ", Damage: " + member.getDamagePoints() + 
-                            specialWeaponInfo + ")");
+                    this.displayFighterOptions(activeMembers, caveCreature);
                 }
 
                 int choice = -1;
@@ -744,8 +1213,9 @@ public class FellowshipOfCode
                     try
                     {
                         System.out.print("Enter your choice (1-" + activeMembers.size() + "): ");
-                        String input = this.scanner.nextLine();
+                        String input = this.input.nextLine();
                         if (checkForExit(input)) return; //to exit the game.
+                        if (checkForStatus(input)) continue; //full status was shown, ask again
 
                         choice = Integer.parseInt(input) - 1;
 
@@ -758,10 +1228,30 @@ public class FellowshipOfCode
                     {
                         System.out.println("Please enter a valid number.");
                     }
+
+                    // Show the options that were skipped, now that the answer given was wrong
+                    if (!menuShown && (choice < 0 || choice >= activeMembers.size()))
+                    {
+                        this.displayFighterOptions(activeMembers, caveCreature);
+                        menuShown = true;
+                    }
                 }
 
                 Creature selectedMember = activeMembers.get(choice);
                 this.handleFight(selectedMember, caveCreature);
+
+                // Let the route planner know if the creature died or the strongest member changed
+                if (this.routePlanner != null)
+                {
+                    this.routePlanner.updateCave(currentCave, !caveCreature.isDead());
+                    this.routePlanner.setStrongestMember(this.getStrongestActiveMember());
+                }
+
+                // In bounded-memory mode the dead creature is only counted, so let it go
+                if (caveCreature.isDead() && this.history.isBounded())
+                {
+                    currentCave.clear();
+                }
             }
 
             //check if the game is still active
@@ -771,19 +1261,7 @@ public class FellowshipOfCode
             }
 
             // Check if all evil creatures are dead for safe navigation
-            boolean allEvilCreaturesDead = true;
-            for (Cave cave : this.visitedCaves)
-            {
-                if (cave.getCreature() != null && 
-                        cave.getCreature() instanceof EvilCreature && 
-                        !this.deadCreatures.contains(cave.getCreature()))
-                {
-                    allEvilCreaturesDead = false;
-                    break;
-                }
-            }
-
-            if (allEvilCreaturesDead)
+            if (this.liveEnemies == 0)
             {
                 typeText("\nAll evil creatures have been defeated! The Fellowship can now navigate the labyrinth safely.");
             }
@@ -811,6 +1289,7 @@ public class FellowshipOfCode
                     typeText("The code is delivered to the Java wizard by " + 
                             this.codeHolder.getName() + ".");
                     this.gameActive = false;
+                    this.labyrinthsCompleted++;
                     this.addVisitedCave(nextCave); //add Mount Api to visited caves
                     break;
                 }
@@ -826,9 +1305,19 @@ public class FellowshipOfCode
 
             // Display status and move to the next cave
             this.displayGameStatus(currentCave, nextCave);
+            if (this.watcher != null)
+            {
+                nextCave = this.applyReloadedLabyrinth(nextCave);
+            }
             currentCave = nextCave;
             this.addVisitedCave(currentCave);
         }
+
+        if (this.watcher != null)
+        {
+            this.watcher.stop();
+            this.watcher = null;
+        }
     }
 
     /**
@@ -851,100 +1340,33 @@ public class FellowshipOfCode
     */
     private Cave chooseNextCave(Cave currentCave, boolean forceNewChoice)
     {
-        ArrayList<Integer> options = new ArrayList<>();
-        ArrayList<String> directions = new ArrayList<>();
-
-        // Get available cave IDs and corresponding directions using the DIRECTIONS array
-        int[] caveIDs = {currentCave.getNorth(), currentCave.getEast(), 
-                        currentCave.getSouth(), currentCave.getWest()};
-        
-        // Loop through directions using array indices
-        for (int i = 0; i < DIRECTIONS.length; i++)
-        {
-            if (caveIDs[i] != 0)
-            {
-                options.add(caveIDs[i]);
-                directions.add(DIRECTIONS[i]);
-            }
-        }
+        int optionCount = this.findDirectionOptions(currentCave);
 
         // If only one option, return that cave
-        if (options.size() == 1)
+        if (optionCount == 1)
         {
-            typeText("\nThere is only one way forward (" + directions.get(0) + ").");
+            typeText(this.text.clear().append("\nThere is only one way forward (")
+                    .append(DIRECTIONS[this.optionDirections[0]]).append(")."));
 
             // Find the cave with the matching ID
-            for (Cave cave : this.labyrinth)
+            Cave cave = this.labyrinth.findCave(currentCave.getPassage(this.optionDirections[0]));
+            if (cave != null)
             {
-                if (cave.getId() == options.get(0))
-                {
-                    return cave;
-                }
+                return cave;
             }
         }
 
         // Otherwise, let the player choose
-        typeText("\nYou are in cave " + currentCave.getId() + ". Passages lead " + 
-                String.join(" and ", directions) + ".");
-         
-        // Check and inform if any options lead directly to Mount Api
-        boolean directPathToMountApi = false;
-        for (int i = 0; i < options.size(); i++) 
-        {
-            if (options.get(i) == MOUNT_API_ID) 
-            {
-                typeText("The " + directions.get(i) + " passage leads directly to Mount Api!");
-                directPathToMountApi = true;
-                break;
-            }
-        }
-         
-        // If no direct path to Mount Api, check if any adjacent caves have a path to Mount Api
-        if (!directPathToMountApi && !forceNewChoice) 
-        {
-            ArrayList<String> potentialPaths = new ArrayList<>();
-             
-            for (int i = 0; i < options.size(); i++) 
-            {
-                if (options.get(i) != MOUNT_API_ID) 
-                {
-                    // Find the cave object for this option
-                    for (Cave cave : this.labyrinth) 
-                    {
-                        if (cave.getId() == options.get(i) && cave.hasExitToMountApi()) 
-                        {
-                            potentialPaths.add("The " + directions.get(i) + " passage leads to Cave " + 
-                                    options.get(i) + ", which has a direct path to Mount Api");
-                            break;
-                        }
-                    }
-                }
-            }
-             
-            if (!potentialPaths.isEmpty()) 
-            {
-                for (String path : potentialPaths) 
-                {
-                    typeText(path);
-                }
-            }
-        }
-         
-        typeText("\nChoose a direction to move:");
-        for (int i = 0; i < options.size(); i++)
-        {
-            String destination = options.get(i) == MOUNT_API_ID ? "Mount Api" : "Cave " + options.get(i);
-            typeText((i + 1) + ". " + directions.get(i) + " to " + destination);
-        }
+        boolean menuShown = this.displayDirectionChoices(currentCave, optionCount, forceNewChoice);
 
         int previousChoice = -1;
         if (forceNewChoice)
         {
             // Remember the previous choice (Mount Api) to avoid it
             previousChoice = 0;
-            for (int i = 0; i < options.size(); i++)
+            for (int i = 0; i < optionCount; i++)
             {
-                if (options.get(i) == MOUNT_API_ID)
+                if (currentCave.getPassage(this.optionDirections[i]) == MOUNT_API_ID)
                 {
                     previousChoice = i;
                     break;
@@ -953,51 +1375,241 @@ public class FellowshipOfCode
         }
 
         int choice = -1;
-        while (choice < 0 || choice >= options.size() || choice == previousChoice)
+        while (choice < 0 || choice >= optionCount || choice == previousChoice)
         {
             try
             {
-                System.out.print("Enter your choice (1-" + options.size() + "): ");
-                String input = this.scanner.nextLine();
+                this.text.clear().append("Enter your choice (1-").append(optionCount).append("): ");
+                this.text.writeTo(System.out, 0, this.text.length());
+                String input = this.input.nextLine();
                 if (checkForExit(input)) return currentCave; //return current cave as this won't be used
+                if (checkForStatus(input)) continue; //full status was shown, ask again
 
-                choice = Integer.parseInt(input) - 1;
+                int named = this.findDirectionOption(input, optionCount);
+                choice = named >= 0 ? named : Integer.parseInt(input) - 1;
 
-                if (choice < 0 || choice >= options.size())
+                if (choice < 0 || choice >= optionCount)
                 {
                     System.out.println("Invalid choice. Please try again.");
                     choice = -1; // Reset choice to say in the loop
-                    continue;
                 }
                 else if (choice == previousChoice)
                 {
                     typeText("You cannot go to Mount Api without the code. Choose another direction.");
                     choice = -1; // Reset choice to stay in the loop
-                    continue;
                 }
             }
             catch (NumberFormatException e)
             {
-                System.out.println("Please enter a valid number.");
+                System.out.println("Please enter a valid number or direction.");
                 choice = -1; // Reset choice to stay in the loop
             }
+
+            // Show the options that were skipped, now that the answer given was wrong
+            if (!menuShown && choice == -1)
+            {
+                this.displayDirectionOptions(currentCave, optionCount);
+                menuShown = true;
+            }
         }
 
-        int nextCaveId = options.get(choice);
+        int nextCaveId = currentCave.getPassage(this.optionDirections[choice]);
 
         //find the cave with the matching ID
-        for (Cave cave : this.labyrinth)
+        Cave nextCave = this.labyrinth.findCave(nextCaveId);
+        if (nextCave != null)
         {
-            if (cave.getId() == nextCaveId)
-            {
-                return cave;
-            }
+            return nextCave;
         }
 
         //should never reach here
         return currentCave;
     }
 
+    /**
+    * Displays the cave the Fellowship has entered: its passages and any path
+    * to Mount Api from it or from the caves next to it.
+    * Package-private so RenderBenchmark can measure the game's own rendering.
+    *
+    * @param currentCave The cave entered
+    */
+    void displayCave(Cave currentCave)
+    {
+        typeText(this.text.clear().append("\n--- CAVE ").append(currentCave.getId()).append(" ---"));
+        
+        // Display available passages from current cave
+        typeText(this.text.clear().append("You are in cave ").append(currentCave.getId())
+                .append(". Passages lead ").append(currentCave.getPassageDescriptionBytes()).append('.'));
+        
+        // Check and display if this cave has a direct path to Mount Api
+        if (currentCave.hasExitToMountApi()) 
+        {
+            typeText(this.text.clear().append("There is a passage leading directly to Mount Api from this cave!"));
+        }
+        // If not, check if nearby caves lead to Mount Api
+        else 
+        {
+            boolean nearbyPathToMountApi = false;
+            this.text.clear().append("From here, you can reach a cave with a direct path to Mount Api: ");
+            
+            // Check each nearby cave for a path to Mount Api
+            for (int i = 0; i < DIRECTIONS.length; i++) 
+            {
+                if (currentCave.getPassage(i) == 0)
+                {
+                    continue;
+                }
+                Cave cave = this.labyrinth.findCave(currentCave.getPassage(i));
+                if (cave != null && cave.hasExitToMountApi()) 
+                {
+                    if (nearbyPathToMountApi)
+                    {
+                        this.text.append(" or ");
+                    }
+                    this.text.append(DIRECTIONS[i]).append(" to ").append(cave.getLabelBytes());
+                    nearbyPathToMountApi = true;
+                }
+            }
+            
+            if (nearbyPathToMountApi) 
+            {
+                typeText(this.text.append('.'));
+            }
+        }
+    }
+
+    /**
+    * Finds the directions with a passage from a cave, as indices into the
+    * DIRECTIONS array, and lists them in optionDirections.
+    * Package-private so RenderBenchmark can measure the game's own rendering.
+    *
+    * @param currentCave The cave to leave
+    * @return The number of directions with a passage
+    */
+    int findDirectionOptions(Cave currentCave)
+    {
+        int optionCount = 0;
+        for (int i = 0; i < DIRECTIONS.length; i++)
+        {
+            if (currentCave.getPassage(i) != 0)
+            {
+                this.optionDirections[optionCount++] = i;
+            }
+        }
+        return optionCount;
+    }
+
+    /**
+    * Displays what the player needs to choose a direction: the passages, any
+    * path to Mount Api, the safest route and the direction menu, which is
+    * left out when the answer has already been given.
+    * Package-private so RenderBenchmark can measure the game's own rendering.
+    *
+    * @param currentCave The cave to leave
+    * @param optionCount The number of directions with a passage, listed in optionDirections
+    * @param forceNewChoice Whether the player has to choose again after reaching Mount Api without the code
+    * @return true if the direction menu was shown
+    */
+    boolean displayDirectionChoices(Cave currentCave, int optionCount, boolean forceNewChoice)
+    {
+        typeText(this.text.clear().append("\nYou are in cave ").append(currentCave.getId())
+                .append(". Passages lead ").append(currentCave.getPassageDescriptionBytes()).append('.'));
+         
+        // Check and inform if any options lead directly to Mount Api
+        boolean directPathToMountApi = false;
+        for (int i = 0; i < optionCount; i++) 
+        {
+            if (currentCave.getPassage(this.optionDirections[i]) == MOUNT_API_ID) 
+            {
+                typeText(this.text.clear().append("The ").append(DIRECTIONS[this.optionDirections[i]])
+                        .append(" passage leads directly to Mount Api!"));
+                directPathToMountApi = true;
+                break;
+            }
+        }
+         
+        // If no direct path to Mount Api, check if any adjacent caves have a path to Mount Api
+        if (!directPathToMountApi && !forceNewChoice) 
+        {
+            for (int i = 0; i < optionCount; i++) 
+            {
+                int caveId = currentCave.getPassage(this.optionDirections[i]);
+                if (caveId != MOUNT_API_ID) 
+                {
+                    // Find the cave object for this option
+                    Cave cave = this.labyrinth.findCave(caveId);
+                    if (cave != null && cave.hasExitToMountApi()) 
+                    {
+                        typeText(this.text.clear().append("The ").append(DIRECTIONS[this.optionDirections[i]])
+                                .append(" passage leads to Cave ").append(caveId)
+                                .append(", which has a direct path to Mount Api"));
+                    }
+                }
+            }
+        }
+         
+        this.displayRouteHint(currentCave);
+
+        typeText(this.text.clear().append("\nChoose a direction to move:"));
+        boolean menuShown = !this.input.hasPendingAnswer(); // the answer is already known
+        if (menuShown)
+        {
+            this.displayDirectionOptions(currentCave, optionCount);
+        }
+        return menuShown;
+    }
+
+    /**
+    * Records the quest in the results store and displays the leaderboards.
+    */
+    private void recordResult()
+    {
+        boolean success = false;
+        for (Creature member : this.fellowship)
+        {
+            if (!member.isDead() && member == this.codeHolder)
+            {
+                success = true;
+                break;
+            }
+        }
+        GameMetrics.questCompleted(success);
+
+        String playerName = this.fellowship.isEmpty() ? "Unknown" : this.fellowship.get(0).getName();
+        QuestResult result = new QuestResult(System.currentTimeMillis(), playerName, success,
+                this.history.getVisitedCount(), this.codeExchanges, this.displayFightSuccessRate(),
+                this.history.getDeathCount());
+
+        try
+        {
+            ResultsStore store = ResultsStore.open();
+            store.append(result);
+
+            typeText("\n=== LEADERBOARD ===");
+            typeText("Highest fight success rate:");
+            ArrayList<QuestResult> topResults = store.getTopBySuccessRate(LEADERBOARD_SIZE);
+            for (int i = 0; i < topResults.size(); i++)
+            {
+                typeText((i + 1) + ". " + topResults.get(i));
+            }
+
+            typeText("\nFewest caves to Mount Api:");
+            ArrayList<QuestResult> fewestCaves = store.getFewestCaves(LEADERBOARD_SIZE);
+            if (fewestCaves.isEmpty())
+            {
+                typeText("None - no Fellowship has delivered the code yet");
+            }
+            for (int i = 0; i < fewestCaves.size(); i++)
+            {
+                typeText((i + 1) + ". " + fewestCaves.get(i));
+            }
+        }
+        catch (IOException e)
+        {
+            typeText("Error recording quest result: " + e.getMessage());
+        }
+    }
+
     /**
     * Writes the game summary to the fellowship.txt file.
     */
@@ -1005,9 +1617,8 @@ public class FellowshipOfCode
     {
         boolean success = GameFileHandler.writeSummaryToFile(
             this.codeHolder,
-            this.visitedCaves,
+            this.history,
             this.codeExchanges,
-            this.deadCreatures,
             this.fellowship,
             this.totalFights,
             this.fellowshipWins
@@ -0,0 +1,277 @@
+/**
+ * FellowshipRace runs several computer-played Fellowships through the same
+ * labyrinth at once, each on its own thread, racing to deliver their secret
+ * code to Mount Api. The caves and their creatures are shared: a party can
+ * find a creature another party has already wounded, or a cave it has
+ * already cleared.
+ *
+ * There is no lock over the whole labyrinth. Each cave is guarded by one of
+ * a fixed set of lock stripes, picked from its id, and a party holds the
+ * lock of the cave it is in while it spawns, fights or passes the creature
+ * there. Parties in different caves almost never wait for each other, and
+ * a creature is never fought by two parties at once or killed twice. The
+ * dead creatures of the race are kept in a concurrent set.
+ *
+ * To race Fellowships through a labyrinth from the command line, use:
+ *       java FellowshipRace [labyrinth file] [parties] [seed]
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class FellowshipRace
+{
+    public static final int DEFAULT_LOCK_STRIPES = 64; // Enough that parties rarely share a lock
+    private static final int DEFAULT_PARTIES = 4;
+    private static final long DEFAULT_SEED = 42;
+
+    private Labyrinth labyrinth;
+    private long worldSeed; // decides the creature in every cave, see CreatureSpawner
+    private ReentrantLock[] caveLocks; // lock stripes, chosen by cave id
+    private int stripeMask;
+    private Set<Creature> deadCreatures; // every creature that died in the race, members included
+    private Set<Creature> fighting; // creatures in a fight right now, to catch two parties fighting one
+    private AtomicInteger finishers; // parties that have delivered their code, for finishing places
+    private AtomicLong doubleKills; // creatures that died a second time, always 0 unless locking is broken
+    private AtomicLong overlappingFights; // fights with a creature already in a fight, always 0 likewise
+
+    /**
+     * Non-default constructor for FellowshipRace.
+     *
+     * @param labyrinth The labyrinth to race through; its caves are changed by the race
+     * @param worldSeed The seed that decides the creature in every cave
+     * @param lockStripes The number of cave locks, rounded up to a power of two (1 is a single global lock)
+     */
+    public FellowshipRace(Labyrinth labyrinth, long worldSeed, int lockStripes)
+    {
+        this.labyrinth = labyrinth;
+        this.worldSeed = worldSeed;
+        int stripes = Integer.highestOneBit(Math.max(lockStripes, 1) * 2 - 1);
+        this.caveLocks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++)
+        {
+            this.caveLocks[i] = new ReentrantLock();
+        }
+        this.stripeMask = stripes - 1;
+        this.deadCreatures = ConcurrentHashMap.newKeySet();
+        this.fighting = ConcurrentHashMap.newKeySet();
+        this.finishers = new AtomicInteger();
+        this.doubleKills = new AtomicLong();
+        this.overlappingFights = new AtomicLong();
+    }
+
+    /**
+     * Runs the parties, one thread each, and waits for all of them to finish.
+     *
+     * @param parties The parties to race
+     * @throws InterruptedException if interrupted while waiting for the parties
+     */
+    public void run(ArrayList<RaceParty> parties) throws InterruptedException
+    {
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (RaceParty party : parties)
+        {
+            threads.add(new Thread(() -> party.run(this), "party-" + party.getName()));
+        }
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+    }
+
+    /**
+     * Gets the labyrinth being raced through.
+     *
+     * @return The labyrinth
+     */
+    public Labyrinth getLabyrinth()
+    {
+        return this.labyrinth;
+    }
+
+    /**
+     * Gets the lock that guards a cave and its creature.
+     *
+     * @param cave The cave
+     * @return The lock stripe of the cave
+     */
+    public ReentrantLock getLock(Cave cave)
+    {
+        return this.caveLocks[CaveIdIndex.hash(cave.getId()) & this.stripeMask];
+    }
+
+    /**
+     * Spawns the creature of a cave the first time any party enters it.
+     * The caller must hold the lock of the cave.
+     *
+     * @param cave The cave entered
+     */
+    public void spawnCreature(Cave cave)
+    {
+        if (cave.getCreature() == null && !cave.isCleared())
+        {
+            Creature creature = CreatureSpawner.spawn(this.worldSeed, cave.getId());
+            if (creature != null)
+            {
+                cave.setCreature(creature);
+            }
+            else
+            {
+                cave.clear(); // Empty for good, so it is not looked up again
+            }
+        }
+    }
+
+    /**
+     * Records that a fight with a creature has started. The caller must
+     * hold the lock of the creature's cave, so no other fight can be running.
+     *
+     * @param creature The cave creature
+     */
+    public void startFight(Creature creature)
+    {
+        if (!this.fighting.add(creature))
+        {
+            this.overlappingFights.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records that a fight with a creature has ended.
+     *
+     * @param creature The cave creature
+     */
+    public void endFight(Creature creature)
+    {
+        this.fighting.remove(creature);
+    }
+
+    /**
+     * Records the death of a creature or Fellowship member.
+     *
+     * @param creature The creature that died
+     */
+    public void addDeadCreature(Creature creature)
+    {
+        if (!this.deadCreatures.add(creature))
+        {
+            this.doubleKills.incrementAndGet();
+        }
+        creature.setDead(true);
+    }
+
+    /**
+     * Gets the next finishing place, for a party that has delivered its code.
+     *
+     * @return 1 for the first party to finish, 2 for the second and so on
+     */
+    public int finish()
+    {
+        return this.finishers.incrementAndGet();
+    }
+
+    /**
+     * Gets every creature that died in the race.
+     *
+     * @return The dead creatures, Fellowship members included
+     */
+    public Set<Creature> getDeadCreatures()
+    {
+        return this.deadCreatures;
+    }
+
+    /**
+     * Gets the number of creatures that died more than once.
+     *
+     * @return The number of repeated deaths, 0 if the cave locks work
+     */
+    public long getDoubleKills()
+    {
+        return this.doubleKills.get();
+    }
+
+    /**
+     * Gets the number of fights started with a creature that was already in a fight.
+     *
+     * @return The number of overlapping fights, 0 if the cave locks work
+     */
+    public long getOverlappingFights()
+    {
+        return this.overlappingFights.get();
+    }
+
+    /**
+     * Races Fellowships through a labyrinth and prints the results.
+     *
+     * @param args Labyrinth file (labyrinth.txt if not given), number of parties (4 if not given)
+     *             and seed (42 if not given)
+     */
+    public static void main(String[] args)
+    {
+        String filename = args.length > 0 ? args[0] : "labyrinth.txt";
+        int partyCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PARTIES;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+
+        Labyrinth labyrinth;
+        try
+        {
+            labyrinth = Labyrinth.load(filename, null);
+        }
+        catch (IOException e)
+        {
+            System.out.println("Error loading labyrinth: " + e.getMessage());
+            return;
+        }
+        if (labyrinth.isEmpty())
+        {
+            System.out.println("Error: No valid caves were loaded from " + filename + ".");
+            return;
+        }
+
+        FellowshipRace race = new FellowshipRace(labyrinth, seed, DEFAULT_LOCK_STRIPES);
+        ArrayList<RaceParty> parties = new ArrayList<>();
+        for (int i = 1; i <= partyCount; i++)
+        {
+            parties.add(new RaceParty("Party " + i, seed + i, RaceParty.DEFAULT_MAX_MOVES));
+        }
+
+        long start = System.nanoTime();
+        try
+        {
+            race.run(parties);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long moves = 0;
+        System.out.println("=== FELLOWSHIP RACE (" + partyCount + " parties, " + labyrinth.size() + " caves) ===");
+        System.out.println(String.format("%-10s %-10s %8s %8s %8s %8s %10s", "Party", "Result", "Moves",
+                "Fights", "Kills", "Deaths", "Exchanges"));
+        for (RaceParty party : parties)
+        {
+            moves += party.getMoves();
+            String result = party.getPlace() > 0 ? "Place " + party.getPlace() :
+                    party.isDefeated() ? "Defeated" : "Lost";
+            System.out.println(String.format("%-10s %-10s %8d %8d %8d %8d %10d", party.getName(), result,
+                    party.getMoves(), party.getFights(), party.getKills(), party.getDeaths(),
+                    party.getCodeExchanges()));
+        }
+        System.out.println(String.format("%d moves in %.1f ms (%.0f moves/s)", moves, elapsed / 1e6,
+                moves * 1e9 / elapsed));
+    }
+}
@@ -0,0 +1,235 @@
+/**
+* FellowshipRaceTest is a stress test for the FellowshipRace class: many
+* parties race through the same labyrinth at once, and the test checks that
+* no creature was killed twice or fought by two parties at once, and that
+* the kills and deaths the parties counted match the creatures that died.
+*
+* NOTE: This test class uses assertions. When running from the command line,
+* use the -ea flag to enable assertions:
+*       java -ea FellowshipRaceTest
+*
+* @author Nicholas Battle
+* @version 1.0
+*/
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+public class FellowshipRaceTest
+{
+    private static final int ROUNDS = 20; // Races run for each check, with different seeds
+    private static final int MAX_MOVES = 2_000; // Moves per party, so every race is short
+
+    /**
+    * Default constructor for FellowshipRaceTest.
+    */
+    public FellowshipRaceTest()
+    {
+
+    }
+
+    /**
+    * Main method to run tests for the FellowshipRace class.
+    *
+    * @param args Command line arguments
+    */
+    public static void main(String[] args)
+    {
+        // Check if assertions are enabled
+        boolean assertionsEnabled = false;
+        try
+        {
+            assert false;
+        }
+        catch (AssertionError e)
+        {
+            assertionsEnabled = true;
+        }
+
+        if (!assertionsEnabled)
+        {
+            System.out.println("WARNING: Assertions are disabled. Tests will run but not verify results");
+            System.out.println("Please enable assertions with the -ea flag (java -ea FellowshipRaceTest)");
+            System.out.println();
+        }
+
+        System.out.println("=== FellowshipRace Class Test Suite ===");
+
+        try
+        {
+            // Test many parties crowding a small labyrinth
+            testSmallLabyrinth();
+
+            // Test a single global lock gives the same guarantees
+            testSingleLock();
+
+            // Test parties spread over a large labyrinth
+            testLargeLabyrinth();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            System.out.println("Interrupted while racing.");
+            return;
+        }
+        catch (IOException e)
+        {
+            System.out.println("Error preparing test labyrinth: " + e.getMessage());
+            return;
+        }
+
+        System.out.println("\nAll tests completed.");
+    }
+
+    /**
+    * Builds the labyrinth of labyrinth.txt, so the test does not depend on that file.
+    *
+    * @return The labyrinth
+    */
+    private static Labyrinth buildSmallLabyrinth()
+    {
+        int[][] rows = {
+            {1, 0, 0, 0, 2}, {2, 0, 3, 0, 0}, {3, 2, 0, 4, 0}, {4, 5, 0, 8, 0},
+            {5, 3, 2, 1, 6}, {6, 7, 0, 4, 0}, {7, 0, 6, 2, 8}, {8, 7, 0, 3, 10},
+            {9, 0, 5, 10, 100}, {10, 11, 1, 9, 3}, {11, 4, 12, 100, 7}, {12, 6, 8, 0, 9},
+            {100, 0, 0, 0, 0}
+        };
+        ArrayList<Cave> caves = new ArrayList<>();
+        for (int[] row : rows)
+        {
+            caves.add(new Cave(row[0], row[1], row[2], row[3], row[4]));
+        }
+        return new Labyrinth(caves);
+    }
+
+    /**
+    * Runs a race and checks that every creature died at most once, no
+    * creature was in two fights at once, and the parties' counts add up.
+    *
+    * @param labyrinth The labyrinth to race through
+    * @param seed The seed of the race
+    * @param partyCount The number of parties
+    * @param lockStripes The number of cave locks
+    * @throws InterruptedException if interrupted while racing
+    */
+    private static void raceAndCheck(Labyrinth labyrinth, long seed, int partyCount, int lockStripes)
+            throws InterruptedException
+    {
+        FellowshipRace race = new FellowshipRace(labyrinth, seed, lockStripes);
+        ArrayList<RaceParty> parties = new ArrayList<>();
+        for (int i = 1; i <= partyCount; i++)
+        {
+            parties.add(new RaceParty("Party " + i, seed * 31 + i, MAX_MOVES));
+        }
+        race.run(parties);
+
+        assert race.getDoubleKills() == 0 : "No creature should die twice";
+        assert race.getOverlappingFights() == 0 : "No creature should be fought by two parties at once";
+
+        int kills = 0;
+        int deaths = 0;
+        boolean[] places = new boolean[partyCount + 1];
+        int finished = 0;
+        for (RaceParty party : parties)
+        {
+            kills += party.getKills();
+            deaths += party.getDeaths();
+            if (party.getPlace() > 0)
+            {
+                assert !places[party.getPlace()] : "Finishing place " + party.getPlace() + " given twice";
+                places[party.getPlace()] = true;
+                finished++;
+            }
+        }
+        for (int place = 1; place <= finished; place++)
+        {
+            assert places[place] : "Finishing places should run from 1 without gaps";
+        }
+
+        int deadEvil = 0;
+        int deadGood = 0;
+        for (Creature creature : race.getDeadCreatures())
+        {
+            assert creature.isDead() : creature.getName() + " is in the dead set but not dead";
+            if (creature instanceof EvilCreature)
+            {
+                deadEvil++;
+            }
+            else
+            {
+                deadGood++;
+            }
+        }
+        assert kills == deadEvil : "Kills counted by the parties (" + kills + ") should match dead creatures (" +
+                deadEvil + ")";
+        assert deaths == deadGood : "Deaths counted by the parties (" + deaths +
+                ") should match dead members (" + deadGood + ")";
+
+        for (Cave cave : labyrinth.getCaves())
+        {
+            Creature creature = cave.getCreature();
+            assert creature == null || creature.isDead() ||
+                    creature.getDamagePoints() < FightOdds.MAX_DAMAGE_POINTS :
+                    creature.getName() + " has deadly damage but is not dead";
+        }
+    }
+
+    /**
+    * Tests sixteen parties in the twelve caves of the game labyrinth, so
+    * parties keep meeting in the same caves.
+    *
+    * @throws InterruptedException if interrupted while racing
+    */
+    private static void testSmallLabyrinth() throws InterruptedException
+    {
+        System.out.println("\n--- Testing Small Labyrinth ---");
+
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            raceAndCheck(buildSmallLabyrinth(), round, 16, FellowshipRace.DEFAULT_LOCK_STRIPES);
+        }
+
+        System.out.println("Small labyrinth tests passed.");
+    }
+
+    /**
+    * Tests that a single lock for every cave keeps the same guarantees.
+    *
+    * @throws InterruptedException if interrupted while racing
+    */
+    private static void testSingleLock() throws InterruptedException
+    {
+        System.out.println("\n--- Testing Single Lock ---");
+
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            raceAndCheck(buildSmallLabyrinth(), round, 8, 1);
+        }
+
+        System.out.println("Single lock tests passed.");
+    }
+
+    /**
+    * Tests eight parties in a generated labyrinth of 10,000 caves.
+    *
+    * @throws InterruptedException if interrupted while racing
+    * @throws IOException if the labyrinth cannot be generated
+    */
+    private static void testLargeLabyrinth() throws InterruptedException, IOException
+    {
+        System.out.println("\n--- Testing Large Labyrinth ---");
+
+        File file = File.createTempFile("labyrinth", ".txt");
+        file.deleteOnExit();
+        new LabyrinthGenerator(10_000, "grid", 7).generate(file.getPath());
+        for (int round = 0; round < ROUNDS / 4; round++)
+        {
+            Labyrinth labyrinth = Labyrinth.load(file.getPath(), null);
+            assert !labyrinth.isEmpty() : "Generated labyrinth should load";
+            raceAndCheck(labyrinth, round, 8, FellowshipRace.DEFAULT_LOCK_STRIPES);
+        }
+        file.delete();
+
+        System.out.println("Large labyrinth tests passed.");
+    }
+}
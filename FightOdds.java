@@ -0,0 +1,283 @@
+/**
+ * FightOdds holds the odds of every fight between a Fellowship member type
+ * (Hobbit, Elf, Dwarf) and an evil creature type (Orc, Troll, Goblin): the
+ * chance of winning, the expected damage taken, and the chance of dying
+ * within a number of fights from each damage state. The tables are built
+ * once, when the class is first used, so looking up odds during the game
+ * takes constant time.
+ *
+ * The odds are for normal fights; a special weapon always wins.
+ *
+ * To print the tables from the command line, use:
+ *       java FightOdds
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+public class FightOdds
+{
+    public static final int WIN_DAMAGE = GameRules.WIN_DAMAGE; // Damage taken by the winner of a fight
+    public static final int LOSS_DAMAGE = GameRules.LOSS_DAMAGE; // Damage taken by the loser of a fight
+    public static final int MAX_DAMAGE_POINTS = GameRules.MAX_DAMAGE_POINTS; // Damage points at which a creature dies
+    public static final int MAX_FIGHTS = 5; // Longest run of fights with a death chance in the table
+
+    // Sample creatures of each type, in table order
+    private static final Creature[] GOOD_CREATURES = {new Hobbit(), new Elf(), new Dwarf()};
+    private static final Creature[] EVIL_CREATURES = {new Orc(), new Troll(), new Goblin()};
+
+    private static final double[] winChance = new double[GOOD_CREATURES.length * EVIL_CREATURES.length];
+    private static final double[] expectedDamage = new double[winChance.length];
+    private static final double[] deathChance = new double[winChance.length * MAX_DAMAGE_POINTS * (MAX_FIGHTS + 1)];
+
+    static
+    {
+        for (int good = 0; good < GOOD_CREATURES.length; good++)
+        {
+            for (int evil = 0; evil < EVIL_CREATURES.length; evil++)
+            {
+                int matchup = good * EVIL_CREATURES.length + evil;
+                double win = chanceFromPower(GOOD_CREATURES[good].getPower(), EVIL_CREATURES[evil].getPower());
+                winChance[matchup] = win;
+                expectedDamage[matchup] = damageFromWinChance(win);
+                fillDeathChances(matchup, win);
+            }
+        }
+    }
+
+    /**
+     * Private constructor, as FightOdds only has static tables.
+     */
+    private FightOdds()
+    {
+
+    }
+
+    /**
+     * Gets the chance that a Fellowship member wins a normal fight.
+     *
+     * @param member The Fellowship member
+     * @param opponent The evil creature
+     * @return The win chance, between 0 and 1
+     */
+    public static double getWinChance(Creature member, Creature opponent)
+    {
+        int matchup = matchup(member, opponent);
+        return matchup >= 0 ? winChance[matchup] : chanceFromPower(member.getPower(), opponent.getPower());
+    }
+
+    /**
+     * Gets the damage a Fellowship member is expected to take in a normal fight.
+     *
+     * @param member The Fellowship member
+     * @param opponent The evil creature
+     * @return The expected damage points
+     */
+    public static double getExpectedDamage(Creature member, Creature opponent)
+    {
+        int matchup = matchup(member, opponent);
+        return matchup >= 0 ? expectedDamage[matchup] :
+                damageFromWinChance(chanceFromPower(member.getPower(), opponent.getPower()));
+    }
+
+    /**
+     * Gets the chance that a Fellowship member dies within a number of
+     * normal fights against creatures of the opponent's type, starting from
+     * the member's current damage.
+     *
+     * @param member The Fellowship member
+     * @param opponent The evil creature
+     * @param fights The number of fights, from 0 to MAX_FIGHTS
+     * @return The chance of dying, between 0 and 1
+     */
+    public static double getDeathChance(Creature member, Creature opponent, int fights)
+    {
+        int damage = member.getDamagePoints();
+        if (damage >= MAX_DAMAGE_POINTS)
+        {
+            return 1.0;
+        }
+        fights = Math.max(0, Math.min(fights, MAX_FIGHTS));
+
+        int matchup = matchup(member, opponent);
+        if (matchup < 0)
+        {
+            return deathChanceFrom(chanceFromPower(member.getPower(), opponent.getPower()), damage, fights);
+        }
+        return deathChance[(matchup * MAX_DAMAGE_POINTS + Math.max(damage, 0)) * (MAX_FIGHTS + 1) + fights];
+    }
+
+    /**
+     * Describes the odds of a fight for the fighter menu.
+     *
+     * @param member The Fellowship member
+     * @param opponent The evil creature
+     * @param fights The number of fights for the death chance
+     * @return e.g. "Win: 60%, Expected damage: 2.2, Death risk in 3 fights: 0%"
+     */
+    public static String describe(Creature member, Creature opponent, int fights)
+    {
+        return "Win: " + Math.round(getWinChance(member, opponent) * 100) + "%" +
+                ", Expected damage: " + String.format("%.1f", getExpectedDamage(member, opponent)) +
+                ", Death risk in " + fights + " fights: " +
+                Math.round(getDeathChance(member, opponent, fights) * 100) + "%";
+    }
+
+    /**
+     * Finds the table entry for a pair of creatures.
+     *
+     * @param member The Fellowship member
+     * @param opponent The evil creature
+     * @return The matchup index, or -1 if either type is not in the tables
+     */
+    private static int matchup(Creature member, Creature opponent)
+    {
+        int good = typeIndex(member, GOOD_CREATURES);
+        int evil = typeIndex(opponent, EVIL_CREATURES);
+        return good < 0 || evil < 0 ? -1 : good * EVIL_CREATURES.length + evil;
+    }
+
+    /**
+     * Finds the table position of a creature's type.
+     *
+     * @param creature The creature
+     * @param samples The sample creatures of each type
+     * @return The position, or -1 if the type is not one of the samples' types
+     */
+    private static int typeIndex(Creature creature, Creature[] samples)
+    {
+        for (int i = 0; i < samples.length; i++)
+        {
+            if (creature.getClass() == samples[i].getClass())
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Calculates the win chance from the powers of the two creatures.
+     *
+     * @param memberPower The power of the Fellowship member
+     * @param opponentPower The power of the evil creature
+     * @return The win chance, between 0 and 1
+     */
+    private static double chanceFromPower(int memberPower, int opponentPower)
+    {
+        return Creature.winChanceForDifference(memberPower - opponentPower) / 100.0;
+    }
+
+    /**
+     * Calculates the expected damage taken in a fight.
+     *
+     * @param win The win chance
+     * @return The expected damage points
+     */
+    private static double damageFromWinChance(double win)
+    {
+        return win * WIN_DAMAGE + (1 - win) * LOSS_DAMAGE;
+    }
+
+    /**
+     * Fills the death chances of a matchup for every damage state and number
+     * of fights, working up from zero fights.
+     *
+     * @param matchup The matchup index
+     * @param win The win chance
+     */
+    private static void fillDeathChances(int matchup, double win)
+    {
+        for (int fights = 1; fights <= MAX_FIGHTS; fights++)
+        {
+            for (int damage = 0; damage < MAX_DAMAGE_POINTS; damage++)
+            {
+                deathChance[(matchup * MAX_DAMAGE_POINTS + damage) * (MAX_FIGHTS + 1) + fights] =
+                        win * storedDeathChance(matchup, damage + WIN_DAMAGE, fights - 1) +
+                        (1 - win) * storedDeathChance(matchup, damage + LOSS_DAMAGE, fights - 1);
+            }
+        }
+    }
+
+    /**
+     * Gets a death chance already in the table, counting any damage past the
+     * maximum as dead.
+     *
+     * @param matchup The matchup index
+     * @param damage The damage points
+     * @param fights The number of fights left
+     * @return The chance of dying
+     */
+    private static double storedDeathChance(int matchup, int damage, int fights)
+    {
+        if (damage >= MAX_DAMAGE_POINTS)
+        {
+            return 1.0;
+        }
+        return deathChance[(matchup * MAX_DAMAGE_POINTS + damage) * (MAX_FIGHTS + 1) + fights];
+    }
+
+    /**
+     * Calculates a death chance directly, for creature types not in the tables.
+     *
+     * @param win The win chance
+     * @param damage The damage points
+     * @param fights The number of fights left
+     * @return The chance of dying
+     */
+    private static double deathChanceFrom(double win, int damage, int fights)
+    {
+        if (damage >= MAX_DAMAGE_POINTS)
+        {
+            return 1.0;
+        }
+        if (fights == 0)
+        {
+            return 0.0;
+        }
+        return win * deathChanceFrom(win, damage + WIN_DAMAGE, fights - 1) +
+                (1 - win) * deathChanceFrom(win, damage + LOSS_DAMAGE, fights - 1);
+    }
+
+    /**
+     * Prints the odds tables.
+     *
+     * @param args Not used
+     */
+    public static void main(String[] args)
+    {
+        System.out.println("=== FIGHT ODDS ===");
+        System.out.println(String.format("%-8s %-8s %6s %16s", "Member", "Opponent", "Win", "Expected damage"));
+        for (Creature member : GOOD_CREATURES)
+        {
+            for (Creature opponent : EVIL_CREATURES)
+            {
+                System.out.println(String.format("%-8s %-8s %5.0f%% %16.1f", member.getClass().getSimpleName(),
+                        opponent.getClass().getSimpleName(), getWinChance(member, opponent) * 100,
+                        getExpectedDamage(member, opponent)));
+            }
+        }
+
+        System.out.println("\n=== CHANCE OF DYING WITHIN " + MAX_FIGHTS + " FIGHTS, BY CURRENT DAMAGE ===");
+        StringBuilder header = new StringBuilder(String.format("%-8s %-8s", "Member", "Opponent"));
+        for (int damage = 0; damage < MAX_DAMAGE_POINTS; damage++)
+        {
+            header.append(String.format(" %5d", damage));
+        }
+        System.out.println(header);
+        for (int good = 0; good < GOOD_CREATURES.length; good++)
+        {
+            for (int evil = 0; evil < EVIL_CREATURES.length; evil++)
+            {
+                int matchup = good * EVIL_CREATURES.length + evil;
+                StringBuilder row = new StringBuilder(String.format("%-8s %-8s",
+                        GOOD_CREATURES[good].getClass().getSimpleName(),
+                        EVIL_CREATURES[evil].getClass().getSimpleName()));
+                for (int damage = 0; damage < MAX_DAMAGE_POINTS; damage++)
+                {
+                    row.append(String.format(" %4.0f%%", storedDeathChance(matchup, damage, MAX_FIGHTS) * 100));
+                }
+                System.out.println(row);
+            }
+        }
+    }
+}
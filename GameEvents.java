@@ -0,0 +1,124 @@
+/**
+ * GameEvents defines the Java Flight Recorder events for the Fellowship of Code
+ * game, so a recording shows where a session's time goes: entering caves,
+ * fights, status rendering, labyrinth loading and waiting for the player.
+ *
+ * Events cost almost nothing when recording is off: fields are only filled
+ * in when shouldCommit() is true. To record a session, use:
+ *       java -XX:StartFlightRecording=filename=quest.jfr FellowshipOfCode
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+public final class GameEvents
+{
+    /**
+     * GameEvents only holds the event classes.
+     */
+    private GameEvents()
+    {
+
+    }
+
+    /**
+     * Recorded when the Fellowship enters a cave, covering the cave
+     * description and any creature encounter.
+     */
+    @Name("fellowship.CaveEntry")
+    @Label("Cave Entry")
+    @Category("Fellowship of Code")
+    @Description("The Fellowship entered a cave")
+    public static class CaveEntryEvent extends Event
+    {
+        @Label("Cave Id")
+        public int caveId;
+
+        @Label("Creature Type")
+        @Description("Type of the creature in the cave, or empty if there is none")
+        public String creatureType;
+
+        @Label("Creature Alive")
+        public boolean creatureAlive;
+    }
+
+    /**
+     * Recorded for each fight resolved by handleFight().
+     */
+    @Name("fellowship.Fight")
+    @Label("Fight")
+    @Category("Fellowship of Code")
+    @Description("A fight between a Fellowship member and a cave creature")
+    public static class FightEvent extends Event
+    {
+        @Label("Member Type")
+        public String memberType;
+
+        @Label("Creature Type")
+        public String creatureType;
+
+        @Label("Win Chance")
+        @Description("Chance of the Fellowship member winning, as a percentage")
+        public int winChance;
+
+        @Label("Roll")
+        @Description("Roll between 1 and 100, or 0 if a special weapon was used")
+        public int roll;
+
+        @Label("Special Weapon Used")
+        public boolean specialWeapon;
+
+        @Label("Fellowship Won")
+        public boolean fellowshipWon;
+    }
+
+    /**
+     * Recorded each time the game status is rendered.
+     */
+    @Name("fellowship.StatusRender")
+    @Label("Status Render")
+    @Category("Fellowship of Code")
+    @Description("The game status was displayed between caves")
+    public static class StatusRenderEvent extends Event
+    {
+        @Label("Visited Caves")
+        public int visitedCaves;
+
+        @Label("Next Cave Id")
+        public int nextCaveId;
+    }
+
+    /**
+     * Recorded when a labyrinth file is loaded.
+     */
+    @Name("fellowship.LabyrinthLoad")
+    @Label("Labyrinth Load")
+    @Category("Fellowship of Code")
+    @Description("A labyrinth file was loaded")
+    public static class LabyrinthLoadEvent extends Event
+    {
+        @Label("File Name")
+        public String filename;
+
+        @Label("Cave Count")
+        public int caveCount;
+    }
+
+    /**
+     * Recorded while the game is blocked waiting for a line of player input.
+     */
+    @Name("fellowship.InputWait")
+    @Label("Input Wait")
+    @Category("Fellowship of Code")
+    @Description("The game waited for the player to enter a line")
+    public static class InputWaitEvent extends Event
+    {
+        @Label("Input Length")
+        public int inputLength;
+    }
+}
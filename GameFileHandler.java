@@ -10,21 +10,55 @@ import java.io.FileReader;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.regex.Pattern;
 
 public class GameFileHandler
 {
+    public static final String DEFAULT_LABYRINTH_FILE = "labyrinth.txt"; // Labyrinth played if no other is given
+    private static final int READ_BUFFER_SIZE = 1 << 16; // Bytes read at a time by loadLabyrinthGraph
+    private static final int MAX_LOAD_WARNINGS = 10; // Invalid lines reported individually by loadLabyrinthGraph
+    private static final Pattern CAVE_FIELD = Pattern.compile("[+-]?[0-9]+"); // Integer.parseInt also takes non-ASCII digits
+
     /**
-     * Loads the labyrinth from the labyrinth.txt file.
+     * Loads the labyrinth from the default labyrinth file, labyrinth.txt.
      * 
      * @return ArrayList of Cave objects representing the labyrinth
      * @throws FileNotFoundException if the labyrinth file is not found
      * @throws IOException if there is an error reading the file
      */
     public static ArrayList<Cave> loadLabyrinth() throws FileNotFoundException, IOException
+    {
+        ArrayList<String> warnings = new ArrayList<>();
+        ArrayList<Cave> labyrinth = loadLabyrinth(DEFAULT_LABYRINTH_FILE, warnings);
+        for (String warning : warnings)
+        {
+            GameUtils.typeText("Warning: " + warning);
+        }
+        return labyrinth;
+    }
+
+    /**
+     * Loads the labyrinth from a file without printing anything, so that it
+     * can be loaded in the background. Invalid lines are skipped and reported
+     * in warnings.
+     * 
+     * @param filename The labyrinth file to load
+     * @param warnings List that receives a message for each invalid line
+     * @return ArrayList of Cave objects representing the labyrinth
+     * @throws FileNotFoundException if the labyrinth file is not found
+     * @throws IOException if there is an error reading the file
+     */
+    public static ArrayList<Cave> loadLabyrinth(String filename, ArrayList<String> warnings) 
+            throws FileNotFoundException, IOException
     {
         ArrayList<Cave> labyrinth = new ArrayList<>();
-        String filename = "labyrinth.txt";
+        GameEvents.LabyrinthLoadEvent event = new GameEvents.LabyrinthLoadEvent();
+        event.begin();
+        long start = System.nanoTime();
         
         try (BufferedReader reader = new BufferedReader(new FileReader(filename)))
         {
@@ -38,47 +72,217 @@ public class GameFileHandler
                     String[] parts = line.split(",");
                     if (parts.length != 5)
                     {
-                        GameUtils.typeText("Warning: Line " + lineNumber + " in " + filename + 
+                        warnings.add("Line " + lineNumber + " in " + filename + 
                                 " has invalid format. Expected 5 comma-separated values, but found " + 
                                 parts.length + ".");
                         continue;
                     }
                     
-                    int id = Integer.parseInt(parts[0]);
-                    int north = Integer.parseInt(parts[1]);
-                    int east = Integer.parseInt(parts[2]);
-                    int south = Integer.parseInt(parts[3]);
-                    int west = Integer.parseInt(parts[4]);
+                    int id = parseCaveField(parts[0]);
+                    int north = parseCaveField(parts[1]);
+                    int east = parseCaveField(parts[2]);
+                    int south = parseCaveField(parts[3]);
+                    int west = parseCaveField(parts[4]);
                     
                     labyrinth.add(new Cave(id, north, east, south, west));
                 }
                 catch (NumberFormatException e)
                 {
-                    GameUtils.typeText("Warning: Line " + lineNumber + " in " + filename + 
+                    warnings.add("Line " + lineNumber + " in " + filename + 
                             " contains invalid numeric values: " + e.getMessage());
                 }
             }
         }
         
+        GameMetrics.labyrinthLoaded(System.nanoTime() - start);
+        if (event.shouldCommit())
+        {
+            event.filename = filename;
+            event.caveCount = labyrinth.size();
+            event.commit();
+        }
         return labyrinth;
     }
     
+    /**
+     * Parses one field of a line of a labyrinth file: an optional sign and
+     * ASCII digits, within the range of an int.
+     *
+     * @param field The field, as split from the line
+     * @return The value
+     * @throws NumberFormatException if the field is not an int
+     */
+    static int parseCaveField(String field)
+    {
+        if (!CAVE_FIELD.matcher(field).matches())
+        {
+            throw new NumberFormatException("For input string: \"" + field + "\"");
+        }
+        return Integer.parseInt(field);
+    }
+
+    /**
+     * Loads a labyrinth file straight into primitive arrays, without creating
+     * a Cave object per line. This is used for labyrinths too large to load
+     * with loadLabyrinth(). Invalid lines are skipped and reported in warnings.
+     * It accepts exactly the lines loadLabyrinth() accepts: five fields split
+     * at commas, where empty fields at the end of a line are ignored, each
+     * read by parseCaveField(), with "\n", "\r" or "\r\n" ending a line.
+     * 
+     * @param filename The labyrinth file to load
+     * @param warnings List that receives a message for each invalid line (the first few only)
+     * @return The labyrinth as a graph
+     * @throws FileNotFoundException if the labyrinth file is not found
+     * @throws IOException if there is an error reading the file
+     */
+    public static LabyrinthGraph loadLabyrinthGraph(String filename, ArrayList<String> warnings) 
+            throws FileNotFoundException, IOException
+    {
+        GameEvents.LabyrinthLoadEvent event = new GameEvents.LabyrinthLoadEvent();
+        event.begin();
+        int[] ids = new int[1024];
+        int[] passages = new int[1024 * 4];
+        int size = 0;
+        int[] values = new int[5];
+        int invalidLines = 0;
+
+        try (InputStream in = new FileInputStream(filename))
+        {
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int lineNumber = 1;
+            int fieldCount = 0;
+            long value = 0;
+            boolean hasSign = false;
+            boolean negative = false;
+            boolean hasDigits = false;
+            boolean lineValid = true;
+            boolean lineEmpty = true;
+            boolean afterReturn = false; // "\r\n" ends one line, as in BufferedReader.readLine()
+            int read;
+
+            // One extra pass with read == -1 finishes a last line that has no line break
+            do
+            {
+                read = in.read(buffer);
+                int end = read < 0 ? 1 : read;
+                for (int i = 0; i < end; i++)
+                {
+                    byte b = read < 0 ? (byte) '\n' : buffer[i];
+                    if (b == '\n' && afterReturn)
+                    {
+                        afterReturn = false;
+                        continue;
+                    }
+                    afterReturn = b == '\r';
+
+                    if (b >= '0' && b <= '9')
+                    {
+                        // Up to Integer.MAX_VALUE, or Integer.MIN_VALUE with a minus sign, as parseCaveField
+                        int digit = b - '0';
+                        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+                        if (value > (limit - digit) / 10)
+                        {
+                            lineValid = false;
+                        }
+                        else
+                        {
+                            value = value * 10 + digit;
+                        }
+                        hasDigits = true;
+                        lineEmpty = false;
+                    }
+                    else if ((b == '-' || b == '+') && !hasDigits && !hasSign)
+                    {
+                        hasSign = true;
+                        negative = b == '-';
+                        lineEmpty = false;
+                    }
+                    else if (b == ',' || b == '\n' || b == '\r')
+                    {
+                        if (fieldCount < 5 && hasDigits)
+                        {
+                            values[fieldCount] = (int) (negative ? -value : value);
+                        }
+                        else if (fieldCount < 5 || hasSign || hasDigits)
+                        {
+                            lineValid = false; // Only empty fields may follow the fifth
+                        }
+                        if (hasSign || hasDigits || b == ',')
+                        {
+                            lineEmpty = false;
+                        }
+                        fieldCount++;
+                        value = 0;
+                        hasSign = false;
+                        negative = false;
+                        hasDigits = false;
+
+                        if (b != ',')
+                        {
+                            if (lineValid && fieldCount >= 5)
+                            {
+                                if (size == ids.length)
+                                {
+                                    ids = Arrays.copyOf(ids, size * 2);
+                                    passages = Arrays.copyOf(passages, size * 2 * 4);
+                                }
+                                ids[size] = values[0];
+                                System.arraycopy(values, 1, passages, size * 4, 4);
+                                size++;
+                            }
+                            else if (!lineEmpty || read >= 0)
+                            {
+                                invalidLines++;
+                                if (invalidLines <= MAX_LOAD_WARNINGS)
+                                {
+                                    warnings.add("Line " + lineNumber + " in " + filename + 
+                                            " has invalid format. Expected 5 comma-separated integers.");
+                                }
+                            }
+                            lineNumber++;
+                            fieldCount = 0;
+                            lineValid = true;
+                            lineEmpty = true;
+                        }
+                    }
+                    else
+                    {
+                        lineValid = false;
+                        lineEmpty = false;
+                    }
+                }
+            }
+            while (read >= 0);
+        }
+
+        if (invalidLines > MAX_LOAD_WARNINGS)
+        {
+            warnings.add((invalidLines - MAX_LOAD_WARNINGS) + " more invalid lines in " + 
+                    filename + " were skipped.");
+        }
+        if (event.shouldCommit())
+        {
+            event.filename = filename;
+            event.caveCount = size;
+            event.commit();
+        }
+        return new LabyrinthGraph(size, ids, passages);
+    }
+
     /**
      * Writes the game summary to the fellowship.txt file.
      * 
      * @param codeHolder The creature holding the code at the end
-     * @param visitedCaves List of caves visited during the game
+     * @param history The caves visited and creatures that died during the game
      * @param codeExchanges Number of times the code changed hands
-     * @param deadCreatures List of creatures that died during the game
      * @param fellowship List of fellowship members
      * @param totalFights Total number of fights that occurred
      * @param fellowshipWins Number of fights won by the fellowship
      * @return true if the summary was written successfully, false otherwise
      */
     public static boolean writeSummaryToFile(Creature codeHolder, 
-                                           ArrayList<Cave> visitedCaves,
+                                           QuestHistory history,
                                            int codeExchanges,
-                                           ArrayList<Creature> deadCreatures,
                                            ArrayList<Creature> fellowship,
                                            int totalFights,
                                            int fellowshipWins)
@@ -92,7 +296,7 @@ public class GameFileHandler
             boolean success = false;
             for (Creature member : fellowship)
             {
-                if(!deadCreatures.contains(member) && member == codeHolder)
+                if(!member.isDead() && member == codeHolder)
                 {
                     success = true;
                     break;
@@ -113,21 +317,20 @@ public class GameFileHandler
             }
 
             // Write stats
-            writer.write("\nNumber of caves visited: " + visitedCaves.size() + "\n");
+            writer.write("\nNumber of caves visited: " + history.getVisitedCount() + "\n");
             writer.write("Number of times the secret code changed hands: " + codeExchanges + "\n");
 
             // Write dead creatures
             writer.write("\nCreatures that died during the quest:\n");
-            if (deadCreatures.isEmpty())
+            if (history.getDeathCount() == 0)
             {
                 writer.write("None\n");
             }
             else
             {
-                for (Creature creature : deadCreatures)
+                for (String line : history.describeDeaths())
                 {
-                    writer.write("- " + creature.getName() + " (" + 
-                            creature.getClass().getSimpleName() + ")\n");
+                    writer.write(line + "\n");
                 }
             }
 
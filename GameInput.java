@@ -0,0 +1,253 @@
+/**
+ * GameInput reads the player's answers for the Fellowship of Code game.
+ * All prompts read through this class, so time spent waiting for the player
+ * can be recorded in one place.
+ *
+ * Answers can also come from a script file, one answer per line. Script
+ * answers are echoed after the prompt so the transcript reads like a game
+ * typed at the console. When the input runs out, "exit" is returned so the
+ * game ends cleanly.
+ *
+ * At the console, lines can be read ahead on a background thread. A line
+ * entered while text is being typed out skips the rest of the typing effect
+ * and is kept as the answer to the next prompt, rather than being lost.
+ * Pressing Enter on its own while text is typed only skips the effect.
+ *
+ * Several answers can be entered on one line, separated by semicolons, e.g.
+ * "2;yes;east;1". They are used one per prompt, each echoed after its
+ * prompt, and menus are shortened while answers are waiting.
+ *
+ * "speed N" can be entered at any prompt to change the typing speed to N
+ * milliseconds per character; the prompt then waits for its answer again.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.ArrayDeque;
+import java.util.Scanner;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public class GameInput
+{
+    private static final String END_OF_INPUT = "exit"; // Answer given once the input runs out
+    private static final String SPEED_COMMAND = "speed";
+    private static final String ANSWER_SEPARATOR = ";"; // Separates answers entered on one line
+
+    private Scanner scanner;
+    private boolean echo;
+    private LinkedBlockingQueue<String> typedAhead; // Lines read by the reader thread, or null if lines are read on demand
+    private ArrayDeque<String> pendingAnswers; // Answers after the first on a line, for the prompts that follow
+
+    /**
+     * Non-default constructor for GameInput.
+     *
+     * @param scanner The scanner to read lines from
+     */
+    public GameInput(Scanner scanner)
+    {
+        this(scanner, false);
+    }
+
+    /**
+     * Non-default constructor for GameInput.
+     *
+     * @param scanner The scanner to read lines from
+     * @param echo true to print each line read, as for answers read from a script
+     */
+    public GameInput(Scanner scanner, boolean echo)
+    {
+        this.scanner = scanner;
+        this.echo = echo;
+        this.typedAhead = null;
+        this.pendingAnswers = new ArrayDeque<>();
+    }
+
+    /**
+     * Starts reading lines on a background thread, so that lines entered
+     * before the game asks for them are kept, and so that entering a line
+     * skips the typing effect.
+     */
+    public void startReadingAhead()
+    {
+        if (this.typedAhead != null)
+        {
+            return;
+        }
+
+        LinkedBlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        this.typedAhead = lines;
+        Thread reader = new Thread(() ->
+        {
+            while (this.scanner.hasNextLine())
+            {
+                // Skip before the line is queued, so the prompt that takes it turns typing back on.
+                // An empty line while text is typed only skips the effect; it is not an answer.
+                String line = this.scanner.nextLine();
+                boolean skipped = GameOutput.skipIfTyping();
+                if (!line.isEmpty() || !skipped)
+                {
+                    lines.add(line);
+                }
+            }
+            GameOutput.skipTyping();
+            lines.add(END_OF_INPUT);
+        }, "input-reader");
+        reader.setDaemon(true); // Don't keep the program running while waiting for the console
+        reader.start();
+    }
+
+    /**
+     * Reads the next answer, first writing out the output frame that ends
+     * at this prompt. Answers waiting from a line with several answers are
+     * used first; otherwise a line is read, recording the time blocked as an
+     * InputWait event and in the input wait metrics. Speed commands are
+     * carried out here and not returned.
+     *
+     * @return The answer entered, or "exit" at the end of the input
+     */
+    public String nextLine()
+    {
+        String answer = this.nextAnswer();
+        while (this.applySpeedCommand(answer))
+        {
+            answer = this.nextAnswer();
+        }
+
+        // Type nothing out while answers are waiting, so entering several feels instant
+        GameOutput.resumeTyping();
+        if (this.hasPendingAnswer())
+        {
+            GameOutput.skipTyping();
+        }
+        return answer;
+    }
+
+    /**
+     * Checks if an answer has already been entered for the next prompt,
+     * so its menu can be shortened.
+     *
+     * @return true if the next answer is waiting
+     */
+    public boolean hasPendingAnswer()
+    {
+        return !this.pendingAnswers.isEmpty() || (this.typedAhead != null && !this.typedAhead.isEmpty());
+    }
+
+    /**
+     * Gets the next answer: one left from a line with several answers, or
+     * the first answer on a new line.
+     *
+     * @return The answer
+     */
+    private String nextAnswer()
+    {
+        if (!this.pendingAnswers.isEmpty())
+        {
+            GameOutput.endFrame();
+            String answer = this.pendingAnswers.poll();
+            System.out.println(answer); // Shows which answer this prompt used
+            return answer;
+        }
+
+        String line = this.readLine();
+        if (!line.contains(ANSWER_SEPARATOR))
+        {
+            return line;
+        }
+
+        String first = null;
+        for (String part : line.split(ANSWER_SEPARATOR))
+        {
+            String answer = part.trim();
+            if (answer.isEmpty())
+            {
+                continue;
+            }
+            if (first == null)
+            {
+                first = answer;
+            }
+            else
+            {
+                this.pendingAnswers.add(answer);
+            }
+        }
+        return first == null ? "" : first;
+    }
+
+    /**
+     * Reads one line of input, recording the time blocked.
+     *
+     * @return The line entered, or "exit" at the end of the input
+     */
+    private String readLine()
+    {
+        GameOutput.endFrame(); // The player sees everything printed since the last prompt
+
+        GameEvents.InputWaitEvent event = new GameEvents.InputWaitEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String line = this.typedAhead != null ? this.takeTypedAhead() :
+                this.scanner.hasNextLine() ? this.scanner.nextLine() : END_OF_INPUT;
+        GameMetrics.inputWaited(System.nanoTime() - start);
+        if (event.shouldCommit())
+        {
+            event.inputLength = line.length();
+            event.commit();
+        }
+
+        if (this.echo)
+        {
+            System.out.println(line);
+        }
+        return line;
+    }
+
+    /**
+     * Takes the next line from the reader thread, waiting for one if none
+     * has been entered yet. An interrupt stops the wait and is kept, and
+     * the game ends as it does at the end of the input.
+     *
+     * @return The line entered, or "exit" at the end of the input or when interrupted
+     */
+    private String takeTypedAhead()
+    {
+        try
+        {
+            return this.typedAhead.take();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return END_OF_INPUT;
+        }
+    }
+
+    /**
+     * Carries out a speed command, "speed N", setting the typing speed to N
+     * milliseconds per character.
+     *
+     * @param line The line entered
+     * @return true if the line was a speed command, false if it is an answer
+     */
+    private boolean applySpeedCommand(String line)
+    {
+        String[] words = line.trim().split("\\s+");
+        if (words.length != 2 || !words[0].equalsIgnoreCase(SPEED_COMMAND) || !words[1].matches("\\d+"))
+        {
+            return false; // Not a command, e.g. a name such as "Speedy"
+        }
+
+        int speed = GameUtils.validateNumericInput(words[1], 0, GameUtils.getMaxTypingSpeed());
+        if (speed == -1)
+        {
+            System.out.println("Please enter a speed from 0 to " + GameUtils.getMaxTypingSpeed() +
+                    " milliseconds per character, e.g. 'speed 10':");
+            return true;
+        }
+        GameUtils.setTypingSpeed(speed);
+        System.out.println("Typing speed set to " + speed +
+                " milliseconds per character (0 shows text at once). Enter your answer:");
+        return true;
+    }
+}
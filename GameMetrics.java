@@ -0,0 +1,399 @@
+/**
+ * GameMetrics is the in-process metrics registry for the Fellowship of Code
+ * game. It keeps running totals across every quest played by the process,
+ * so a long-running game service can be monitored while it is in use.
+ *
+ * Updates never take a lock: counters are LongAdders, which spread updates
+ * from different threads over separate cells, and histograms count into a
+ * fixed set of buckets. The registry is written out in the Prometheus text
+ * format by MetricsServer. Fights per second is rate(fellowship_fights_total)
+ * on the Prometheus side.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class GameMetrics
+{
+    // Bucket upper bounds in seconds
+    private static final double[] LOAD_BUCKETS = {0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 30};
+    private static final double[] PAGE_LOAD_BUCKETS = {0.00001, 0.0001, 0.001, 0.01, 0.1, 1};
+    private static final double[] INPUT_WAIT_BUCKETS = {0.001, 0.01, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300};
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99}; // Input wait percentiles to report
+
+    private static final LongAdder questsStarted = new LongAdder();
+    private static final LongAdder questsCompleted = new LongAdder();
+    private static final LongAdder questsSucceeded = new LongAdder();
+    private static final LongAdder fights = new LongAdder();
+    private static final LongAdder fightsWon = new LongAdder();
+    private static final LongAdder consoleWrites = new LongAdder();
+    private static final LongAdder consoleBytes = new LongAdder();
+    private static final LongAdder pageHits = new LongAdder();
+    private static final LongAdder pageEvictions = new LongAdder();
+    private static final ConcurrentHashMap<String, LongAdder> deaths = new ConcurrentHashMap<>();
+    private static final Histogram labyrinthLoad = new Histogram(LOAD_BUCKETS);
+    private static final Histogram inputWait = new Histogram(INPUT_WAIT_BUCKETS);
+    private static final Histogram pageLoad = new Histogram(PAGE_LOAD_BUCKETS); // one observation per page miss
+
+    /**
+     * GameMetrics only holds static metrics.
+     */
+    private GameMetrics()
+    {
+
+    }
+
+    /**
+     * Records that a quest has started.
+     */
+    public static void questStarted()
+    {
+        questsStarted.increment();
+    }
+
+    /**
+     * Records that a quest has finished.
+     *
+     * @param success true if the code was delivered to Mount Api
+     */
+    public static void questCompleted(boolean success)
+    {
+        questsCompleted.increment();
+        if (success)
+        {
+            questsSucceeded.increment();
+        }
+    }
+
+    /**
+     * Records the outcome of a fight.
+     *
+     * @param fellowshipWon true if the Fellowship member won
+     */
+    public static void fightFought(boolean fellowshipWon)
+    {
+        fights.increment();
+        if (fellowshipWon)
+        {
+            fightsWon.increment();
+        }
+    }
+
+    /**
+     * Records the death of a creature.
+     *
+     * @param creature The creature that died
+     */
+    public static void creatureDied(Creature creature)
+    {
+        deaths.computeIfAbsent(creature.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    /**
+     * Records the time taken to load a labyrinth.
+     *
+     * @param nanos The load time in nanoseconds
+     */
+    public static void labyrinthLoaded(long nanos)
+    {
+        labyrinthLoad.observe(nanos);
+    }
+
+    /**
+     * Records the time spent waiting for a line of player input.
+     *
+     * @param nanos The wait in nanoseconds
+     */
+    public static void inputWaited(long nanos)
+    {
+        inputWait.observe(nanos);
+    }
+
+    /**
+     * Records a write of game output to the console or transcript.
+     *
+     * @param bytes The number of bytes written
+     */
+    public static void consoleWritten(int bytes)
+    {
+        consoleWrites.increment();
+        consoleBytes.add(bytes);
+    }
+
+    /**
+     * Records a cave lookup served from a labyrinth page already in memory.
+     */
+    public static void pageHit()
+    {
+        pageHits.increment();
+    }
+
+    /**
+     * Records a labyrinth page read from disk because it was not in memory.
+     *
+     * @param nanos The time taken to read the page in nanoseconds
+     */
+    public static void pageLoaded(long nanos)
+    {
+        pageLoad.observe(nanos);
+    }
+
+    /**
+     * Records a labyrinth page dropped from memory to make room for another.
+     */
+    public static void pageEvicted()
+    {
+        pageEvictions.increment();
+    }
+
+    /**
+     * Gets the number of writes of game output made so far.
+     *
+     * @return The number of writes
+     */
+    public static long getConsoleWrites()
+    {
+        return consoleWrites.sum();
+    }
+
+    /**
+     * Gets the number of deaths recorded for a creature type.
+     *
+     * @param type The simple class name of the creature, e.g. "Orc"
+     * @return The number of deaths
+     */
+    public static long getDeaths(String type)
+    {
+        LongAdder count = deaths.get(type);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Gets an estimate of an input wait percentile.
+     *
+     * @param quantile The quantile, between 0 and 1
+     * @return The estimated wait in seconds, or 0 if no input has been read
+     */
+    public static double getInputWaitPercentile(double quantile)
+    {
+        return inputWait.percentile(quantile);
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format.
+     *
+     * @return The metrics text
+     */
+    public static String toPrometheusText()
+    {
+        StringBuilder text = new StringBuilder();
+        long completed = questsCompleted.sum();
+        long fought = fights.sum();
+
+        writeMetric(text, "fellowship_quests_started_total", "counter", "Quests started.",
+                questsStarted.sum());
+        writeMetric(text, "fellowship_quests_completed_total", "counter", "Quests that reached an end.",
+                completed);
+        writeMetric(text, "fellowship_quests_succeeded_total", "counter",
+                "Quests that delivered the code to Mount Api.", questsSucceeded.sum());
+        writeMetric(text, "fellowship_quest_success_ratio", "gauge",
+                "Share of completed quests that succeeded.",
+                completed == 0 ? 0 : (double) questsSucceeded.sum() / completed);
+        writeMetric(text, "fellowship_fights_total", "counter", "Fights fought.", fought);
+        writeMetric(text, "fellowship_fights_won_total", "counter", "Fights won by the Fellowship.",
+                fightsWon.sum());
+        writeMetric(text, "fellowship_fight_success_ratio", "gauge",
+                "Share of fights won by the Fellowship.", fought == 0 ? 0 : (double) fightsWon.sum() / fought);
+
+        writeMetric(text, "fellowship_console_writes_total", "counter",
+                "Writes of game output to the console or transcript.", consoleWrites.sum());
+        writeMetric(text, "fellowship_console_written_bytes_total", "counter",
+                "Bytes of game output written.", consoleBytes.sum());
+
+        long hits = pageHits.sum();
+        long misses = pageLoad.count.sum();
+        writeMetric(text, "fellowship_labyrinth_page_hits_total", "counter",
+                "Cave lookups served from a labyrinth page in memory.", hits);
+        writeMetric(text, "fellowship_labyrinth_page_evictions_total", "counter",
+                "Labyrinth pages dropped from the page cache.", pageEvictions.sum());
+        writeMetric(text, "fellowship_labyrinth_page_hit_ratio", "gauge",
+                "Share of cave lookups served without reading a page.",
+                hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+
+        // Sorted so the output is stable between scrapes
+        writeHeader(text, "fellowship_deaths_total", "counter", "Deaths by creature type.");
+        Map<String, LongAdder> sortedDeaths = new TreeMap<>(deaths);
+        for (Map.Entry<String, LongAdder> entry : sortedDeaths.entrySet())
+        {
+            text.append("fellowship_deaths_total{creature_type=\"").append(entry.getKey()).append("\"} ")
+                    .append(entry.getValue().sum()).append('\n');
+        }
+
+        labyrinthLoad.write(text, "fellowship_labyrinth_load_seconds", "Time taken to load the labyrinth.");
+        inputWait.write(text, "fellowship_input_wait_seconds", "Time spent waiting for player input.");
+        pageLoad.write(text, "fellowship_labyrinth_page_load_seconds",
+                "Time taken to read a labyrinth page that was not in memory.");
+
+        writeHeader(text, "fellowship_input_wait_quantile_seconds", "gauge",
+                "Estimated input wait percentiles, from the histogram buckets.");
+        for (double quantile : QUANTILES)
+        {
+            text.append("fellowship_input_wait_quantile_seconds{quantile=\"").append(formatValue(quantile))
+                    .append("\"} ").append(formatValue(inputWait.percentile(quantile))).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes the HELP and TYPE lines for a metric.
+     *
+     * @param text The text to append to
+     * @param name The metric name
+     * @param type The metric type
+     * @param help The description of the metric
+     */
+    private static void writeHeader(StringBuilder text, String name, String type, String help)
+    {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Writes a metric with a single value.
+     *
+     * @param text The text to append to
+     * @param name The metric name
+     * @param type The metric type
+     * @param help The description of the metric
+     * @param value The value of the metric
+     */
+    private static void writeMetric(StringBuilder text, String name, String type, String help, double value)
+    {
+        writeHeader(text, name, type, help);
+        text.append(name).append(' ').append(formatValue(value)).append('\n');
+    }
+
+    /**
+     * Formats a value for the Prometheus text format.
+     *
+     * @param value The value to format
+     * @return The value, without a fraction if it is a whole number
+     */
+    private static String formatValue(double value)
+    {
+        if (value == Math.rint(value) && !Double.isInfinite(value))
+        {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * Histogram counts observations into buckets with fixed upper bounds.
+     */
+    private static class Histogram
+    {
+        private final double[] bounds;
+        private final LongAdder[] buckets; // One per bound, plus one for larger values
+        private final LongAdder count;
+        private final DoubleAdder sum;
+
+        /**
+         * Non-default constructor for Histogram.
+         *
+         * @param bounds The bucket upper bounds in seconds, in increasing order
+         */
+        Histogram(double[] bounds)
+        {
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < this.buckets.length; i++)
+            {
+                this.buckets[i] = new LongAdder();
+            }
+            this.count = new LongAdder();
+            this.sum = new DoubleAdder();
+        }
+
+        /**
+         * Records an observation.
+         *
+         * @param nanos The observed time in nanoseconds
+         */
+        void observe(long nanos)
+        {
+            double seconds = nanos / 1e9;
+            int bucket = 0;
+            while (bucket < this.bounds.length && seconds > this.bounds[bucket])
+            {
+                bucket++;
+            }
+            this.buckets[bucket].increment();
+            this.count.increment();
+            this.sum.add(seconds);
+        }
+
+        /**
+         * Estimates a percentile by interpolating within the bucket that holds it.
+         *
+         * @param quantile The quantile, between 0 and 1
+         * @return The estimated value in seconds, or 0 if nothing has been observed
+         */
+        double percentile(double quantile)
+        {
+            long[] counts = new long[this.buckets.length];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++)
+            {
+                counts[i] = this.buckets[i].sum();
+                total += counts[i];
+            }
+            if (total == 0)
+            {
+                return 0;
+            }
+
+            double rank = quantile * total;
+            long below = 0;
+            for (int i = 0; i < this.bounds.length; i++)
+            {
+                if (below + counts[i] >= rank && counts[i] > 0)
+                {
+                    double lower = i == 0 ? 0 : this.bounds[i - 1];
+                    return lower + (this.bounds[i] - lower) * (rank - below) / counts[i];
+                }
+                below += counts[i];
+            }
+            // Beyond the last bound, the best estimate is the last bound itself
+            return this.bounds[this.bounds.length - 1];
+        }
+
+        /**
+         * Writes the histogram with cumulative buckets.
+         *
+         * @param text The text to append to
+         * @param name The metric name
+         * @param help The description of the metric
+         */
+        void write(StringBuilder text, String name, String help)
+        {
+            writeHeader(text, name, "histogram", help);
+            long cumulative = 0;
+            for (int i = 0; i < this.bounds.length; i++)
+            {
+                cumulative += this.buckets[i].sum();
+                text.append(name).append("_bucket{le=\"").append(formatValue(this.bounds[i])).append("\"} ")
+                        .append(cumulative).append('\n');
+            }
+            cumulative += this.buckets[this.bounds.length].sum();
+            text.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+            text.append(name).append("_sum ").append(formatValue(this.sum.sum())).append('\n');
+            text.append(name).append("_count ").append(cumulative).append('\n');
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * GameOptions holds the command line options for the Fellowship of Code game.
+ *
+ * Supported options:
+ *       --reorder=bfs|rcm    Renumber caves after loading so neighbours sit close together
+ *       --metrics-port=PORT  Serve game metrics at http://localhost:PORT/metrics
+ *       --script=FILE        Read every answer from FILE (one per line) and play without animation
+ *       --transcript=FILE    Write the game output to FILE instead of the console
+ *       --seed=N             Seed the random numbers so a game can be repeated exactly
+ *       --bounded-memory     Keep counts and recent history only, for very long quests
+ *       --page-cache=PAGES   Read the labyrinth in pages, keeping at most PAGES pages in memory
+ *       --off-heap           Hold the labyrinth as packed records outside the Java heap
+ *       --watch-labyrinth    Reload the labyrinth file between caves when it is edited
+ *       --labyrinth=FILE,... Play the labyrinth files in turn as a campaign (labyrinth.txt if not given)
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.ArrayList;
+
+public class GameOptions
+{
+    private String reorderMode;
+    private int metricsPort;
+    private String scriptFile;
+    private String transcriptFile;
+    private Long seed;
+    private boolean boundedMemory;
+    private int pageCache;
+    private boolean offHeap;
+    private boolean watchLabyrinth;
+    private ArrayList<String> labyrinthFiles;
+
+    /**
+     * Default constructor for GameOptions.
+     */
+    public GameOptions()
+    {
+        this.reorderMode = null;
+        this.metricsPort = -1;
+        this.scriptFile = null;
+        this.transcriptFile = null;
+        this.seed = null;
+        this.boundedMemory = false;
+        this.pageCache = 0;
+        this.offHeap = false;
+        this.watchLabyrinth = false;
+        this.labyrinthFiles = new ArrayList<>();
+        this.labyrinthFiles.add(GameFileHandler.DEFAULT_LABYRINTH_FILE);
+    }
+
+    /**
+     * Parses the command line options. Unknown or invalid options are
+     * reported and ignored.
+     *
+     * @param args Command line arguments
+     * @return The parsed options
+     */
+    public static GameOptions parse(String[] args)
+    {
+        GameOptions options = new GameOptions();
+        for (String arg : args)
+        {
+            if (arg.startsWith("--reorder="))
+            {
+                String mode = arg.substring("--reorder=".length());
+                if (LabyrinthReorderer.isValidMode(mode))
+                {
+                    options.reorderMode = mode;
+                }
+                else
+                {
+                    System.out.println("Warning: Unknown reorder mode '" + mode + "'. Expected bfs or rcm.");
+                }
+            }
+            else if (arg.startsWith("--metrics-port="))
+            {
+                String value = arg.substring("--metrics-port=".length());
+                int port = -1;
+                try
+                {
+                    port = Integer.parseInt(value);
+                }
+                catch (NumberFormatException e)
+                {
+                    // Reported below
+                }
+                if (port >= 0 && port <= 65535)
+                {
+                    options.metricsPort = port;
+                }
+                else
+                {
+                    System.out.println("Warning: Invalid metrics port '" + value + "'. Expected 0 to 65535.");
+                }
+            }
+            else if (arg.startsWith("--script="))
+            {
+                options.scriptFile = arg.substring("--script=".length());
+            }
+            else if (arg.startsWith("--transcript="))
+            {
+                options.transcriptFile = arg.substring("--transcript=".length());
+            }
+            else if (arg.startsWith("--seed="))
+            {
+                String value = arg.substring("--seed=".length());
+                try
+                {
+                    options.seed = Long.parseLong(value);
+                }
+                catch (NumberFormatException e)
+                {
+                    System.out.println("Warning: Invalid seed '" + value + "'. Expected a whole number.");
+                }
+            }
+            else if (arg.equals("--bounded-memory"))
+            {
+                options.boundedMemory = true;
+            }
+            else if (arg.startsWith("--page-cache="))
+            {
+                String value = arg.substring("--page-cache=".length());
+                int pages = 0;
+                try
+                {
+                    pages = Integer.parseInt(value);
+                }
+                catch (NumberFormatException e)
+                {
+                    // Reported below
+                }
+                if (pages > 0)
+                {
+                    options.pageCache = pages;
+                }
+                else
+                {
+                    System.out.println("Warning: Invalid page cache size '" + value + "'. Expected at least 1 page.");
+                }
+            }
+            else if (arg.equals("--off-heap"))
+            {
+                options.offHeap = true;
+            }
+            else if (arg.equals("--watch-labyrinth"))
+            {
+                options.watchLabyrinth = true;
+            }
+            else if (arg.startsWith("--labyrinth="))
+            {
+                ArrayList<String> files = new ArrayList<>();
+                for (String file : arg.substring("--labyrinth=".length()).split(","))
+                {
+                    if (!file.isBlank())
+                    {
+                        files.add(file.trim());
+                    }
+                }
+                if (!files.isEmpty())
+                {
+                    options.labyrinthFiles = files;
+                }
+                else
+                {
+                    System.out.println("Warning: No labyrinth file given in '" + arg + "'.");
+                }
+            }
+            else
+            {
+                System.out.println("Warning: Unknown option '" + arg + "' ignored.");
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Gets the cave reorder mode.
+     *
+     * @return "bfs", "rcm", or null if caves keep their file order
+     */
+    public String getReorderMode()
+    {
+        return this.reorderMode;
+    }
+
+    /**
+     * Gets the port for the metrics server.
+     *
+     * @return The localhost port, 0 for any free port, or -1 if metrics are not served
+     */
+    public int getMetricsPort()
+    {
+        return this.metricsPort;
+    }
+
+    /**
+     * Gets the script file that answers the prompts.
+     *
+     * @return The script file name, or null if the game is played interactively
+     */
+    public String getScriptFile()
+    {
+        return this.scriptFile;
+    }
+
+    /**
+     * Gets the file the game output is written to.
+     *
+     * @return The transcript file name, or null if output goes to the console
+     */
+    public String getTranscriptFile()
+    {
+        return this.transcriptFile;
+    }
+
+    /**
+     * Gets the random seed.
+     *
+     * @return The seed, or null if the game uses a random seed
+     */
+    public Long getSeed()
+    {
+        return this.seed;
+    }
+
+    /**
+     * Checks if the quest history is kept in bounded memory.
+     *
+     * @return true to keep only counts and the most recent caves and deaths
+     */
+    public boolean isBoundedMemory()
+    {
+        return this.boundedMemory;
+    }
+
+    /**
+     * Gets the number of labyrinth pages kept in memory.
+     *
+     * @return The page cache size, or 0 if the whole labyrinth is loaded
+     */
+    public int getPageCache()
+    {
+        return this.pageCache;
+    }
+
+    /**
+     * Checks if the labyrinth is held outside the Java heap.
+     *
+     * @return true to load the labyrinth into an off-heap cave table
+     */
+    public boolean isOffHeap()
+    {
+        return this.offHeap;
+    }
+
+    /**
+     * Checks if the labyrinth file is reloaded when it is edited.
+     *
+     * @return true to watch the labyrinth file during the quest
+     */
+    public boolean isWatchLabyrinth()
+    {
+        return this.watchLabyrinth;
+    }
+
+    /**
+     * Gets the labyrinth files to play, in order.
+     *
+     * @return The labyrinth files, with labyrinth.txt alone if none were given
+     */
+    public ArrayList<String> getLabyrinthFiles()
+    {
+        return this.labyrinthFiles;
+    }
+}
@@ -0,0 +1,410 @@
+/**
+ * GameOutput is the single sink for the game's console output. Everything
+ * printed between two prompts (a frame) is collected in a byte buffer and
+ * written with one call when the game next asks for input, instead of one
+ * write per line or per character.
+ *
+ * The typing effect is done by revealing the end of the frame a character
+ * at a time: each step writes the next character of the buffer and waits.
+ * Text printed without the effect is written along with the next step, or
+ * at the end of the frame.
+ *
+ * The typing effect can be skipped: when the player enters an answer while
+ * text is being typed, skipTyping() cancels the wait at once and the rest
+ * of the text, up to the next prompt, is shown without the effect.
+ *
+ * When answers come from a script nobody is watching the prompts, so frames
+ * are only written when the buffer is full and when the program ends.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+public class GameOutput extends OutputStream
+{
+    private static final int BUFFER_SIZE = 1 << 16; // Bytes held before a frame is written early
+    private static final int REFRESH_INTERVAL = 16; // Milliseconds between writes when typing fast
+
+    private static GameOutput installed; // The sink behind System.out, or null if none is installed
+    private static final Object typingLock = new Object(); // Waited on between typed characters
+    private static volatile boolean skipping; // true while typed text should be shown at once
+    private static volatile boolean typing; // true from the first typed text of a frame until the next prompt
+
+    private OutputStream target;
+    private boolean writeAtPrompts;
+    private byte[] frame;
+    private int length; // Bytes in the frame
+    private int written; // Bytes of the frame already written to the target
+    private long frameNumber; // Counts frames written, so a reveal can tell its frame has gone
+
+    /**
+     * Non-default constructor for GameOutput.
+     *
+     * @param target The stream the frames are written to
+     * @param writeAtPrompts true to write each frame when the game asks for input, false to write only when the buffer is full
+     */
+    public GameOutput(OutputStream target, boolean writeAtPrompts)
+    {
+        this.target = target;
+        this.writeAtPrompts = writeAtPrompts;
+        this.frame = new byte[BUFFER_SIZE];
+        this.length = 0;
+        this.written = 0;
+        this.frameNumber = 0;
+    }
+
+    /**
+     * Sends System.out through a new GameOutput. The buffer is also written
+     * when the program ends, including by System.exit().
+     *
+     * @param target The stream the frames are written to
+     * @param writeAtPrompts true to write each frame when the game asks for input, false to write only when the buffer is full
+     * @return The installed output
+     */
+    public static GameOutput install(OutputStream target, boolean writeAtPrompts)
+    {
+        GameOutput output = new GameOutput(target, writeAtPrompts);
+        PrintStream out = new PrintStream(output, false, StandardCharsets.UTF_8);
+        System.setOut(out);
+        installed = output;
+        Runtime.getRuntime().addShutdownHook(new Thread(out::flush));
+        return output;
+    }
+
+    /**
+     * Ends the current frame, writing it out if frames are written at prompts.
+     * Called before the game waits for input.
+     */
+    public static void endFrame()
+    {
+        synchronized (typingLock)
+        {
+            typing = false; // Lines entered from now on are answers to the prompt
+        }
+
+        GameOutput output = installed;
+        if (output == null)
+        {
+            System.out.flush();
+        }
+        else if (output.writeAtPrompts)
+        {
+            output.writeFrame();
+        }
+    }
+
+    /**
+     * Writes everything printed so far at once, so that text printed next
+     * can be revealed on its own. Without an installed GameOutput this
+     * flushes System.out.
+     */
+    public static void writePending()
+    {
+        GameOutput output = installed;
+        if (output == null)
+        {
+            System.out.flush();
+            return;
+        }
+        output.writeFrame();
+    }
+
+    /**
+     * Reveals everything printed since the last write a character at a
+     * time, waiting between characters. Without an installed GameOutput
+     * the text is shown at once.
+     *
+     * @param delay The delay in milliseconds between characters
+     */
+    public static void reveal(int delay)
+    {
+        GameOutput output = installed;
+        if (output == null)
+        {
+            System.out.flush();
+            return;
+        }
+        synchronized (typingLock)
+        {
+            typing = true;
+        }
+        output.revealFrame(delay);
+    }
+
+    /**
+     * Skips the typing effect until resumeTyping() is called, cutting short
+     * any text being typed now. Called when the player enters an answer.
+     */
+    public static void skipTyping()
+    {
+        synchronized (typingLock)
+        {
+            skipping = true;
+            typingLock.notifyAll();
+        }
+    }
+
+    /**
+     * Skips the typing effect as skipTyping() does, but only while a frame
+     * is being typed out. Checking and skipping happen together, so a line
+     * entered just as the game reaches its prompt is not taken for a skip.
+     *
+     * @return true if the typing effect was skipped, false if the game is waiting at a prompt
+     */
+    public static boolean skipIfTyping()
+    {
+        synchronized (typingLock)
+        {
+            if (!typing)
+            {
+                return false;
+            }
+            skipping = true;
+            typingLock.notifyAll();
+            return true;
+        }
+    }
+
+    /**
+     * Turns the typing effect back on after skipTyping().
+     */
+    public static void resumeTyping()
+    {
+        skipping = false;
+    }
+
+    /**
+     * Checks if the typing effect is being skipped.
+     *
+     * @return true if typed text is shown at once
+     */
+    public static boolean isSkipping()
+    {
+        return skipping;
+    }
+
+    /**
+     * Checks if a frame is being typed out: from the first typed text after
+     * a prompt until the game asks for input again, including the moments
+     * between two typed lines.
+     *
+     * @return true while the typing effect is running
+     */
+    public static boolean isTyping()
+    {
+        return typing;
+    }
+
+    /**
+     * Gets the installed output.
+     *
+     * @return The output behind System.out, or null if none is installed
+     */
+    public static GameOutput getInstalled()
+    {
+        return installed;
+    }
+
+    /**
+     * Adds a byte to the frame.
+     *
+     * @param b The byte to add
+     */
+    @Override
+    public synchronized void write(int b)
+    {
+        if (this.length == this.frame.length)
+        {
+            this.writeFrame();
+        }
+        this.frame[this.length++] = (byte) b;
+    }
+
+    /**
+     * Adds bytes to the frame, writing the frame early if the buffer fills up.
+     *
+     * @param bytes The bytes to add
+     * @param offset The index of the first byte to add
+     * @param count The number of bytes to add
+     */
+    @Override
+    public synchronized void write(byte[] bytes, int offset, int count)
+    {
+        while (count > 0)
+        {
+            if (this.length == this.frame.length)
+            {
+                this.writeFrame();
+            }
+            int chunk = Math.min(count, this.frame.length - this.length);
+            System.arraycopy(bytes, offset, this.frame, this.length, chunk);
+            this.length += chunk;
+            offset += chunk;
+            count -= chunk;
+        }
+    }
+
+    /**
+     * Writes the whole frame. Called by System.out.flush() and when the
+     * program ends.
+     */
+    @Override
+    public synchronized void flush()
+    {
+        this.writeFrame();
+        try
+        {
+            this.target.flush();
+        }
+        catch (IOException e)
+        {
+            // Console output errors are ignored, as System.out does
+        }
+    }
+
+    /**
+     * Writes the unwritten part of the frame in one call and starts a new frame.
+     */
+    private synchronized void writeFrame()
+    {
+        this.writeRange(this.length);
+        this.length = 0;
+        this.written = 0;
+        this.frameNumber++;
+    }
+
+    /**
+     * Reveals the unwritten part of the frame a character at a time. When
+     * characters are due faster than the display refreshes, the characters
+     * due in each refresh are written together.
+     *
+     * The monitor is only held while writing each step, not while waiting,
+     * so other threads can print during the effect. Their text goes after
+     * the text being revealed. If the frame is written out meanwhile, e.g.
+     * because the buffer filled up, there is nothing left to reveal.
+     *
+     * @param delay The delay in milliseconds between characters
+     */
+    private void revealFrame(int delay)
+    {
+        int perStep = Math.max(1, REFRESH_INTERVAL / delay);
+        int end;
+        long revealedFrame;
+        synchronized (this)
+        {
+            end = this.length;
+            revealedFrame = this.frameNumber;
+        }
+
+        while (true)
+        {
+            int due;
+            synchronized (this)
+            {
+                if (this.frameNumber != revealedFrame || this.written >= end)
+                {
+                    return;
+                }
+                due = this.revealStep(end, perStep);
+            }
+            if (!pause((long) delay * due))
+            {
+                break;
+            }
+        }
+
+        synchronized (this)
+        {
+            if (this.frameNumber == revealedFrame)
+            {
+                this.writeRange(end); // The rest at once if the effect was skipped
+            }
+        }
+    }
+
+    /**
+     * Writes the next characters of the text being revealed.
+     *
+     * @param end The index after the last byte of the text being revealed
+     * @param perStep The most characters to write
+     * @return The number of characters written
+     */
+    private int revealStep(int end, int perStep)
+    {
+        int due = 0;
+        for (int i = this.written + 1; i <= end; i++)
+        {
+            // Count only the start of each character, not the inside of multi-byte ones
+            if (i == end || (this.frame[i] & 0xC0) != 0x80)
+            {
+                due++;
+                if (due == perStep || i == end)
+                {
+                    this.writeRange(i);
+                    return due;
+                }
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Waits between typed characters, returning early if the typing effect
+     * is skipped or the thread is interrupted. An interrupt cuts the effect
+     * short and is kept, so the caller can still see it.
+     *
+     * @param millis The time to wait in milliseconds
+     * @return true if the full time passed, false if the rest of the text should be shown at once
+     */
+    private static boolean pause(long millis)
+    {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        synchronized (typingLock)
+        {
+            long remaining = deadline - System.nanoTime();
+            while (!skipping && remaining > 0)
+            {
+                try
+                {
+                    TimeUnit.NANOSECONDS.timedWait(typingLock, remaining);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                remaining = deadline - System.nanoTime();
+            }
+            return !skipping;
+        }
+    }
+
+    /**
+     * Writes the frame from the last byte written up to an index, in one call.
+     *
+     * @param end The index after the last byte to write
+     */
+    private void writeRange(int end)
+    {
+        if (end <= this.written)
+        {
+            return;
+        }
+        try
+        {
+            this.target.write(this.frame, this.written, end - this.written);
+            this.target.flush();
+        }
+        catch (IOException e)
+        {
+            // Console output errors are ignored, as System.out does
+        }
+        GameMetrics.consoleWritten(end - this.written);
+        this.written = end;
+    }
+}
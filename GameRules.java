@@ -0,0 +1,454 @@
+/**
+ * GameRules holds the numbers that decide how hard a quest is: the power of
+ * each creature type, the win chance for each point of power difference,
+ * the damage the winner and loser of a fight take, the damage at which a
+ * creature dies, and the chance that a cave holds a creature.
+ *
+ * The constants are the standard rules played by the game. A GameRules
+ * object starts with the standard rules and can be changed with its
+ * setters, so other rules can be tried with QuestSimulator and BalanceSweep
+ * without touching the game itself.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+public class GameRules
+{
+    public static final int HOBBIT_POWER = 3;
+    public static final int ELF_POWER = 5;
+    public static final int DWARF_POWER = 7;
+    public static final int ORC_POWER = 5;
+    public static final int TROLL_POWER = 9;
+    public static final int GOBLIN_POWER = 3;
+    public static final int MAX_DAMAGE_POINTS = 10; // Damage points at which a creature dies
+    public static final int WIN_DAMAGE = 1; // Damage taken by the winner of a fight
+    public static final int LOSS_DAMAGE = 4; // Damage taken by the loser of a fight
+    public static final int SPAWN_CHANCE = 75; // Percentage of caves with a creature
+    public static final int WIN_CHANCE_STEP = 10; // Change in win chance for each point of power difference
+    public static final int MAX_POWER_DIFFERENCE = 4; // Differences beyond this give the same chance
+    private static final int EVEN_WIN_CHANCE = 50; // Win chance for equal power
+
+    // Names of the rules, for get() and set()
+    public static final String[] PARAMETER_NAMES = {"hobbit", "elf", "dwarf", "orc", "troll", "goblin",
+            "max-damage", "win-damage", "loss-damage", "spawn", "win-step"};
+
+    private int hobbitPower;
+    private int elfPower;
+    private int dwarfPower;
+    private int orcPower;
+    private int trollPower;
+    private int goblinPower;
+    private int maxDamagePoints;
+    private int winDamage;
+    private int lossDamage;
+    private int spawnChance;
+    private int winChanceStep;
+
+    /**
+     * Default constructor for GameRules, with the standard rules.
+     */
+    public GameRules()
+    {
+        this.hobbitPower = HOBBIT_POWER;
+        this.elfPower = ELF_POWER;
+        this.dwarfPower = DWARF_POWER;
+        this.orcPower = ORC_POWER;
+        this.trollPower = TROLL_POWER;
+        this.goblinPower = GOBLIN_POWER;
+        this.maxDamagePoints = MAX_DAMAGE_POINTS;
+        this.winDamage = WIN_DAMAGE;
+        this.lossDamage = LOSS_DAMAGE;
+        this.spawnChance = SPAWN_CHANCE;
+        this.winChanceStep = WIN_CHANCE_STEP;
+    }
+
+    /**
+     * Looks up the win chance for a power difference: 50% for equal power,
+     * and one step more or less for each point of difference, up to
+     * MAX_POWER_DIFFERENCE points. With the standard step of 10% this runs
+     * from 10% to 90%.
+     *
+     * @param powerDifference The power of the fighter minus the power of the opponent
+     * @return The win chance as a percentage
+     */
+    public int getWinChance(int powerDifference)
+    {
+        int clamped = Math.max(-MAX_POWER_DIFFERENCE, Math.min(MAX_POWER_DIFFERENCE, powerDifference));
+        return EVEN_WIN_CHANCE + clamped * this.winChanceStep;
+    }
+
+    /**
+     * Gets the power of an evil creature type.
+     *
+     * @param type The type, in the order of CreatureSpawner (0 = Orc, 1 = Troll, 2 = Goblin)
+     * @return The power
+     */
+    public int getEvilPower(int type)
+    {
+        switch (type)
+        {
+            case 0:
+                return this.orcPower;
+            case 1:
+                return this.trollPower;
+            case 2:
+            default:
+                return this.goblinPower;
+        }
+    }
+
+    /**
+     * Gets the power of a Hobbit.
+     *
+     * @return The power
+     */
+    public int getHobbitPower()
+    {
+        return this.hobbitPower;
+    }
+
+    /**
+     * Gets the power of an Elf.
+     *
+     * @return The power
+     */
+    public int getElfPower()
+    {
+        return this.elfPower;
+    }
+
+    /**
+     * Gets the power of a Dwarf.
+     *
+     * @return The power
+     */
+    public int getDwarfPower()
+    {
+        return this.dwarfPower;
+    }
+
+    /**
+     * Gets the power of an Orc.
+     *
+     * @return The power
+     */
+    public int getOrcPower()
+    {
+        return this.orcPower;
+    }
+
+    /**
+     * Gets the power of a Troll.
+     *
+     * @return The power
+     */
+    public int getTrollPower()
+    {
+        return this.trollPower;
+    }
+
+    /**
+     * Gets the power of a Goblin.
+     *
+     * @return The power
+     */
+    public int getGoblinPower()
+    {
+        return this.goblinPower;
+    }
+
+    /**
+     * Gets the damage points at which a creature dies.
+     *
+     * @return The maximum damage points
+     */
+    public int getMaxDamagePoints()
+    {
+        return this.maxDamagePoints;
+    }
+
+    /**
+     * Gets the damage taken by the winner of a fight.
+     *
+     * @return The damage points
+     */
+    public int getWinDamage()
+    {
+        return this.winDamage;
+    }
+
+    /**
+     * Gets the damage taken by the loser of a fight.
+     *
+     * @return The damage points
+     */
+    public int getLossDamage()
+    {
+        return this.lossDamage;
+    }
+
+    /**
+     * Gets the chance that a cave holds a creature.
+     *
+     * @return The spawn chance as a percentage
+     */
+    public int getSpawnChance()
+    {
+        return this.spawnChance;
+    }
+
+    /**
+     * Gets the change in win chance for each point of power difference.
+     *
+     * @return The step as a percentage
+     */
+    public int getWinChanceStep()
+    {
+        return this.winChanceStep;
+    }
+
+    /**
+     * Sets the power of a Hobbit.
+     *
+     * @param power The power, at least 1
+     */
+    public void setHobbitPower(int power)
+    {
+        if (power >= 1)
+        {
+            this.hobbitPower = power;
+        }
+    }
+
+    /**
+     * Sets the power of an Elf.
+     *
+     * @param power The power, at least 1
+     */
+    public void setElfPower(int power)
+    {
+        if (power >= 1)
+        {
+            this.elfPower = power;
+        }
+    }
+
+    /**
+     * Sets the power of a Dwarf.
+     *
+     * @param power The power, at least 1
+     */
+    public void setDwarfPower(int power)
+    {
+        if (power >= 1)
+        {
+            this.dwarfPower = power;
+        }
+    }
+
+    /**
+     * Sets the power of an Orc.
+     *
+     * @param power The power, at least 1
+     */
+    public void setOrcPower(int power)
+    {
+        if (power >= 1)
+        {
+            this.orcPower = power;
+        }
+    }
+
+    /**
+     * Sets the power of a Troll.
+     *
+     * @param power The power, at least 1
+     */
+    public void setTrollPower(int power)
+    {
+        if (power >= 1)
+        {
+            this.trollPower = power;
+        }
+    }
+
+    /**
+     * Sets the power of a Goblin.
+     *
+     * @param power The power, at least 1
+     */
+    public void setGoblinPower(int power)
+    {
+        if (power >= 1)
+        {
+            this.goblinPower = power;
+        }
+    }
+
+    /**
+     * Sets the damage points at which a creature dies.
+     *
+     * @param maxDamagePoints The maximum damage points, at least 1
+     */
+    public void setMaxDamagePoints(int maxDamagePoints)
+    {
+        if (maxDamagePoints >= 1)
+        {
+            this.maxDamagePoints = maxDamagePoints;
+        }
+    }
+
+    /**
+     * Sets the damage taken by the winner of a fight.
+     *
+     * @param winDamage The damage points, at least 0
+     */
+    public void setWinDamage(int winDamage)
+    {
+        if (winDamage >= 0)
+        {
+            this.winDamage = winDamage;
+        }
+    }
+
+    /**
+     * Sets the damage taken by the loser of a fight.
+     *
+     * @param lossDamage The damage points, at least 0
+     */
+    public void setLossDamage(int lossDamage)
+    {
+        if (lossDamage >= 0)
+        {
+            this.lossDamage = lossDamage;
+        }
+    }
+
+    /**
+     * Sets the chance that a cave holds a creature.
+     *
+     * @param spawnChance The spawn chance, from 0 to 100 percent
+     */
+    public void setSpawnChance(int spawnChance)
+    {
+        if (spawnChance >= 0 && spawnChance <= 100)
+        {
+            this.spawnChance = spawnChance;
+        }
+    }
+
+    /**
+     * Sets the change in win chance for each point of power difference.
+     * The step must keep every win chance between 0% and 100%.
+     *
+     * @param winChanceStep The step, from 0 to 12 percent
+     */
+    public void setWinChanceStep(int winChanceStep)
+    {
+        if (winChanceStep >= 0 && winChanceStep * MAX_POWER_DIFFERENCE <= EVEN_WIN_CHANCE)
+        {
+            this.winChanceStep = winChanceStep;
+        }
+    }
+
+    /**
+     * Gets a rule by name.
+     *
+     * @param name One of PARAMETER_NAMES
+     * @return The value, or -1 if there is no rule with this name
+     */
+    public int get(String name)
+    {
+        switch (name)
+        {
+            case "hobbit":
+                return this.hobbitPower;
+            case "elf":
+                return this.elfPower;
+            case "dwarf":
+                return this.dwarfPower;
+            case "orc":
+                return this.orcPower;
+            case "troll":
+                return this.trollPower;
+            case "goblin":
+                return this.goblinPower;
+            case "max-damage":
+                return this.maxDamagePoints;
+            case "win-damage":
+                return this.winDamage;
+            case "loss-damage":
+                return this.lossDamage;
+            case "spawn":
+                return this.spawnChance;
+            case "win-step":
+                return this.winChanceStep;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Sets a rule by name, with the same checks as its setter.
+     *
+     * @param name One of PARAMETER_NAMES
+     * @param value The new value
+     * @return true if the rule exists and the value was accepted
+     */
+    public boolean set(String name, int value)
+    {
+        switch (name)
+        {
+            case "hobbit":
+                this.setHobbitPower(value);
+                break;
+            case "elf":
+                this.setElfPower(value);
+                break;
+            case "dwarf":
+                this.setDwarfPower(value);
+                break;
+            case "orc":
+                this.setOrcPower(value);
+                break;
+            case "troll":
+                this.setTrollPower(value);
+                break;
+            case "goblin":
+                this.setGoblinPower(value);
+                break;
+            case "max-damage":
+                this.setMaxDamagePoints(value);
+                break;
+            case "win-damage":
+                this.setWinDamage(value);
+                break;
+            case "loss-damage":
+                this.setLossDamage(value);
+                break;
+            case "spawn":
+                this.setSpawnChance(value);
+                break;
+            case "win-step":
+                this.setWinChanceStep(value);
+                break;
+            default:
+                return false;
+        }
+        return this.get(name) == value;
+    }
+
+    /**
+     * Describes the rules in one line.
+     *
+     * @return The rules, e.g. "powers 3/5/7 vs 5/9/3, win step 10%, damage +1/+4 of 10, spawn 75%"
+     */
+    @Override
+    public String toString()
+    {
+        return "powers " + this.hobbitPower + "/" + this.elfPower + "/" + this.dwarfPower + " vs " +
+                this.orcPower + "/" + this.trollPower + "/" + this.goblinPower + ", win step " +
+                this.winChanceStep + "%, damage +" + this.winDamage + "/+" + this.lossDamage + " of " +
+                this.maxDamagePoints + ", spawn " + this.spawnChance + "%";
+    }
+}
@@ -3,42 +3,100 @@
  * 
  * @version 1.0
  */
+import java.nio.charset.StandardCharsets;
+
 public class GameUtils
 {
-    private static final int DEFAULT_TYPING_SPEED = 30; // milliseconds between characters
+    private static final int DEFAULT_TYPING_SPEED = 30; // milliseconds between characters, adjust as desired (higher number = slower typing)
+    private static final int MAX_TYPING_SPEED = 1000; // slowest speed the player can choose with the speed command
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8); // written as bytes, as println() allocates to encode it
+
+    private static int typingSpeed = DEFAULT_TYPING_SPEED; // 0 prints text at once (used by script mode)
     
     /**
      * Types text character by character with a delay for a typing effect
      * to improve user experience and readability.
      *
      * @param text The text to display with typing effect
-     * @param typingSpeed The delay in milliseconds between characters
+     * @param typingSpeed The delay in milliseconds between characters (0 prints the text at once)
      */
     public static void typeText(String text, int typingSpeed)
     {
-        for (char c : text.toCharArray())
+        if (typingSpeed <= 0 || GameOutput.isSkipping())
         {
-            System.out.print(c);
-            try
-            {
-                Thread.sleep(typingSpeed);
-            }
-            catch (InterruptedException e)
-            {
-                // Continue if interrupted
-            }
+            System.out.println(text);
+            return;
         }
+
+        // Earlier output appears at once; only this text is typed out
+        GameOutput.writePending();
+        System.out.print(text);
+        GameOutput.reveal(typingSpeed);
         System.out.println();
     }
     
     /**
-     * Types text with default typing speed.
+     * Types the text in a buffer with the current typing speed, writing the
+     * bytes and the line break directly so that nothing is allocated.
+     *
+     * @param text The text to display
+     */
+    public static void typeText(TextBuffer text)
+    {
+        if (typingSpeed <= 0 || GameOutput.isSkipping())
+        {
+            text.writeTo(System.out, 0, text.length());
+            System.out.write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+            return;
+        }
+
+        GameOutput.writePending();
+        text.writeTo(System.out, 0, text.length());
+        GameOutput.reveal(typingSpeed);
+        System.out.write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+    }
+
+    /**
+     * Types text with the current typing speed.
      *
      * @param text The text to display
      */
     public static void typeText(String text)
     {
-        typeText(text, DEFAULT_TYPING_SPEED);
+        typeText(text, typingSpeed);
+    }
+
+    /**
+     * Gets the current typing speed.
+     *
+     * @return The delay in milliseconds between characters
+     */
+    public static int getTypingSpeed()
+    {
+        return typingSpeed;
+    }
+
+    /**
+     * Gets the slowest typing speed that can be set.
+     *
+     * @return The maximum delay in milliseconds between characters
+     */
+    public static int getMaxTypingSpeed()
+    {
+        return MAX_TYPING_SPEED;
+    }
+
+    /**
+     * Sets the typing speed used by typeText(String).
+     *
+     * @param speed The delay in milliseconds between characters (0 prints text at once, at most getMaxTypingSpeed())
+     */
+    public static void setTypingSpeed(int speed)
+    {
+        if (speed >= 0 && speed <= MAX_TYPING_SPEED)
+        {
+            typingSpeed = speed;
+        }
     }
     
     /**
@@ -6,7 +6,7 @@
  */
 public class Goblin extends EvilCreature
 {
-    private static final int GOBLIN_POWER = 3;
+    private static final int GOBLIN_POWER = GameRules.GOBLIN_POWER;
     
     /**
      * Default constructor for Goblin.
@@ -41,6 +41,19 @@ public abstract class GoodCreature extends Creature
      * @return true if this creature wins, false otherwise
      */
     public boolean fight(Creature opponent, Random random, Scanner scanner)
+    {
+        return this.fight(opponent, random, new GameInput(scanner));
+    }
+    
+    /**
+     * Implements the fight method for good creatures, handling special weapons.
+     * 
+     * @param opponent The creature to fight against
+     * @param random A random number generator for determining fight outcome
+     * @param input Source of player input
+     * @return true if this creature wins, false otherwise
+     */
+    public boolean fight(Creature opponent, Random random, GameInput input)
     {
         // Check if special weapon can be used
         boolean useSpecialWeapon = false;
@@ -55,7 +68,7 @@ public abstract class GoodCreature extends Creature
 
             while(!validInput)
             {
-                choice = scanner.nextLine();
+                choice = input.nextLine();
                 if (choice.equalsIgnoreCase("exit"))
                 {
                     GameUtils.typeText("\nExiting the game. Thanks for playing!");
@@ -84,6 +97,7 @@ public abstract class GoodCreature extends Creature
         if (useSpecialWeapon)
         {
             GameUtils.typeText("The special weapon instantly defeats " + opponent.getName() + "!");
+            this.setLastRoll(0);
             return true; // Special weapon always wins
         }
         else
@@ -94,6 +108,7 @@ public abstract class GoodCreature extends Creature
             
             int roll = random.nextInt(100) + 1;
             boolean wins = roll <= winChance;
+            this.setLastRoll(roll);
             
             GameUtils.typeText("Power difference: " + powerDifference);
             GameUtils.typeText("Win chance: " + winChance + "%");
@@ -119,6 +134,7 @@ public abstract class GoodCreature extends Creature
         int winChance = calculateWinChance(powerDifference);
         
         int roll = random.nextInt(100) + 1;
+        this.setLastRoll(roll);
         return roll <= winChance;
     }
     
@@ -6,7 +6,7 @@
  */
 public class Hobbit extends GoodCreature
 {
-    private static final int HOBBIT_POWER = 3;
+    private static final int HOBBIT_POWER = GameRules.HOBBIT_POWER;
     
     /**
      * Default constructor for Hobbit.
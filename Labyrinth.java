@@ -0,0 +1,253 @@
+/**
+ * Labyrinth holds a loaded labyrinth together with the indexes built from it:
+ * caves by id, the route planner and the integrity report. Everything is
+ * built by load(), so the whole labyrinth can be prepared on a background
+ * thread while the player creates their Fellowship.
+ *
+ * A labyrinth too large for Cave objects can be loaded with loadPaged(),
+ * which reads caves page by page from a CavePageStore as they are needed,
+ * or with loadOffHeap(), which holds every cave as a packed record outside
+ * the heap in an OffHeapCaveTable. Such a labyrinth has no cave list, route
+ * planner or integrity report, as those need every cave as an object.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+
+public class Labyrinth
+{
+    private ArrayList<Cave> caves;
+    private CaveIdIndex index; // position of each cave in caves, by id
+    private ArrayList<String> loadWarnings;
+    private LabyrinthReport report;
+    private RoutePlanner routePlanner;
+    private CaveStore store; // where caves are made from on demand, or null if every cave is in the list
+
+    /**
+     * Non-default constructor for Labyrinth. Builds the cave index; use
+     * load() to also build the route planner and integrity report.
+     *
+     * @param caves The caves of the labyrinth, start cave first
+     */
+    public Labyrinth(ArrayList<Cave> caves)
+    {
+        this.caves = caves;
+        this.index = new CaveIdIndex(caves.size());
+        for (int i = 0; i < caves.size(); i++)
+        {
+            this.index.putIfAbsent(caves.get(i).getId(), i); // The first cave with an id is found
+        }
+        this.loadWarnings = new ArrayList<>();
+        this.report = null;
+        this.routePlanner = null;
+        this.store = null;
+    }
+
+    /**
+     * Loads a labyrinth file and builds its indexes. Nothing is printed, so
+     * this can run on a background thread; invalid lines are kept as load
+     * warnings instead.
+     *
+     * @param filename The labyrinth file to load
+     * @param reorderMode "bfs" or "rcm" to renumber the caves, or null to keep the file order
+     * @return The loaded labyrinth
+     * @throws FileNotFoundException if the labyrinth file is not found
+     * @throws IOException if there is an error reading the file
+     */
+    public static Labyrinth load(String filename, String reorderMode) throws FileNotFoundException, IOException
+    {
+        ArrayList<String> warnings = new ArrayList<>();
+        ArrayList<Cave> caves = GameFileHandler.loadLabyrinth(filename, warnings);
+
+        // Renumber caves so that neighbours are stored close together
+        if (reorderMode != null && !caves.isEmpty())
+        {
+            caves = LabyrinthReorderer.reorder(caves, reorderMode);
+        }
+
+        Labyrinth labyrinth = new Labyrinth(caves);
+        labyrinth.loadWarnings = warnings;
+        if (!caves.isEmpty())
+        {
+            labyrinth.routePlanner = new RoutePlanner(caves, labyrinth.index);
+            labyrinth.report = LabyrinthAnalyzer.analyze(LabyrinthGraph.fromCaves(caves));
+        }
+        return labyrinth;
+    }
+
+    /**
+     * Opens a labyrinth file for paged access, converting it to a page file
+     * first if needed. Nothing is printed, so this can run on a background
+     * thread; invalid lines are kept as load warnings instead.
+     *
+     * @param filename The labyrinth file to load
+     * @param cachePages The largest number of pages of caves held in memory
+     * @return The paged labyrinth
+     * @throws FileNotFoundException if the labyrinth file is not found
+     * @throws IOException if the file cannot be converted or read
+     */
+    public static Labyrinth loadPaged(String filename, int cachePages) throws FileNotFoundException, IOException
+    {
+        ArrayList<String> warnings = new ArrayList<>();
+        CavePageStore pages = CavePageStore.open(filename, cachePages, warnings);
+        Labyrinth labyrinth = new Labyrinth(new ArrayList<>());
+        labyrinth.loadWarnings = warnings;
+        labyrinth.store = pages;
+        return labyrinth;
+    }
+
+    /**
+     * Loads a labyrinth file into an off-heap cave table, converting it to
+     * a page file first if needed. Nothing is printed, so this can run on a
+     * background thread; invalid lines are kept as load warnings instead.
+     *
+     * @param filename The labyrinth file to load
+     * @return The labyrinth, held outside the heap
+     * @throws FileNotFoundException if the labyrinth file is not found
+     * @throws IOException if the file cannot be converted or read
+     */
+    public static Labyrinth loadOffHeap(String filename) throws FileNotFoundException, IOException
+    {
+        ArrayList<String> warnings = new ArrayList<>();
+        OffHeapCaveTable table = OffHeapCaveTable.open(filename, warnings);
+        Labyrinth labyrinth = new Labyrinth(new ArrayList<>());
+        labyrinth.loadWarnings = warnings;
+        labyrinth.store = table;
+        return labyrinth;
+    }
+
+    /**
+     * Finds a cave by its id.
+     *
+     * @param id The cave id
+     * @return The cave, or null if there is no cave with that id
+     */
+    public Cave findCave(int id)
+    {
+        if (this.store != null)
+        {
+            return this.store.findCave(id);
+        }
+
+        // The int index avoids boxing the id, so lookups create no garbage
+        int position = this.index.get(id);
+        return position == CaveIdIndex.NOT_FOUND ? null : this.caves.get(position);
+    }
+
+    /**
+     * Gets the cave the quest starts in.
+     *
+     * @return The first cave of the labyrinth
+     */
+    public Cave getStartCave()
+    {
+        if (this.store != null)
+        {
+            return this.store.getStartCave();
+        }
+        return this.caves.get(0);
+    }
+
+    /**
+     * Gets the caves of the labyrinth.
+     *
+     * @return The caves, start cave first, or an empty list if caves are made on demand
+     */
+    public ArrayList<Cave> getCaves()
+    {
+        return this.caves;
+    }
+
+    /**
+     * Gets the warnings for invalid lines found while loading.
+     *
+     * @return The load warnings
+     */
+    public ArrayList<String> getLoadWarnings()
+    {
+        return this.loadWarnings;
+    }
+
+    /**
+     * Gets the integrity report.
+     *
+     * @return The report, or null if the labyrinth was not built by load() or is empty
+     */
+    public LabyrinthReport getReport()
+    {
+        return this.report;
+    }
+
+    /**
+     * Gets the route planner.
+     *
+     * @return The route planner, or null if the labyrinth was not built by load() or is empty
+     */
+    public RoutePlanner getRoutePlanner()
+    {
+        return this.routePlanner;
+    }
+
+    /**
+     * Checks if the labyrinth has no caves.
+     *
+     * @return true if no caves were loaded
+     */
+    public boolean isEmpty()
+    {
+        return this.size() == 0;
+    }
+
+    /**
+     * Checks if caves are made on demand from a cave store, rather than
+     * all held in the cave list.
+     *
+     * @return true if the labyrinth was loaded by loadPaged() or loadOffHeap()
+     */
+    public boolean isStored()
+    {
+        return this.store != null;
+    }
+
+    /**
+     * Tells the cave store which cave the Fellowship has entered, so the
+     * state of the caves it meets creatures in is not lost when caves are
+     * made on demand. Caves in the cave list are always kept.
+     *
+     * @param cave The cave to keep
+     */
+    public void keep(Cave cave)
+    {
+        if (this.store != null)
+        {
+            this.store.keep(cave);
+        }
+    }
+
+    /**
+     * Closes the file caves are read from, if caves are made on demand.
+     * The labyrinth is not used after this.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    public void close() throws IOException
+    {
+        if (this.store != null)
+        {
+            this.store.close();
+        }
+    }
+
+    /**
+     * Gets the number of caves.
+     *
+     * @return The number of caves
+     */
+    public int size()
+    {
+        return this.store != null ? this.store.size() : this.caves.size();
+    }
+}
@@ -0,0 +1,288 @@
+/**
+ * LabyrinthAnalyzer checks the integrity of a loaded labyrinth: duplicate ids,
+ * passages to caves that do not exist, caves unreachable from the start cave,
+ * one-way passages, strongly connected components, and whether Mount Api can
+ * be reached at all. The independent checks run in parallel on the primitive
+ * arrays of a LabyrinthGraph.
+ *
+ * To analyse a labyrinth file from the command line, use:
+ *       java LabyrinthAnalyzer labyrinth.txt
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+public class LabyrinthAnalyzer
+{
+    private static final int CHUNK_SIZE = 1 << 16; // Caves checked per parallel task
+    private static final String[] DIRECTIONS = {"North", "East", "South", "West"};
+
+    /**
+     * Analyses a labyrinth.
+     *
+     * @param graph The labyrinth to analyse
+     * @return The analysis report
+     */
+    public static LabyrinthReport analyze(LabyrinthGraph graph)
+    {
+        long start = System.nanoTime();
+        LabyrinthReport report = new LabyrinthReport(graph.size());
+        report.setDuplicateIds(graph.getDuplicateIds());
+
+        CompletableFuture<Void> passages = CompletableFuture.runAsync(() -> checkPassages(graph, report));
+        CompletableFuture<Void> reachability = CompletableFuture.runAsync(() -> checkReachability(graph, report));
+        CompletableFuture<Void> components = CompletableFuture.runAsync(() -> findComponents(graph, report));
+        CompletableFuture.allOf(passages, reachability, components).join();
+
+        report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    /**
+     * Counts dangling and one-way passages, splitting the caves into chunks
+     * that are checked in parallel.
+     *
+     * @param graph The labyrinth to analyse
+     * @param report The report to fill in
+     */
+    private static void checkPassages(LabyrinthGraph graph, LabyrinthReport report)
+    {
+        LongAdder danglingCount = new LongAdder();
+        LongAdder oneWayCount = new LongAdder();
+        List<String> danglingExamples = Collections.synchronizedList(new ArrayList<>());
+        List<String> oneWayExamples = Collections.synchronizedList(new ArrayList<>());
+        int chunks = (graph.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+        {
+            int end = Math.min(graph.size(), (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++)
+            {
+                for (int d = 0; d < 4; d++)
+                {
+                    int target = graph.getNeighbour(i, d);
+                    if (target == LabyrinthGraph.NO_CAVE && graph.getPassage(i, d) != 0)
+                    {
+                        danglingCount.increment();
+                        if (danglingExamples.size() < LabyrinthReport.getMaxExamples())
+                        {
+                            danglingExamples.add("Cave " + graph.getId(i) + " " + DIRECTIONS[d] +
+                                    " -> " + graph.getPassage(i, d));
+                        }
+                    }
+                    else if (target >= 0 && target != graph.getMountApiIndex() && !leadsTo(graph, target, i))
+                    {
+                        oneWayCount.increment();
+                        if (oneWayExamples.size() < LabyrinthReport.getMaxExamples())
+                        {
+                            oneWayExamples.add("Cave " + graph.getId(i) + " " + DIRECTIONS[d] +
+                                    " -> Cave " + graph.getId(target));
+                        }
+                    }
+                }
+            }
+        });
+
+        report.setDangling(danglingCount.sum(), danglingExamples);
+        report.setOneWay(oneWayCount.sum(), oneWayExamples);
+    }
+
+    /**
+     * Checks if any passage of a cave leads to another cave.
+     *
+     * @param graph The labyrinth
+     * @param from The index of the cave to check
+     * @param to The index of the cave to look for
+     * @return true if there is a passage from one cave to the other
+     */
+    private static boolean leadsTo(LabyrinthGraph graph, int from, int to)
+    {
+        for (int d = 0; d < 4; d++)
+        {
+            if (graph.getNeighbour(from, d) == to)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs a breadth-first search from the start cave (index 0) to find
+     * unreachable caves and whether Mount Api can be reached.
+     *
+     * @param graph The labyrinth to analyse
+     * @param report The report to fill in
+     */
+    private static void checkReachability(LabyrinthGraph graph, LabyrinthReport report)
+    {
+        int size = graph.size();
+        if (size == 0)
+        {
+            report.setReachability(0, new ArrayList<>(), false);
+            return;
+        }
+
+        boolean[] reached = new boolean[size];
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        boolean mountApiReachable = false;
+        reached[0] = true;
+        queue[tail++] = 0;
+
+        while (head < tail)
+        {
+            int cave = queue[head++];
+            for (int d = 0; d < 4; d++)
+            {
+                if (graph.leadsToMountApi(cave, d))
+                {
+                    mountApiReachable = true;
+                }
+                int target = graph.getNeighbour(cave, d);
+                if (target >= 0 && !reached[target])
+                {
+                    reached[target] = true;
+                    queue[tail++] = target;
+                }
+            }
+        }
+
+        ArrayList<Integer> examples = new ArrayList<>();
+        int unreachable = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (!reached[i] && i != graph.getMountApiIndex())
+            {
+                unreachable++;
+                if (examples.size() < LabyrinthReport.getMaxExamples())
+                {
+                    examples.add(graph.getId(i));
+                }
+            }
+        }
+        report.setReachability(unreachable, examples, mountApiReachable);
+    }
+
+    /**
+     * Finds the strongly connected components with an iterative version of
+     * Tarjan's algorithm, so that long paths cannot overflow the call stack.
+     *
+     * @param graph The labyrinth to analyse
+     * @param report The report to fill in
+     */
+    private static void findComponents(LabyrinthGraph graph, LabyrinthReport report)
+    {
+        int size = graph.size();
+        int[] order = new int[size]; // discovery order + 1, or 0 if not yet visited
+        int[] low = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] stack = new int[size];
+        int stackSize = 0;
+        int[] callStack = new int[size];
+        int[] nextDirection = new int[size];
+        int counter = 0;
+        int componentCount = 0;
+        int largest = 0;
+
+        for (int root = 0; root < size; root++)
+        {
+            if (order[root] != 0)
+            {
+                continue;
+            }
+
+            int depth = 0;
+            callStack[depth++] = root;
+            order[root] = low[root] = ++counter;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            nextDirection[root] = 0;
+
+            while (depth > 0)
+            {
+                int cave = callStack[depth - 1];
+                if (nextDirection[cave] < 4)
+                {
+                    int target = graph.getNeighbour(cave, nextDirection[cave]++);
+                    if (target < 0)
+                    {
+                        continue;
+                    }
+                    if (order[target] == 0)
+                    {
+                        order[target] = low[target] = ++counter;
+                        stack[stackSize++] = target;
+                        onStack[target] = true;
+                        nextDirection[target] = 0;
+                        callStack[depth++] = target;
+                    }
+                    else if (onStack[target])
+                    {
+                        low[cave] = Math.min(low[cave], order[target]);
+                    }
+                    continue;
+                }
+
+                // All passages explored: close the component if this cave is its root
+                depth--;
+                if (depth > 0)
+                {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[cave]);
+                }
+                if (low[cave] == order[cave])
+                {
+                    int componentSize = 0;
+                    int member;
+                    do
+                    {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        componentSize++;
+                    }
+                    while (member != cave);
+                    componentCount++;
+                    largest = Math.max(largest, componentSize);
+                }
+            }
+        }
+
+        report.setComponents(componentCount, largest);
+    }
+
+    /**
+     * Main method to analyse a labyrinth file.
+     *
+     * @param args The labyrinth file to analyse (labyrinth.txt if not given)
+     */
+    public static void main(String[] args)
+    {
+        String filename = args.length > 0 ? args[0] : "labyrinth.txt";
+        try
+        {
+            long start = System.nanoTime();
+            ArrayList<String> warnings = new ArrayList<>();
+            LabyrinthGraph graph = GameFileHandler.loadLabyrinthGraph(filename, warnings);
+            System.out.println("Loaded " + graph.size() + " caves from " + filename + " in " +
+                    (System.nanoTime() - start) / 1_000_000 + " ms");
+            for (String warning : warnings)
+            {
+                System.out.println("Warning: " + warning);
+            }
+            System.out.println(analyze(graph));
+        }
+        catch (IOException e)
+        {
+            System.out.println("Error loading labyrinth: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/**
+* LabyrinthAnalyzerTest is a test class for the LabyrinthAnalyzer class.
+*
+* NOTE: This test class uses assertions. When running from the command line,
+* use the -ea flag to enable assertions:
+*       java -ea LabyrinthAnalyzerTest
+*
+* @author Nicholas Battle
+* @version 1.0
+*/
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+public class LabyrinthAnalyzerTest
+{
+    /**
+    * Default constructor for LabyrinthAnalyzerTest.
+    */
+    public LabyrinthAnalyzerTest()
+    {
+
+    }
+
+    /**
+    * Main method to run tests for the LabyrinthAnalyzer class.
+    *
+    * @param args Command line arguments
+    */
+    public static void main(String[] args)
+    {
+        // Check if assertions are enabled
+        boolean assertionsEnabled = false;
+        try
+        {
+            assert false;
+        }
+        catch (AssertionError e)
+        {
+            assertionsEnabled = true;
+        }
+
+        if (!assertionsEnabled)
+        {
+            System.out.println("WARNING: Assertions are disabled. Tests will run but not verify results");
+            System.out.println("Please enable assertions with the -ea flag (java -ea LabyrinthAnalyzerTest)");
+            System.out.println();
+        }
+
+        System.out.println("=== LabyrinthAnalyzer Class Test Suite ===");
+
+        // Test a well-formed labyrinth
+        testValidLabyrinth();
+
+        // Test duplicate and dangling ids
+        testDuplicateAndDanglingIds();
+
+        // Test reachability
+        testReachability();
+
+        // Test strongly connected components
+        testComponents();
+
+        // Test that both labyrinth loaders accept the same lines
+        testLoadersAgree();
+
+        System.out.println("\nAll tests completed.");
+    }
+
+    /**
+    * Builds a labyrinth from rows of id, north, east, south, west.
+    *
+    * @param rows The cave rows
+    * @return The labyrinth as a graph
+    */
+    private static LabyrinthGraph buildGraph(int[][] rows)
+    {
+        ArrayList<Cave> labyrinth = new ArrayList<>();
+        for (int[] row : rows)
+        {
+            labyrinth.add(new Cave(row[0], row[1], row[2], row[3], row[4]));
+        }
+        return LabyrinthGraph.fromCaves(labyrinth);
+    }
+
+    /**
+    * Tests a small labyrinth with two-way passages and a path to Mount Api.
+    */
+    private static void testValidLabyrinth()
+    {
+        System.out.println("\n--- Testing Valid Labyrinth ---");
+
+        // 1 <-> 2 <-> 3, and 3 leads east to Mount Api
+        LabyrinthReport report = LabyrinthAnalyzer.analyze(buildGraph(new int[][] {
+            {1, 0, 2, 0, 0},
+            {2, 0, 3, 0, 1},
+            {3, 0, 100, 0, 2},
+            {100, 0, 0, 0, 0}
+        }));
+        System.out.println(report);
+        assert report.getDuplicateIds().isEmpty() : "There should be no duplicate ids";
+        assert report.getDanglingCount() == 0 : "There should be no dangling passages";
+        assert report.getOneWayCount() == 0 : "Passages to Mount Api should not count as one-way";
+        assert report.getUnreachableCount() == 0 : "The Mount Api cave should not count as unreachable";
+        assert report.isMountApiReachable() : "Mount Api should be reachable";
+        assert report.isPlayable() : "Labyrinth should be playable";
+        assert report.getWarnings().isEmpty() : "There should be no warnings";
+
+        System.out.println("Valid labyrinth tests passed.");
+    }
+
+    /**
+    * Tests detection of duplicate ids and passages to missing caves.
+    */
+    private static void testDuplicateAndDanglingIds()
+    {
+        System.out.println("\n--- Testing Duplicate and Dangling Ids ---");
+
+        LabyrinthReport report = LabyrinthAnalyzer.analyze(buildGraph(new int[][] {
+            {1, 7, 2, 0, 0},
+            {2, 0, 100, 0, 1},
+            {2, 0, 0, 0, 0}
+        }));
+        System.out.println(report);
+        assert report.getDuplicateIds().size() == 1 : "Id 2 should be reported once as a duplicate";
+        assert report.getDuplicateIds().get(0) == 2 : "The duplicate id should be 2";
+        assert report.getDanglingCount() == 1 : "The passage to cave 7 should be dangling";
+        assert !report.isPlayable() : "Labyrinth with duplicate ids should not be playable";
+
+        System.out.println("Duplicate and dangling id tests passed.");
+    }
+
+    /**
+    * Tests unreachable caves, one-way passages and a missing route to Mount Api.
+    */
+    private static void testReachability()
+    {
+        System.out.println("\n--- Testing Reachability ---");
+
+        // 1 -> 2 is one-way, and only the unreachable cave 3 leads to Mount Api
+        LabyrinthReport report = LabyrinthAnalyzer.analyze(buildGraph(new int[][] {
+            {1, 2, 0, 0, 0},
+            {2, 0, 0, 0, 0},
+            {3, 0, 100, 0, 0}
+        }));
+        System.out.println(report);
+        assert report.getOneWayCount() == 1 : "The passage from 1 to 2 should be one-way";
+        assert report.getUnreachableCount() == 1 : "Cave 3 should be unreachable";
+        assert !report.isMountApiReachable() : "Mount Api should not be reachable";
+        assert report.getWarnings().size() == 2 : "There should be warnings for cave 3 and Mount Api";
+
+        System.out.println("Reachability tests passed.");
+    }
+
+    /**
+    * Tests strongly connected components, including the game's labyrinth file.
+    */
+    private static void testComponents()
+    {
+        System.out.println("\n--- Testing Strongly Connected Components ---");
+
+        // Cycle 1 -> 2 -> 3 -> 1, then 3 -> 4 -> 5 -> 4
+        LabyrinthReport report = LabyrinthAnalyzer.analyze(buildGraph(new int[][] {
+            {1, 2, 0, 0, 0},
+            {2, 3, 0, 0, 0},
+            {3, 1, 4, 0, 0},
+            {4, 0, 5, 0, 0},
+            {5, 0, 0, 0, 4}
+        }));
+        System.out.println("Components: " + report.getComponentCount() +
+                ", largest: " + report.getLargestComponentSize());
+        assert report.getComponentCount() == 2 : "There should be two components";
+        assert report.getLargestComponentSize() == 3 : "The largest component should have 3 caves";
+
+        try
+        {
+            ArrayList<String> warnings = new ArrayList<>();
+            LabyrinthGraph graph = GameFileHandler.loadLabyrinthGraph("labyrinth.txt", warnings);
+            LabyrinthReport fileReport = LabyrinthAnalyzer.analyze(graph);
+            System.out.println("labyrinth.txt components: " + fileReport.getComponentCount());
+            assert warnings.isEmpty() : "labyrinth.txt should have no invalid lines";
+            assert graph.size() == 13 : "labyrinth.txt should have 13 caves";
+            assert fileReport.isPlayable() : "labyrinth.txt should be playable";
+            assert fileReport.getComponentCount() == 2 : "labyrinth.txt should have the maze and Mount Api";
+        }
+        catch (IOException e)
+        {
+            System.out.println("Skipping labyrinth.txt check: " + e.getMessage());
+        }
+
+        System.out.println("Strongly connected component tests passed.");
+    }
+
+    /**
+    * Tests that loadLabyrinthGraph accepts exactly the lines loadLabyrinth
+    * accepts, with the same values, so the analyzer checks the labyrinth the
+    * game plays.
+    */
+    private static void testLoadersAgree()
+    {
+        System.out.println("\nTesting that both loaders accept the same lines...");
+
+        String lines = "1,2,3,4,5,\n" +              // Empty fields at the end are ignored
+                "2,-2147483648,0,0,0\n" +             // Integer.MIN_VALUE
+                "3,2147483648,0,0,0\n" +              // Too large
+                "4,4294967298,0,0,0\n" +              // Wraps around to 2 without an overflow check
+                "5,+6,0,0,0,,\n" +
+                "6,1,2,3\n" +
+                "7,1,,3,4\n" +
+                "\n" +
+                "8,1,2,3,4,5\n" +
+                "9,1,2,3,4\r\n" +
+                "10,1,2,3,4\r" +                      // A lone carriage return ends a line too
+                "11,-,0,0,0\n" +
+                "12,1 ,0,0,0\n" +
+                "13,\u0661,0,0,0\n" +                 // Not an ASCII digit
+                "14,0,0,0,0";                         // No line break at the end
+        try
+        {
+            Path file = Files.createTempFile("labyrinth", ".txt");
+            Files.write(file, lines.getBytes(StandardCharsets.UTF_8));
+            ArrayList<String> caveWarnings = new ArrayList<>();
+            ArrayList<Cave> caves = GameFileHandler.loadLabyrinth(file.toString(), caveWarnings);
+            ArrayList<String> graphWarnings = new ArrayList<>();
+            LabyrinthGraph graph = GameFileHandler.loadLabyrinthGraph(file.toString(), graphWarnings);
+            Files.delete(file);
+
+            System.out.println("Caves loaded: " + caves.size() + " and " + graph.size() +
+                    ", invalid lines: " + caveWarnings.size() + " and " + graphWarnings.size());
+            assert caves.size() == 6 : "loadLabyrinth should accept 6 of the lines";
+            assert graph.size() == caves.size() : "Both loaders should accept the same lines";
+            assert graphWarnings.size() == caveWarnings.size() : "Both loaders should reject the same lines";
+            for (int i = 0; i < caves.size(); i++)
+            {
+                assert graph.getId(i) == caves.get(i).getId() : "Line ids should match";
+                for (int d = 0; d < 4; d++)
+                {
+                    assert graph.getPassage(i, d) == caves.get(i).getPassage(d) : "Passages should match";
+                }
+            }
+            assert caves.get(1).getNorth() == Integer.MIN_VALUE : "Integer.MIN_VALUE should be read";
+        }
+        catch (IOException e)
+        {
+            System.out.println("Skipping loader check: " + e.getMessage());
+        }
+
+        System.out.println("Loader agreement tests passed.");
+    }
+}
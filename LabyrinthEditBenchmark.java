@@ -0,0 +1,480 @@
+/**
+ * LabyrinthEditBenchmark measures how fast many games can navigate a
+ * labyrinth while passages are being edited, comparing SharedLabyrinth
+ * (copy-on-write versions) with a single array guarded by a StampedLock
+ * (optimistic reads, edits in place under the write lock).
+ *
+ * Reader threads walk through the labyrinth, looking up the passages again
+ * at every step. The writer opens and closes the east passages of a fixed
+ * set of caves, all in one batch each time. Every few steps each reader
+ * checks that the set is either all open or all closed; a mixed view would
+ * mean it saw half of an edit, and is counted as torn.
+ *
+ * To run the benchmark from the command line, use:
+ *       java LabyrinthEditBenchmark [caves] [readers] [seconds]
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.StampedLock;
+
+public class LabyrinthEditBenchmark
+{
+    private static final int DEFAULT_CAVES = 100_000;
+    private static final int DEFAULT_SECONDS = 2; // Measured time per run, after a warm-up of the same length
+    private static final long SEED = 42;
+    private static final int EDITED_CAVES = 64; // Caves whose east passage is opened and closed by each batch
+    private static final int CHECK_INTERVAL = 64; // Steps between checks for a half-applied edit
+    private static final long EDIT_PAUSE_NANOS = 100_000; // Pause between batches
+    private static final int EAST = 1;
+
+    // Keeps benchmark results alive so the JIT cannot remove the loops
+    private static volatile long sink;
+
+    private static volatile boolean running;
+
+    /**
+     * Main method to run the benchmark.
+     *
+     * @param args Number of caves (100,000 if not given), reader threads (the number of processors if not given)
+     *             and seconds per run (2 if not given)
+     */
+    public static void main(String[] args)
+    {
+        int caves = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CAVES;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SECONDS;
+        LabyrinthGraph graph;
+        try
+        {
+            File file = File.createTempFile("labyrinth", ".txt");
+            file.deleteOnExit();
+            new LabyrinthGenerator(caves, "grid", SEED).generate(file.getPath());
+            graph = GameFileHandler.loadLabyrinthGraph(file.getPath(), new ArrayList<>());
+            file.delete();
+        }
+        catch (IOException e)
+        {
+            System.out.println("Error preparing benchmark labyrinth: " + e.getMessage());
+            return;
+        }
+
+        int[] edited = editedCaves(graph);
+        System.out.println("=== LABYRINTH EDIT BENCHMARK (" + graph.size() + " caves, " + readers +
+                " readers, " + edited.length + " passages per edit) ===");
+        System.out.println(String.format("%-15s %-8s %18s %12s %12s",
+                "Labyrinth", "Writer", "Reads (Msteps/s)", "Edits/s", "Torn views"));
+        for (boolean writer : new boolean[] {false, true})
+        {
+            measure("copy-on-write", new SharedTarget(graph, edited), readers, writer, seconds);
+            measure("stamped-lock", new LockedTarget(graph, edited), readers, writer, seconds);
+        }
+    }
+
+    /**
+     * Picks caves with an east passage, spread evenly through the labyrinth.
+     *
+     * @param graph The labyrinth
+     * @return The indices of the caves to edit
+     */
+    private static int[] editedCaves(LabyrinthGraph graph)
+    {
+        int[] edited = new int[EDITED_CAVES];
+        int count = 0;
+        int step = Math.max(1, graph.size() / EDITED_CAVES);
+        for (int i = 0; i < graph.size() && count < EDITED_CAVES; i += step)
+        {
+            if (graph.getNeighbour(i, EAST) >= 0)
+            {
+                edited[count++] = i;
+            }
+        }
+        return Arrays.copyOf(edited, count);
+    }
+
+    /**
+     * Runs the readers, and the writer if wanted, for a warm-up and then a
+     * measured period, and prints a row of results.
+     *
+     * @param name The name of the labyrinth implementation
+     * @param target The labyrinth to navigate and edit
+     * @param readers The number of reader threads
+     * @param writer true to edit passages while the readers run
+     * @param seconds The length of each period
+     */
+    private static void measure(String name, Target target, int readers, boolean writer, int seconds)
+    {
+        AtomicLong steps = new AtomicLong();
+        AtomicLong torn = new AtomicLong();
+        AtomicLong edits = new AtomicLong();
+
+        for (int round = 0; round < 2; round++)
+        {
+            steps.set(0);
+            torn.set(0);
+            edits.set(0);
+            running = true;
+            ArrayList<Thread> threads = new ArrayList<>();
+            for (int r = 0; r < readers; r++)
+            {
+                int seed = 0x2545F491 + r;
+                threads.add(new Thread(() -> read(target, seed, steps, torn), "reader-" + r));
+            }
+            if (writer)
+            {
+                threads.add(new Thread(() -> write(target, edits), "writer"));
+            }
+
+            for (Thread thread : threads)
+            {
+                thread.start();
+            }
+            long start = System.nanoTime();
+            LockSupport.parkNanos(seconds * 1_000_000_000L);
+            running = false;
+            for (Thread thread : threads)
+            {
+                try
+                {
+                    thread.join();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+
+            // Round 0 is a warm-up
+            if (round > 0)
+            {
+                System.out.println(String.format("%-15s %-8s %18.1f %12.0f %12d", name, writer ? "yes" : "no",
+                        steps.get() * 1000.0 / elapsed, edits.get() * 1e9 / elapsed, torn.get()));
+            }
+        }
+    }
+
+    /**
+     * Walks through the labyrinth until stopped, checking now and then that
+     * no edit is seen half applied.
+     *
+     * @param target The labyrinth
+     * @param seed Seed for the walk
+     * @param steps Counter for the steps taken
+     * @param torn Counter for the half-applied edits seen
+     */
+    private static void read(Target target, int seed, AtomicLong steps, AtomicLong torn)
+    {
+        int cave = 0;
+        long count = 0;
+        long checksum = 0;
+        int state = seed;
+        while (running)
+        {
+            for (int i = 0; i < CHECK_INTERVAL; i++)
+            {
+                // xorshift keeps the walk cheap
+                state ^= state << 13;
+                state ^= state >>> 17;
+                state ^= state << 5;
+                cave = target.step(cave, state & 3);
+                checksum += cave;
+            }
+            count += CHECK_INTERVAL;
+            if (!target.isConsistent())
+            {
+                torn.incrementAndGet();
+            }
+        }
+        steps.addAndGet(count);
+        sink = checksum;
+    }
+
+    /**
+     * Closes and reopens the edited passages, one batch at a time, until stopped.
+     *
+     * @param target The labyrinth
+     * @param edits Counter for the batches applied
+     */
+    private static void write(Target target, AtomicLong edits)
+    {
+        boolean open = false;
+        while (running)
+        {
+            target.setEditedOpen(open);
+            open = !open;
+            edits.incrementAndGet();
+            LockSupport.parkNanos(EDIT_PAUSE_NANOS);
+        }
+    }
+
+    /**
+     * Target is a labyrinth the benchmark can navigate and edit.
+     */
+    private abstract static class Target
+    {
+        protected LabyrinthGraph original;
+        protected int[] edited; // indices of the caves whose east passage is edited
+
+        /**
+         * Non-default constructor for Target.
+         *
+         * @param original The labyrinth as loaded
+         * @param edited The indices of the caves to edit
+         */
+        protected Target(LabyrinthGraph original, int[] edited)
+        {
+            this.original = original;
+            this.edited = edited;
+        }
+
+        /**
+         * Takes one step, trying the directions in turn from the one given.
+         *
+         * @param cave The index of the current cave
+         * @param direction The direction to try first
+         * @return The index of the next cave, or of the start cave if there is no way on
+         */
+        public abstract int step(int cave, int direction);
+
+        /**
+         * Checks that the edited passages are all open or all closed.
+         *
+         * @return true if no half-applied edit is seen
+         */
+        public abstract boolean isConsistent();
+
+        /**
+         * Opens or closes every edited passage in one batch.
+         *
+         * @param open true to open the passages, false to close them
+         */
+        public abstract void setEditedOpen(boolean open);
+    }
+
+    /**
+     * SharedTarget navigates a SharedLabyrinth, taking the current graph at each step.
+     */
+    private static class SharedTarget extends Target
+    {
+        private SharedLabyrinth shared;
+
+        /**
+         * Non-default constructor for SharedTarget.
+         *
+         * @param original The labyrinth as loaded
+         * @param edited The indices of the caves to edit
+         */
+        public SharedTarget(LabyrinthGraph original, int[] edited)
+        {
+            super(original, edited);
+            this.shared = new SharedLabyrinth(original);
+        }
+
+        /**
+         * Takes one step in the current version of the labyrinth.
+         *
+         * @param cave The index of the current cave
+         * @param direction The direction to try first
+         * @return The index of the next cave, or of the start cave if there is no way on
+         */
+        @Override
+        public int step(int cave, int direction)
+        {
+            LabyrinthGraph graph = this.shared.getGraph();
+            for (int d = 0; d < 4; d++)
+            {
+                int next = graph.getNeighbour(cave, (direction + d) & 3);
+                if (next >= 0)
+                {
+                    return next;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Checks the edited passages in the current version of the labyrinth.
+         *
+         * @return true if no half-applied edit is seen
+         */
+        @Override
+        public boolean isConsistent()
+        {
+            LabyrinthGraph graph = this.shared.getGraph();
+            boolean open = graph.getNeighbour(this.edited[0], EAST) >= 0;
+            for (int cave : this.edited)
+            {
+                if ((graph.getNeighbour(cave, EAST) >= 0) != open)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Opens or closes every edited passage in one batch.
+         *
+         * @param open true to open the passages, false to close them
+         */
+        @Override
+        public void setEditedOpen(boolean open)
+        {
+            SharedLabyrinth.EditBatch batch = new SharedLabyrinth.EditBatch();
+            for (int cave : this.edited)
+            {
+                batch.setEast(this.original.getId(cave), open ? this.original.getPassage(cave, EAST) : 0);
+            }
+            this.shared.apply(batch);
+        }
+    }
+
+    /**
+     * LockedTarget keeps one neighbour array that is edited in place under
+     * the write lock of a StampedLock. Readers read optimistically and fall
+     * back to the read lock only if an edit happened while they read.
+     */
+    private static class LockedTarget extends Target
+    {
+        private StampedLock lock;
+        private int[] neighbours; // four per cave, as in LabyrinthGraph
+
+        /**
+         * Non-default constructor for LockedTarget.
+         *
+         * @param original The labyrinth as loaded
+         * @param edited The indices of the caves to edit
+         */
+        public LockedTarget(LabyrinthGraph original, int[] edited)
+        {
+            super(original, edited);
+            this.lock = new StampedLock();
+            this.neighbours = new int[original.size() * 4];
+            for (int i = 0; i < this.neighbours.length; i++)
+            {
+                this.neighbours[i] = original.getNeighbour(i / 4, i % 4);
+            }
+        }
+
+        /**
+         * Takes one step in the current version of the labyrinth.
+         *
+         * @param cave The index of the current cave
+         * @param direction The direction to try first
+         * @return The index of the next cave, or of the start cave if there is no way on
+         */
+        @Override
+        public int step(int cave, int direction)
+        {
+            long stamp = this.lock.tryOptimisticRead();
+            int next = this.findNext(cave, direction);
+            if (!this.lock.validate(stamp))
+            {
+                stamp = this.lock.readLock();
+                try
+                {
+                    next = this.findNext(cave, direction);
+                }
+                finally
+                {
+                    this.lock.unlockRead(stamp);
+                }
+            }
+            return next;
+        }
+
+        /**
+         * Finds the next cave without locking.
+         *
+         * @param cave The index of the current cave
+         * @param direction The direction to try first
+         * @return The index of the next cave, or of the start cave if there is no way on
+         */
+        private int findNext(int cave, int direction)
+        {
+            for (int d = 0; d < 4; d++)
+            {
+                int next = this.neighbours[cave * 4 + ((direction + d) & 3)];
+                if (next >= 0)
+                {
+                    return next;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Checks the edited passages in the current version of the labyrinth.
+         *
+         * @return true if no half-applied edit is seen
+         */
+        @Override
+        public boolean isConsistent()
+        {
+            long stamp = this.lock.tryOptimisticRead();
+            boolean consistent = this.isEditedUniform();
+            if (!this.lock.validate(stamp))
+            {
+                stamp = this.lock.readLock();
+                try
+                {
+                    consistent = this.isEditedUniform();
+                }
+                finally
+                {
+                    this.lock.unlockRead(stamp);
+                }
+            }
+            return consistent;
+        }
+
+        /**
+         * Checks the edited passages without locking.
+         *
+         * @return true if they are all open or all closed
+         */
+        private boolean isEditedUniform()
+        {
+            boolean open = this.neighbours[this.edited[0] * 4 + EAST] >= 0;
+            for (int cave : this.edited)
+            {
+                if ((this.neighbours[cave * 4 + EAST] >= 0) != open)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Opens or closes every edited passage in one batch.
+         *
+         * @param open true to open the passages, false to close them
+         */
+        @Override
+        public void setEditedOpen(boolean open)
+        {
+            long stamp = this.lock.writeLock();
+            try
+            {
+                for (int cave : this.edited)
+                {
+                    this.neighbours[cave * 4 + EAST] = open ? this.original.getNeighbour(cave, EAST) :
+                            LabyrinthGraph.NO_CAVE;
+                }
+            }
+            finally
+            {
+                this.lock.unlockWrite(stamp);
+            }
+        }
+    }
+}
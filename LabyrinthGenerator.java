@@ -0,0 +1,288 @@
+/**
+ * LabyrinthGenerator writes labyrinths of any size in the labyrinth.txt format
+ * (id,north,east,south,west), for testing loading, navigation and simulation
+ * on maps far larger than the game's own labyrinth. Every generated labyrinth
+ * has a route from the start cave (the first line) to Mount Api.
+ *
+ * Caves are generated in fixed-size regions on all available cores and written
+ * to disk in order through a buffered stream. Only a small window of regions
+ * is held in memory at once, so the file size is not limited by the heap.
+ *
+ * To generate a labyrinth from the command line, use:
+ *       java LabyrinthGenerator caves [grid|tree|random] [output file] [seed]
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LabyrinthGenerator
+{
+    private static final int MOUNT_API_ID = 100; // ID for Mount Api
+    private static final int REGION_SIZE = 1 << 16; // Caves generated per task
+    private static final int MAX_LINE_LENGTH = 5 * 11 + 1; // Five ints with separators and a line break
+    private static final int NO_PASSAGE = -1;
+    private static final int EXIT = -2; // Passage leading to Mount Api
+    private static final int LOCAL_RANGE = 1024; // Maximum index distance of local random passages
+
+    // Topologies that can be generated
+    private static final String[] TOPOLOGIES = {"grid", "tree", "random"};
+
+    private int caveCount;
+    private String topology;
+    private long seed;
+    private int gridWidth;
+
+    /**
+     * Non-default constructor for LabyrinthGenerator.
+     *
+     * @param caveCount The number of caves to generate, not counting Mount Api
+     * @param topology The topology: "grid", "tree" or "random"
+     * @param seed The seed for random passages; the same seed gives the same labyrinth
+     */
+    public LabyrinthGenerator(int caveCount, String topology, long seed)
+    {
+        boolean knownTopology = false;
+        for (String name : TOPOLOGIES)
+        {
+            knownTopology |= name.equals(topology);
+        }
+        if (caveCount < 1 || !knownTopology)
+        {
+            throw new IllegalArgumentException("Expected at least one cave and a topology of grid, tree or random");
+        }
+
+        this.caveCount = caveCount;
+        this.topology = topology;
+        this.seed = seed;
+        this.gridWidth = (int) Math.ceil(Math.sqrt(caveCount));
+    }
+
+    /**
+     * Gets the cave id for a cave index. Ids start at 1 and skip the Mount Api id.
+     *
+     * @param index The cave index
+     * @return The cave id
+     */
+    public static int idOf(int index)
+    {
+        return index < MOUNT_API_ID - 1 ? index + 1 : index + 2;
+    }
+
+    /**
+     * Writes the labyrinth to a file.
+     *
+     * @param filename The file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void generate(String filename) throws IOException
+    {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename), 1 << 20))
+        {
+            this.generate(out);
+        }
+    }
+
+    /**
+     * Writes the labyrinth to a stream, generating regions in parallel and
+     * writing them in order. At most two regions per core are in flight.
+     *
+     * @param out The stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void generate(OutputStream out) throws IOException
+    {
+        int regions = (int) (((long) this.caveCount + REGION_SIZE - 1) / REGION_SIZE);
+        int threads = Runtime.getRuntime().availableProcessors();
+        int window = threads * 2;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try
+        {
+            ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+            int nextRegion = 0;
+            while (nextRegion < regions || !pending.isEmpty())
+            {
+                while (nextRegion < regions && pending.size() < window)
+                {
+                    final int region = nextRegion++;
+                    pending.add(executor.submit(() -> this.generateRegion(region)));
+                }
+
+                byte[] lines = pending.poll().get();
+                out.write(lines);
+            }
+
+            byte[] mountApi = (MOUNT_API_ID + ",0,0,0,0\n").getBytes(StandardCharsets.US_ASCII);
+            out.write(mountApi);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Labyrinth generation was interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException("Labyrinth generation failed: " + e.getCause(), e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Generates the lines for one region of caves. Random passages use a
+     * generator seeded from the labyrinth seed and region number, so the
+     * output does not depend on which thread runs the region.
+     *
+     * @param region The region number
+     * @return The region's lines as ASCII bytes
+     */
+    private byte[] generateRegion(int region)
+    {
+        int start = region * REGION_SIZE;
+        int end = (int) Math.min(this.caveCount, (long) start + REGION_SIZE);
+        SplittableRandom random = new SplittableRandom(this.seed * 0x9E3779B97F4A7C15L + region);
+        byte[] buffer = new byte[(end - start) * MAX_LINE_LENGTH];
+        int[] passages = new int[4];
+        int length = 0;
+
+        for (int i = start; i < end; i++)
+        {
+            this.fillPassages(i, random, passages);
+            length = appendInt(buffer, length, idOf(i));
+            for (int d = 0; d < 4; d++)
+            {
+                buffer[length++] = ',';
+                int target = passages[d];
+                length = appendInt(buffer, length,
+                        target == NO_PASSAGE ? 0 : target == EXIT ? MOUNT_API_ID : idOf(target));
+            }
+            buffer[length++] = '\n';
+        }
+
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Works out the north, east, south and west passages of a cave. In every
+     * topology the last cave has its east passage leading to Mount Api and
+     * the start cave can reach it.
+     *
+     * @param index The cave index
+     * @param random The region's random number generator
+     * @param passages Array that receives the four passages as indices, NO_PASSAGE or EXIT
+     */
+    private void fillPassages(int index, SplittableRandom random, int[] passages)
+    {
+        int last = this.caveCount - 1;
+        switch (this.topology)
+        {
+            case "grid":
+                // Rows of gridWidth caves, joined in all four directions
+                int column = index % this.gridWidth;
+                passages[0] = index >= this.gridWidth ? index - this.gridWidth : NO_PASSAGE;
+                passages[1] = column + 1 < this.gridWidth && index < last ? index + 1 : NO_PASSAGE;
+                passages[2] = (long) index + this.gridWidth <= last ? index + this.gridWidth : NO_PASSAGE;
+                passages[3] = column > 0 ? index - 1 : NO_PASSAGE;
+                break;
+            case "tree":
+                // North leads back to the parent, the other directions to up to three children
+                passages[0] = index > 0 ? (index - 1) / 3 : NO_PASSAGE;
+                for (int child = 1; child <= 3; child++)
+                {
+                    long childIndex = 3L * index + child;
+                    passages[child] = childIndex <= last ? (int) childIndex : NO_PASSAGE;
+                }
+                break;
+            case "random":
+            default:
+                // A two-way chain east and west, plus random one-way passages north and south
+                passages[1] = index < last ? index + 1 : NO_PASSAGE;
+                passages[3] = index > 0 ? index - 1 : NO_PASSAGE;
+                passages[0] = random.nextInt(2) == 0 ? NO_PASSAGE :
+                        (int) Math.max(0, Math.min(last, (long) index + random.nextInt(-LOCAL_RANGE, LOCAL_RANGE + 1)));
+                passages[2] = random.nextInt(4) != 0 ? NO_PASSAGE : random.nextInt(this.caveCount);
+                break;
+        }
+
+        if (index == last)
+        {
+            passages[1] = EXIT;
+        }
+    }
+
+    /**
+     * Writes a non-negative integer as ASCII digits.
+     *
+     * @param buffer The buffer to write to
+     * @param position The position to write at
+     * @param value The value to write
+     * @return The position after the last digit
+     */
+    private static int appendInt(byte[] buffer, int position, int value)
+    {
+        int digits = 1;
+        for (int v = value / 10; v > 0; v /= 10)
+        {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--)
+        {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + digits;
+    }
+
+    /**
+     * Main method to generate a labyrinth file.
+     *
+     * @param args Number of caves, topology, output file and seed
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < 1)
+        {
+            System.out.println("Usage: java LabyrinthGenerator caves [grid|tree|random] [output file] [seed]");
+            return;
+        }
+
+        try
+        {
+            int caves = Integer.parseInt(args[0]);
+            String topology = args.length > 1 ? args[1] : "random";
+            String filename = args.length > 2 ? args[2] : "generated_labyrinth.txt";
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+            long start = System.nanoTime();
+            new LabyrinthGenerator(caves, topology, seed).generate(filename);
+            System.out.println("Generated " + caves + " caves (" + topology + ", seed " + seed + ") in " +
+                    filename + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        catch (NumberFormatException e)
+        {
+            System.out.println("Please enter a valid number of caves and seed.");
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.out.println(e.getMessage());
+        }
+        catch (IOException e)
+        {
+            System.out.println("Error writing labyrinth: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * LabyrinthGraph holds the labyrinth as primitive arrays, so that very large
+ * labyrinths can be analysed and traversed without a Cave object per cave.
+ * Caves are stored by index in file order; index 0 is the start cave.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class LabyrinthGraph
+{
+    public static final int NO_CAVE = -1; // Blocked passage, or a passage to an unknown cave
+    public static final int MOUNT_API = -2; // Passage to Mount Api when it has no cave of its own
+    private static final int MOUNT_API_ID = 100; // ID for Mount Api
+    private static final int DIRECTION_COUNT = 4; // North, East, South, West
+
+    private int size;
+    private int[] ids;
+    private int[] passages; // cave ids, four per cave in north, east, south, west order
+    private int[] neighbours; // cave indices, four per cave, or NO_CAVE / MOUNT_API
+    private CaveIdIndex index; // index of each cave, by id
+    private int mountApiIndex;
+    private ArrayList<Integer> duplicateIds;
+
+    /**
+     * Non-default constructor for LabyrinthGraph.
+     *
+     * @param size The number of caves
+     * @param ids The id of each cave, at least size entries
+     * @param passages The north, east, south and west passages of each cave, at least size * 4 entries
+     */
+    public LabyrinthGraph(int size, int[] ids, int[] passages)
+    {
+        this.size = size;
+        this.ids = ids;
+        this.passages = passages;
+        this.duplicateIds = new ArrayList<>();
+        this.buildIndex();
+        this.mountApiIndex = this.indexOf(MOUNT_API_ID);
+        this.buildNeighbours();
+    }
+
+    /**
+     * Copy constructor for LabyrinthGraph. The passages are copied; the ids
+     * and the id index are shared.
+     *
+     * @param source The graph to copy
+     */
+    private LabyrinthGraph(LabyrinthGraph source)
+    {
+        this.size = source.size;
+        this.ids = source.ids;
+        this.passages = Arrays.copyOf(source.passages, source.size * DIRECTION_COUNT);
+        this.neighbours = Arrays.copyOf(source.neighbours, source.size * DIRECTION_COUNT);
+        this.index = source.index;
+        this.mountApiIndex = source.mountApiIndex;
+        this.duplicateIds = source.duplicateIds;
+    }
+
+    /**
+     * Builds a graph from the caves loaded by GameFileHandler.
+     *
+     * @param labyrinth The caves of the labyrinth
+     * @return The labyrinth as a graph
+     */
+    public static LabyrinthGraph fromCaves(ArrayList<Cave> labyrinth)
+    {
+        int size = labyrinth.size();
+        int[] ids = new int[size];
+        int[] passages = new int[size * DIRECTION_COUNT];
+        for (int i = 0; i < size; i++)
+        {
+            Cave cave = labyrinth.get(i);
+            ids[i] = cave.getId();
+            passages[i * DIRECTION_COUNT] = cave.getNorth();
+            passages[i * DIRECTION_COUNT + 1] = cave.getEast();
+            passages[i * DIRECTION_COUNT + 2] = cave.getSouth();
+            passages[i * DIRECTION_COUNT + 3] = cave.getWest();
+        }
+        return new LabyrinthGraph(size, ids, passages);
+    }
+
+    /**
+     * Builds the id index. Ids that appear more than once keep their first
+     * index and are recorded as duplicates.
+     */
+    private void buildIndex()
+    {
+        this.index = new CaveIdIndex(this.size);
+        for (int i = 0; i < this.size; i++)
+        {
+            if (!this.index.putIfAbsent(this.ids[i], i))
+            {
+                this.duplicateIds.add(this.ids[i]);
+            }
+        }
+    }
+
+    /**
+     * Resolves every passage to a cave index.
+     */
+    private void buildNeighbours()
+    {
+        this.neighbours = new int[this.size * DIRECTION_COUNT];
+        for (int i = 0; i < this.size * DIRECTION_COUNT; i++)
+        {
+            this.neighbours[i] = this.resolve(this.passages[i]);
+        }
+    }
+
+    /**
+     * Resolves a passage to a cave index.
+     *
+     * @param target The cave id the passage leads to, or 0 if blocked
+     * @return The index of the cave, NO_CAVE if blocked or unknown, or MOUNT_API
+     */
+    private int resolve(int target)
+    {
+        if (target == 0)
+        {
+            return NO_CAVE;
+        }
+        else if (target == MOUNT_API_ID && this.mountApiIndex == NO_CAVE)
+        {
+            return MOUNT_API;
+        }
+        return this.indexOf(target);
+    }
+
+    /**
+     * Makes a copy of the graph with some passages changed. This graph is
+     * not modified, so it can still be read while the copy is made. The ids
+     * and the id index are shared with the copy, as changing passages never
+     * changes them.
+     *
+     * @param count The number of changes
+     * @param indices The cave index of each change
+     * @param directions The direction of each change (0 = north, 1 = east, 2 = south, 3 = west)
+     * @param targets The cave id each changed passage leads to, or 0 to block it
+     * @return The changed copy
+     */
+    public LabyrinthGraph withPassages(int count, int[] indices, int[] directions, int[] targets)
+    {
+        LabyrinthGraph copy = new LabyrinthGraph(this);
+        for (int i = 0; i < count; i++)
+        {
+            int slot = indices[i] * DIRECTION_COUNT + directions[i];
+            copy.passages[slot] = targets[i];
+            copy.neighbours[slot] = copy.resolve(targets[i]);
+        }
+        return copy;
+    }
+
+    /**
+     * Gets the ids that appear more than once in the labyrinth.
+     *
+     * @return The duplicate ids, in file order
+     */
+    public ArrayList<Integer> getDuplicateIds()
+    {
+        return this.duplicateIds;
+    }
+
+    /**
+     * Gets the id of a cave.
+     *
+     * @param index The cave index
+     * @return The cave id
+     */
+    public int getId(int index)
+    {
+        return this.ids[index];
+    }
+
+    /**
+     * Gets the index of the Mount Api cave.
+     *
+     * @return The index of the cave with the Mount Api id, or NO_CAVE if it has no cave of its own
+     */
+    public int getMountApiIndex()
+    {
+        return this.mountApiIndex;
+    }
+
+    /**
+     * Gets the cave a passage leads to, as an index.
+     *
+     * @param index The cave index
+     * @param direction The direction (0 = north, 1 = east, 2 = south, 3 = west)
+     * @return The index of the neighbouring cave, NO_CAVE if blocked or unknown, or MOUNT_API
+     */
+    public int getNeighbour(int index, int direction)
+    {
+        return this.neighbours[index * DIRECTION_COUNT + direction];
+    }
+
+    /**
+     * Gets the cave a passage leads to, as an id.
+     *
+     * @param index The cave index
+     * @param direction The direction (0 = north, 1 = east, 2 = south, 3 = west)
+     * @return The id of the neighbouring cave, or 0 if blocked
+     */
+    public int getPassage(int index, int direction)
+    {
+        return this.passages[index * DIRECTION_COUNT + direction];
+    }
+
+    /**
+     * Finds the index of a cave by id.
+     *
+     * @param id The cave id
+     * @return The index of the first cave with this id, or NO_CAVE if there is none
+     */
+    public int indexOf(int id)
+    {
+        int index = this.index.get(id);
+        return index == CaveIdIndex.NOT_FOUND ? NO_CAVE : index;
+    }
+
+    /**
+     * Checks if a passage leads to Mount Api.
+     *
+     * @param index The cave index
+     * @param direction The direction (0 = north, 1 = east, 2 = south, 3 = west)
+     * @return true if the passage leads to Mount Api
+     */
+    public boolean leadsToMountApi(int index, int direction)
+    {
+        return this.passages[index * DIRECTION_COUNT + direction] == MOUNT_API_ID;
+    }
+
+    /**
+     * Gets the number of caves.
+     *
+     * @return The number of caves
+     */
+    public int size()
+    {
+        return this.size;
+    }
+}
@@ -0,0 +1,456 @@
+/**
+ * LabyrinthRanker ranks every labyrinth file in a directory by how hard it
+ * is to play. Each file is loaded through GameFileHandler, a fixed number of
+ * computer-played quests are played on it with QuestSimulator under the
+ * standard rules, and the labyrinths are listed from hardest to easiest
+ * with their delivery rate, mean caves visited, mean code exchanges and
+ * death rate.
+ *
+ * The work runs on a ForkJoinPool. Each file is a task that loads its
+ * labyrinth and then splits its quests into batches, so an idle thread can
+ * steal a batch of quests from a large labyrinth or start on another file.
+ * A few large labyrinths therefore do not leave the other cores waiting
+ * at the end. Quest number i uses the same seed on every labyrinth, so the
+ * labyrinths are compared on the same dice rolls.
+ *
+ * To rank the labyrinths in a directory from the command line, use:
+ *       java LabyrinthRanker [directory] [quests per labyrinth] [seed] [results file]
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class LabyrinthRanker
+{
+    public static final int DEFAULT_QUESTS = 200; // Quests played on each labyrinth
+    private static final int QUESTS_PER_TASK = 25; // Quests in a batch that can be stolen by another thread
+    private static final int DEFAULT_MAX_MOVES = 2_000; // Moves before a simulated Fellowship gives up
+    private static final int MEMBER_COUNT = 4; // Members in a simulated Fellowship
+    private static final long DEFAULT_SEED = 1;
+
+    private int quests;
+    private long seed;
+    private int maxMoves;
+
+    /**
+     * Non-default constructor for LabyrinthRanker.
+     *
+     * @param quests The number of quests played on each labyrinth
+     * @param seed The seed of the first quest; quest i uses seed + i
+     * @param maxMoves The number of moves before a simulated Fellowship gives up
+     */
+    public LabyrinthRanker(int quests, long seed, int maxMoves)
+    {
+        this.quests = Math.max(quests, 1);
+        this.seed = seed;
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * Plays every labyrinth file in a directory and ranks them from hardest
+     * to easiest. Files that cannot be read or hold no valid caves are
+     * returned with an error instead of results.
+     *
+     * @param directory The directory of labyrinth files
+     * @return A ranking for each file, hardest first, then the files with errors
+     * @throws IOException if the directory cannot be listed
+     */
+    public ArrayList<Ranking> rank(File directory) throws IOException
+    {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".txt"));
+        if (files == null)
+        {
+            throw new IOException("Cannot list " + directory);
+        }
+        Arrays.sort(files);
+
+        ArrayList<FileTask> tasks = new ArrayList<>();
+        for (File file : files)
+        {
+            tasks.add(new FileTask(this, file));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool();
+        try
+        {
+            for (FileTask task : tasks)
+            {
+                pool.execute(task);
+            }
+
+            ArrayList<Ranking> rankings = new ArrayList<>();
+            for (FileTask task : tasks)
+            {
+                rankings.add(task.join());
+            }
+            rankings.sort(LabyrinthRanker::compareDifficulty);
+            return rankings;
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Orders rankings from hardest to easiest: the lowest delivery rate
+     * first, then the highest death rate. Files with errors come last.
+     *
+     * @param a The first ranking
+     * @param b The second ranking
+     * @return A negative number if a is harder than b, positive if easier
+     */
+    private static int compareDifficulty(Ranking a, Ranking b)
+    {
+        if (a.getError() != null || b.getError() != null)
+        {
+            return a.getError() == null ? -1 : b.getError() == null ? 1 : a.getName().compareTo(b.getName());
+        }
+        int order = Double.compare(a.getDeliveryRate(), b.getDeliveryRate());
+        if (order == 0)
+        {
+            order = Double.compare(b.getDeathRate(), a.getDeathRate());
+        }
+        return order != 0 ? order : a.getName().compareTo(b.getName());
+    }
+
+    /**
+     * Loads one labyrinth file and plays its quests, in batches that other
+     * threads can steal.
+     */
+    private static class FileTask extends RecursiveTask<Ranking>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final LabyrinthRanker ranker;
+        private final File file;
+
+        /**
+         * Non-default constructor for FileTask.
+         *
+         * @param ranker The ranker, for the number of quests, seed and move limit
+         * @param file The labyrinth file
+         */
+        FileTask(LabyrinthRanker ranker, File file)
+        {
+            this.ranker = ranker;
+            this.file = file;
+        }
+
+        /**
+         * Loads the labyrinth and adds up the results of its quest batches.
+         *
+         * @return The ranking of the labyrinth
+         */
+        @Override
+        protected Ranking compute()
+        {
+            Ranking ranking = new Ranking(this.file.getName());
+            LabyrinthGraph graph;
+            try
+            {
+                graph = GameFileHandler.loadLabyrinthGraph(this.file.getPath(), new ArrayList<>());
+            }
+            catch (IOException e)
+            {
+                ranking.error = "Error loading labyrinth: " + e.getMessage();
+                return ranking;
+            }
+            if (graph.size() == 0)
+            {
+                ranking.error = "No valid caves were loaded.";
+                return ranking;
+            }
+            ranking.caves = graph.size();
+
+            ArrayList<QuestBatch> batches = new ArrayList<>();
+            for (int first = 0; first < this.ranker.quests; first += QUESTS_PER_TASK)
+            {
+                int last = Math.min(first + QUESTS_PER_TASK, this.ranker.quests);
+                batches.add(new QuestBatch(this.ranker, graph, first, last));
+            }
+            for (QuestBatch batch : invokeAll(batches))
+            {
+                ranking.add(batch.join());
+            }
+            return ranking;
+        }
+    }
+
+    /**
+     * Plays a run of quests on one labyrinth with its own QuestSimulator.
+     */
+    private static class QuestBatch extends RecursiveTask<Ranking>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final LabyrinthRanker ranker;
+        private final LabyrinthGraph graph;
+        private final int first;
+        private final int last;
+
+        /**
+         * Non-default constructor for QuestBatch.
+         *
+         * @param ranker The ranker, for the seed and move limit
+         * @param graph The labyrinth, shared with the other batches
+         * @param first The number of the first quest
+         * @param last The number after the last quest
+         */
+        QuestBatch(LabyrinthRanker ranker, LabyrinthGraph graph, int first, int last)
+        {
+            this.ranker = ranker;
+            this.graph = graph;
+            this.first = first;
+            this.last = last;
+        }
+
+        /**
+         * Plays the quests of the batch.
+         *
+         * @return The totals of the batch
+         */
+        @Override
+        protected Ranking compute()
+        {
+            QuestSimulator simulator = new QuestSimulator(this.graph, new GameRules(), this.ranker.maxMoves);
+            Ranking totals = new Ranking(null);
+            for (int quest = this.first; quest < this.last; quest++)
+            {
+                if (simulator.play(this.ranker.seed + quest))
+                {
+                    totals.delivered++;
+                }
+                totals.quests++;
+                totals.cavesVisited += simulator.getCavesVisited();
+                totals.codeExchanges += simulator.getCodeExchanges();
+                totals.memberDeaths += simulator.getMemberDeaths();
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * The difficulty of one labyrinth, added up over its quests.
+     */
+    public static class Ranking
+    {
+        private String name;
+        private String error;
+        private int caves;
+        private int quests;
+        private int delivered;
+        private long cavesVisited;
+        private long codeExchanges;
+        private long memberDeaths;
+
+        /**
+         * Non-default constructor for Ranking.
+         *
+         * @param name The name of the labyrinth file
+         */
+        public Ranking(String name)
+        {
+            this.name = name;
+            this.error = null;
+            this.caves = 0;
+            this.quests = 0;
+            this.delivered = 0;
+            this.cavesVisited = 0;
+            this.codeExchanges = 0;
+            this.memberDeaths = 0;
+        }
+
+        /**
+         * Adds the totals of a batch of quests.
+         *
+         * @param batch The totals of the batch
+         */
+        private void add(Ranking batch)
+        {
+            this.quests += batch.quests;
+            this.delivered += batch.delivered;
+            this.cavesVisited += batch.cavesVisited;
+            this.codeExchanges += batch.codeExchanges;
+            this.memberDeaths += batch.memberDeaths;
+        }
+
+        /**
+         * Gets the name of the labyrinth file.
+         *
+         * @return The file name
+         */
+        public String getName()
+        {
+            return this.name;
+        }
+
+        /**
+         * Gets the reason the labyrinth could not be played.
+         *
+         * @return The error, or null if it was played
+         */
+        public String getError()
+        {
+            return this.error;
+        }
+
+        /**
+         * Gets the number of caves in the labyrinth.
+         *
+         * @return The number of caves
+         */
+        public int getCaves()
+        {
+            return this.caves;
+        }
+
+        /**
+         * Gets the number of quests played.
+         *
+         * @return The number of quests
+         */
+        public int getQuests()
+        {
+            return this.quests;
+        }
+
+        /**
+         * Gets the share of quests in which the code was delivered.
+         *
+         * @return The delivery rate, from 0 to 1
+         */
+        public double getDeliveryRate()
+        {
+            return this.quests == 0 ? 0 : (double) this.delivered / this.quests;
+        }
+
+        /**
+         * Gets the average number of different caves entered in a quest.
+         *
+         * @return The mean caves visited
+         */
+        public double getMeanCavesVisited()
+        {
+            return this.quests == 0 ? 0 : (double) this.cavesVisited / this.quests;
+        }
+
+        /**
+         * Gets the average number of times the code changed hands in a quest.
+         *
+         * @return The mean code exchanges
+         */
+        public double getMeanCodeExchanges()
+        {
+            return this.quests == 0 ? 0 : (double) this.codeExchanges / this.quests;
+        }
+
+        /**
+         * Gets the share of Fellowship members who died, over all quests.
+         *
+         * @return The death rate, from 0 to 1
+         */
+        public double getDeathRate()
+        {
+            return this.quests == 0 ? 0 : (double) this.memberDeaths / ((long) this.quests * MEMBER_COUNT);
+        }
+    }
+
+    /**
+     * Writes the rankings as a table of tab separated values, hardest first.
+     *
+     * @param filename The file to write
+     * @param rankings The rankings
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeResults(String filename, ArrayList<Ranking> rankings) throws IOException
+    {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename)))
+        {
+            writer.write("rank\tlabyrinth\tcaves\tquests\tdelivery_rate\tmean_caves_visited\tmean_code_exchanges\t" +
+                    "death_rate\terror");
+            writer.newLine();
+            int rank = 0;
+            for (Ranking ranking : rankings)
+            {
+                if (ranking.getError() != null)
+                {
+                    writer.write("\t" + ranking.getName() + "\t\t\t\t\t\t\t" + ranking.getError());
+                }
+                else
+                {
+                    writer.write(String.format("%d\t%s\t%d\t%d\t%.4f\t%.2f\t%.2f\t%.4f\t", ++rank, ranking.getName(),
+                            ranking.getCaves(), ranking.getQuests(), ranking.getDeliveryRate(),
+                            ranking.getMeanCavesVisited(), ranking.getMeanCodeExchanges(), ranking.getDeathRate()));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Ranks the labyrinths in a directory and prints the table.
+     *
+     * @param args Directory (the current directory if not given), quests per labyrinth (200 if not
+     *             given), seed (1 if not given) and a file to write the table to as tab separated values
+     */
+    public static void main(String[] args)
+    {
+        File directory = new File(args.length > 0 ? args[0] : ".");
+        int quests;
+        long seed;
+        try
+        {
+            quests = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_QUESTS;
+            seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        }
+        catch (NumberFormatException e)
+        {
+            System.out.println("Please enter a valid number of quests and seed.");
+            return;
+        }
+
+        long start = System.nanoTime();
+        ArrayList<Ranking> rankings;
+        try
+        {
+            rankings = new LabyrinthRanker(quests, seed, DEFAULT_MAX_MOVES).rank(directory);
+            if (args.length > 3)
+            {
+                writeResults(args[3], rankings);
+            }
+        }
+        catch (IOException e)
+        {
+            System.out.println("Error: " + e.getMessage());
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("=== LABYRINTH DIFFICULTY (" + rankings.size() + " labyrinths, " + quests +
+                " quests each, hardest first) ===");
+        System.out.println(String.format("%4s  %-30s %9s %10s %12s %10s %8s", "Rank", "Labyrinth", "Caves",
+                "Delivered", "Caves seen", "Exchanges", "Deaths"));
+        int rank = 0;
+        for (Ranking ranking : rankings)
+        {
+            if (ranking.getError() != null)
+            {
+                System.out.println(String.format("%4s  %-30s %s", "-", ranking.getName(), ranking.getError()));
+                continue;
+            }
+            System.out.println(String.format("%4d  %-30s %9d %9.1f%% %12.1f %10.2f %7.1f%%", ++rank,
+                    ranking.getName(), ranking.getCaves(), ranking.getDeliveryRate() * 100,
+                    ranking.getMeanCavesVisited(), ranking.getMeanCodeExchanges(), ranking.getDeathRate() * 100));
+        }
+        System.out.println(String.format("Ranked in %.1f s.", elapsed / 1e9));
+    }
+}
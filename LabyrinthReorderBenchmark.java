@@ -0,0 +1,219 @@
+/**
+ * LabyrinthReorderBenchmark measures traversal and breadth-first search
+ * throughput on a large labyrinth before and after LabyrinthReorderer.
+ *
+ * A labyrinth is generated with LabyrinthGenerator (grid by default), loaded, and its
+ * caves shuffled to mimic arbitrary ids in a file. The shuffled labyrinth is
+ * then measured against the bfs and rcm orders.
+ *
+ * To run the benchmark from the command line, use:
+ *       java -Xmx2g LabyrinthReorderBenchmark [caves] [grid|tree|random]
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+public class LabyrinthReorderBenchmark
+{
+    private static final int DEFAULT_CAVES = 2_000_000;
+    private static final int ROUNDS = 3; // Measured rounds per order, after one warm-up round
+    private static final long SEED = 42;
+    private static final int NEAR_DISTANCE = 4096; // Index distance counted as nearby (fits in cache)
+
+    // Keeps benchmark results alive so the JIT cannot remove the loops
+    private static volatile long sink;
+
+    /**
+     * Main method to run the benchmark.
+     *
+     * @param args Number of caves (2,000,000 if not given) and topology (grid if not given)
+     */
+    public static void main(String[] args)
+    {
+        int caves = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CAVES;
+        String topology = args.length > 1 ? args[1] : "grid";
+        try
+        {
+            File file = File.createTempFile("labyrinth", ".txt");
+            file.deleteOnExit();
+            new LabyrinthGenerator(caves, topology, SEED).generate(file.getPath());
+            LabyrinthGraph loaded = GameFileHandler.loadLabyrinthGraph(file.getPath(), new ArrayList<>());
+            file.delete();
+
+            LabyrinthGraph shuffled = LabyrinthReorderer.reorder(loaded, shuffledOrder(loaded.size()));
+            loaded = null;
+
+            System.out.println("=== LABYRINTH REORDER BENCHMARK (" + shuffled.size() + " caves, " +
+                    topology + ") ===");
+            System.out.println(String.format("%-10s %14s %18s %16s %16s",
+                    "Order", "Reorder (ms)", "Walk (Msteps/s)", "BFS (Mcaves/s)", "Nearby passages"));
+            measure("shuffled", shuffled, 0);
+
+            for (String mode : new String[] {"bfs", "rcm"})
+            {
+                long start = System.nanoTime();
+                LabyrinthGraph reordered = LabyrinthReorderer.reorder(shuffled,
+                        LabyrinthReorderer.order(shuffled, mode));
+                measure(mode, reordered, (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+        catch (IOException e)
+        {
+            System.out.println("Error preparing benchmark labyrinth: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Measures one order and prints a row of results.
+     *
+     * @param name The name of the order
+     * @param graph The labyrinth in that order
+     * @param reorderMillis Time taken to reorder, in milliseconds
+     */
+    private static void measure(String name, LabyrinthGraph graph, long reorderMillis)
+    {
+        int steps = graph.size() * 4;
+        double walkRate = 0;
+        double bfsRate = 0;
+        long checksum = 0;
+
+        for (int round = 0; round <= ROUNDS; round++)
+        {
+            long start = System.nanoTime();
+            checksum += walk(graph, steps);
+            long walkNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            checksum += breadthFirstSearch(graph);
+            long bfsNanos = System.nanoTime() - start;
+
+            // Round 0 is a warm-up
+            if (round > 0)
+            {
+                walkRate += steps * 1000.0 / walkNanos / ROUNDS;
+                bfsRate += graph.size() * 1000.0 / bfsNanos / ROUNDS;
+            }
+        }
+
+        sink = checksum;
+        System.out.println(String.format("%-10s %14d %18.1f %16.1f %15.1f%%", name, reorderMillis,
+                walkRate, bfsRate, nearbyPassagePercentage(graph)));
+    }
+
+    /**
+     * Makes a random order of the caves that keeps the start cave first.
+     *
+     * @param size The number of caves
+     * @return The shuffled order
+     */
+    private static int[] shuffledOrder(int size)
+    {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            order[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = size - 1; i > 1; i--)
+        {
+            int j = 1 + random.nextInt(i);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    /**
+     * Walks through the labyrinth, taking the first open passage from a
+     * pseudo-random direction at each step.
+     *
+     * @param graph The labyrinth
+     * @param steps The number of steps to take
+     * @return A checksum of the caves visited
+     */
+    private static long walk(LabyrinthGraph graph, int steps)
+    {
+        int cave = 0;
+        long checksum = 0;
+        int state = 0x2545F491;
+        for (int i = 0; i < steps; i++)
+        {
+            // xorshift keeps the walk cheap and the same for every order
+            state ^= state << 13;
+            state ^= state >>> 17;
+            state ^= state << 5;
+            int direction = state & 3;
+            int next = LabyrinthGraph.NO_CAVE;
+            for (int d = 0; d < 4 && next < 0; d++)
+            {
+                next = graph.getNeighbour(cave, (direction + d) & 3);
+            }
+            cave = next >= 0 ? next : 0;
+            checksum += cave;
+        }
+        return checksum;
+    }
+
+    /**
+     * Runs a breadth-first search from the start cave.
+     *
+     * @param graph The labyrinth
+     * @return The number of caves reached
+     */
+    private static long breadthFirstSearch(LabyrinthGraph graph)
+    {
+        boolean[] reached = new boolean[graph.size()];
+        int[] queue = new int[graph.size()];
+        int head = 0;
+        int tail = 0;
+        reached[0] = true;
+        queue[tail++] = 0;
+        while (head < tail)
+        {
+            int cave = queue[head++];
+            for (int d = 0; d < 4; d++)
+            {
+                int target = graph.getNeighbour(cave, d);
+                if (target >= 0 && !reached[target])
+                {
+                    reached[target] = true;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Calculates the share of passages that lead to a cave stored nearby in the arrays.
+     *
+     * @param graph The labyrinth
+     * @return The percentage of passages within NEAR_DISTANCE indices
+     */
+    private static double nearbyPassagePercentage(LabyrinthGraph graph)
+    {
+        long nearby = 0;
+        long passages = 0;
+        for (int i = 0; i < graph.size(); i++)
+        {
+            for (int d = 0; d < 4; d++)
+            {
+                int target = graph.getNeighbour(i, d);
+                if (target >= 0)
+                {
+                    if (Math.abs(target - i) <= NEAR_DISTANCE)
+                    {
+                        nearby++;
+                    }
+                    passages++;
+                }
+            }
+        }
+        return passages == 0 ? 0 : nearby * 100.0 / passages;
+    }
+}
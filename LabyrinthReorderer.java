@@ -0,0 +1,222 @@
+/**
+ * LabyrinthReorderer renumbers the caves of a labyrinth so that neighbouring
+ * caves sit close together in memory. Cave ids in files are arbitrary, so
+ * after loading the neighbours of a cave can be anywhere in the arrays and
+ * traversing a large labyrinth misses the cache on almost every step.
+ *
+ * Two orders are available: breadth-first order from the start cave ("bfs"),
+ * and reverse Cuthill-McKee ("rcm"), which also visits low-degree neighbours
+ * first to keep the spread of neighbour indices small. Only the internal
+ * order changes; cave ids, passages and the Mount Api id are kept, and the
+ * start cave stays first.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.ArrayList;
+
+public class LabyrinthReorderer
+{
+    // Orders that can be applied
+    private static final String[] MODES = {"bfs", "rcm"};
+
+    /**
+     * Checks if a reorder mode is known.
+     *
+     * @param mode The mode to check
+     * @return true if the mode is "bfs" or "rcm"
+     */
+    public static boolean isValidMode(String mode)
+    {
+        for (String name : MODES)
+        {
+            if (name.equals(mode))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Works out the new order of the caves.
+     *
+     * @param graph The labyrinth to reorder
+     * @param mode The order to use: "bfs" or "rcm"
+     * @return The old index of the cave at each new index
+     */
+    public static int[] order(LabyrinthGraph graph, String mode)
+    {
+        if (mode.equals("rcm"))
+        {
+            return reverseCuthillMcKeeOrder(graph);
+        }
+        return breadthFirstOrder(graph);
+    }
+
+    /**
+     * Orders the caves breadth-first from the start cave. Caves that cannot
+     * be reached follow in their original order.
+     *
+     * @param graph The labyrinth to reorder
+     * @return The old index of the cave at each new index
+     */
+    public static int[] breadthFirstOrder(LabyrinthGraph graph)
+    {
+        int size = graph.size();
+        int[] order = new int[size];
+        boolean[] placed = new boolean[size];
+        int count = 0;
+
+        for (int root = 0; root < size; root++)
+        {
+            if (placed[root])
+            {
+                continue;
+            }
+            placed[root] = true;
+            int head = count;
+            order[count++] = root;
+
+            // The order array doubles as the BFS queue
+            while (head < count)
+            {
+                int cave = order[head++];
+                for (int d = 0; d < 4; d++)
+                {
+                    int target = graph.getNeighbour(cave, d);
+                    if (target >= 0 && !placed[target])
+                    {
+                        placed[target] = true;
+                        order[count++] = target;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Orders the caves by reverse Cuthill-McKee: a breadth-first search that
+     * visits neighbours in order of increasing degree, reversed at the end.
+     * The start cave is then moved back to the front so it stays at index 0.
+     *
+     * @param graph The labyrinth to reorder
+     * @return The old index of the cave at each new index
+     */
+    public static int[] reverseCuthillMcKeeOrder(LabyrinthGraph graph)
+    {
+        int size = graph.size();
+        int[] degree = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            for (int d = 0; d < 4; d++)
+            {
+                if (graph.getNeighbour(i, d) >= 0)
+                {
+                    degree[i]++;
+                }
+            }
+        }
+
+        int[] order = new int[size];
+        boolean[] placed = new boolean[size];
+        int[] neighbours = new int[4];
+        int count = 0;
+
+        for (int root = 0; root < size; root++)
+        {
+            if (placed[root])
+            {
+                continue;
+            }
+            placed[root] = true;
+            int head = count;
+            order[count++] = root;
+
+            while (head < count)
+            {
+                int cave = order[head++];
+
+                // Collect unplaced neighbours and sort them by degree (at most four)
+                int found = 0;
+                for (int d = 0; d < 4; d++)
+                {
+                    int target = graph.getNeighbour(cave, d);
+                    if (target >= 0 && !placed[target])
+                    {
+                        placed[target] = true;
+                        int j = found++;
+                        while (j > 0 && degree[neighbours[j - 1]] > degree[target])
+                        {
+                            neighbours[j] = neighbours[j - 1];
+                            j--;
+                        }
+                        neighbours[j] = target;
+                    }
+                }
+                for (int j = 0; j < found; j++)
+                {
+                    order[count++] = neighbours[j];
+                }
+            }
+        }
+
+        // Reverse, keeping the start cave (old index 0, now last) at the front
+        int[] reversed = new int[size];
+        if (size > 0)
+        {
+            reversed[0] = order[0];
+            for (int i = 1; i < size; i++)
+            {
+                reversed[i] = order[size - i];
+            }
+        }
+        return reversed;
+    }
+
+    /**
+     * Builds a new graph with the caves in a new order. Passages are stored
+     * as cave ids, so only the rows move.
+     *
+     * @param graph The labyrinth to reorder
+     * @param order The old index of the cave at each new index
+     * @return The reordered labyrinth
+     */
+    public static LabyrinthGraph reorder(LabyrinthGraph graph, int[] order)
+    {
+        int size = graph.size();
+        int[] ids = new int[size];
+        int[] passages = new int[size * 4];
+        for (int i = 0; i < size; i++)
+        {
+            ids[i] = graph.getId(order[i]);
+            for (int d = 0; d < 4; d++)
+            {
+                passages[i * 4 + d] = graph.getPassage(order[i], d);
+            }
+        }
+        return new LabyrinthGraph(size, ids, passages);
+    }
+
+    /**
+     * Reorders the caves loaded by GameFileHandler. New Cave objects are
+     * created in the new order so that they are also allocated close together.
+     *
+     * @param labyrinth The caves of the labyrinth, start cave first
+     * @param mode The order to use: "bfs" or "rcm"
+     * @return The reordered caves, start cave first
+     */
+    public static ArrayList<Cave> reorder(ArrayList<Cave> labyrinth, String mode)
+    {
+        int[] order = order(LabyrinthGraph.fromCaves(labyrinth), mode);
+        ArrayList<Cave> reordered = new ArrayList<>(labyrinth.size());
+        for (int index : order)
+        {
+            Cave cave = labyrinth.get(index);
+            reordered.add(new Cave(cave.getId(), cave.getNorth(), cave.getEast(),
+                    cave.getSouth(), cave.getWest()));
+        }
+        return reordered;
+    }
+}
@@ -0,0 +1,302 @@
+/**
+ * LabyrinthReport holds the results of a LabyrinthAnalyzer run. Counts cover
+ * the whole labyrinth, while the example lists keep only the first few
+ * problems found so that reports on huge labyrinths stay small.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+public class LabyrinthReport
+{
+    private static final int MAX_EXAMPLES = 10; // Examples kept for each kind of problem
+
+    private int caveCount;
+    private ArrayList<Integer> duplicateIds;
+    private long danglingCount;
+    private List<String> danglingExamples;
+    private long oneWayCount;
+    private List<String> oneWayExamples;
+    private int unreachableCount;
+    private List<Integer> unreachableExamples;
+    private int componentCount;
+    private int largestComponentSize;
+    private boolean mountApiReachable;
+    private long elapsedMillis;
+
+    /**
+     * Non-default constructor for LabyrinthReport.
+     *
+     * @param caveCount The number of caves analysed
+     */
+    public LabyrinthReport(int caveCount)
+    {
+        this.caveCount = caveCount;
+        this.duplicateIds = new ArrayList<>();
+        this.danglingCount = 0;
+        this.danglingExamples = new ArrayList<>();
+        this.oneWayCount = 0;
+        this.oneWayExamples = new ArrayList<>();
+        this.unreachableCount = 0;
+        this.unreachableExamples = new ArrayList<>();
+        this.componentCount = 0;
+        this.largestComponentSize = 0;
+        this.mountApiReachable = false;
+        this.elapsedMillis = 0;
+    }
+
+    /**
+     * Adds examples to a list without going over the example limit.
+     *
+     * @param list The list to add to
+     * @param examples The examples to add
+     */
+    static <T> void addExamples(List<T> list, List<T> examples)
+    {
+        for (T example : examples)
+        {
+            if (list.size() >= MAX_EXAMPLES)
+            {
+                return;
+            }
+            list.add(example);
+        }
+    }
+
+    /**
+     * Gets the maximum number of examples kept for each kind of problem.
+     *
+     * @return The example limit
+     */
+    public static int getMaxExamples()
+    {
+        return MAX_EXAMPLES;
+    }
+
+    /**
+     * Gets the number of caves analysed.
+     *
+     * @return The number of caves
+     */
+    public int getCaveCount()
+    {
+        return this.caveCount;
+    }
+
+    /**
+     * Gets the number of passages to caves that do not exist.
+     *
+     * @return The number of dangling passages
+     */
+    public long getDanglingCount()
+    {
+        return this.danglingCount;
+    }
+
+    /**
+     * Gets the ids that appear more than once.
+     *
+     * @return The duplicate ids
+     */
+    public ArrayList<Integer> getDuplicateIds()
+    {
+        return this.duplicateIds;
+    }
+
+    /**
+     * Gets the time taken by the analysis.
+     *
+     * @return The elapsed time in milliseconds
+     */
+    public long getElapsedMillis()
+    {
+        return this.elapsedMillis;
+    }
+
+    /**
+     * Gets the number of strongly connected components.
+     *
+     * @return The number of components
+     */
+    public int getComponentCount()
+    {
+        return this.componentCount;
+    }
+
+    /**
+     * Gets the size of the largest strongly connected component.
+     *
+     * @return The number of caves in the largest component
+     */
+    public int getLargestComponentSize()
+    {
+        return this.largestComponentSize;
+    }
+
+    /**
+     * Gets the number of passages with no passage leading back.
+     *
+     * @return The number of one-way passages
+     */
+    public long getOneWayCount()
+    {
+        return this.oneWayCount;
+    }
+
+    /**
+     * Gets the number of caves that cannot be reached from the start cave.
+     *
+     * @return The number of unreachable caves
+     */
+    public int getUnreachableCount()
+    {
+        return this.unreachableCount;
+    }
+
+    /**
+     * Gets the problems that would affect play, one line each.
+     *
+     * @return The warnings, or an empty list if the labyrinth has no problems
+     */
+    public ArrayList<String> getWarnings()
+    {
+        ArrayList<String> warnings = new ArrayList<>();
+        if (!this.duplicateIds.isEmpty())
+        {
+            warnings.add(this.duplicateIds.size() + " duplicate cave id(s), e.g. " +
+                    this.duplicateIds.subList(0, Math.min(MAX_EXAMPLES, this.duplicateIds.size())));
+        }
+        if (this.danglingCount > 0)
+        {
+            warnings.add(this.danglingCount + " passage(s) lead to caves that do not exist, e.g. " +
+                    this.danglingExamples);
+        }
+        if (this.unreachableCount > 0)
+        {
+            warnings.add(this.unreachableCount + " cave(s) cannot be reached from the start cave, e.g. " +
+                    this.unreachableExamples);
+        }
+        if (!this.mountApiReachable)
+        {
+            warnings.add("Mount Api cannot be reached from the start cave");
+        }
+        return warnings;
+    }
+
+    /**
+     * Checks if Mount Api can be reached from the start cave.
+     *
+     * @return true if Mount Api is reachable
+     */
+    public boolean isMountApiReachable()
+    {
+        return this.mountApiReachable;
+    }
+
+    /**
+     * Checks if the labyrinth can be played: ids are unique and Mount Api can be reached.
+     *
+     * @return true if the labyrinth is playable
+     */
+    public boolean isPlayable()
+    {
+        return this.caveCount > 0 && this.duplicateIds.isEmpty() && this.mountApiReachable;
+    }
+
+    /**
+     * Sets the strongly connected component results.
+     *
+     * @param componentCount The number of components
+     * @param largestComponentSize The size of the largest component
+     */
+    void setComponents(int componentCount, int largestComponentSize)
+    {
+        this.componentCount = componentCount;
+        this.largestComponentSize = largestComponentSize;
+    }
+
+    /**
+     * Sets the dangling passage results.
+     *
+     * @param count The number of dangling passages
+     * @param examples Examples of dangling passages
+     */
+    void setDangling(long count, List<String> examples)
+    {
+        this.danglingCount = count;
+        addExamples(this.danglingExamples, examples);
+    }
+
+    /**
+     * Sets the duplicate id results.
+     *
+     * @param duplicateIds The duplicate ids
+     */
+    void setDuplicateIds(ArrayList<Integer> duplicateIds)
+    {
+        this.duplicateIds = duplicateIds;
+    }
+
+    /**
+     * Sets the time taken by the analysis.
+     *
+     * @param elapsedMillis The elapsed time in milliseconds
+     */
+    void setElapsedMillis(long elapsedMillis)
+    {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Sets the one-way passage results.
+     *
+     * @param count The number of one-way passages
+     * @param examples Examples of one-way passages
+     */
+    void setOneWay(long count, List<String> examples)
+    {
+        this.oneWayCount = count;
+        addExamples(this.oneWayExamples, examples);
+    }
+
+    /**
+     * Sets the reachability results.
+     *
+     * @param unreachableCount The number of caves not reachable from the start cave
+     * @param examples Ids of unreachable caves
+     * @param mountApiReachable true if Mount Api is reachable from the start cave
+     */
+    void setReachability(int unreachableCount, List<Integer> examples, boolean mountApiReachable)
+    {
+        this.unreachableCount = unreachableCount;
+        addExamples(this.unreachableExamples, examples);
+        this.mountApiReachable = mountApiReachable;
+    }
+
+    /**
+     * Returns a string representation of the report.
+     *
+     * @return String representation
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== LABYRINTH INTEGRITY REPORT ===\n");
+        sb.append("Caves: ").append(this.caveCount).append('\n');
+        sb.append("Duplicate ids: ").append(this.duplicateIds.size()).append('\n');
+        sb.append("Dangling passages: ").append(this.danglingCount);
+        sb.append(this.danglingExamples.isEmpty() ? "" : " " + this.danglingExamples).append('\n');
+        sb.append("One-way passages: ").append(this.oneWayCount);
+        sb.append(this.oneWayExamples.isEmpty() ? "" : " " + this.oneWayExamples).append('\n');
+        sb.append("Unreachable caves: ").append(this.unreachableCount);
+        sb.append(this.unreachableExamples.isEmpty() ? "" : " " + this.unreachableExamples).append('\n');
+        sb.append("Strongly connected components: ").append(this.componentCount);
+        sb.append(" (largest: ").append(this.largestComponentSize).append(" caves)\n");
+        sb.append("Mount Api reachable from start cave: ").append(this.mountApiReachable ? "yes" : "no").append('\n');
+        sb.append("Analysis time: ").append(this.elapsedMillis).append(" ms");
+        return sb.toString();
+    }
+}
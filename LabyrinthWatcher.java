@@ -0,0 +1,214 @@
+/**
+ * LabyrinthWatcher reloads the labyrinth file when it is edited, so broken
+ * passages can be fixed without restarting a game. A background thread
+ * waits for changes to the file with a WatchService, lets the writes settle,
+ * loads and checks the new file, and publishes it only if it is playable.
+ * The game thread picks up the new labyrinth at a safe point between caves,
+ * so reloading never makes the player wait.
+ *
+ * Problems found while reloading are kept as messages for the game thread
+ * to show, rather than printed from the watcher thread.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LabyrinthWatcher
+{
+    private static final long SETTLE_MILLIS = 200; // Quiet time after the last change before reloading
+
+    private Path file;
+    private String reorderMode;
+    private WatchService watchService;
+    private AtomicReference<Labyrinth> reloaded; // checked labyrinth not yet taken by the game, or null
+    private ConcurrentLinkedQueue<String> messages; // reload results for the game thread to show
+    private volatile int reloadCount;
+
+    /**
+     * Non-default constructor for LabyrinthWatcher.
+     *
+     * @param filename The labyrinth file to watch
+     * @param reorderMode "bfs" or "rcm" to reorder the caves of each reload, or null to keep the file order
+     */
+    public LabyrinthWatcher(String filename, String reorderMode)
+    {
+        this.file = Path.of(filename).toAbsolutePath();
+        this.reorderMode = reorderMode;
+        this.watchService = null;
+        this.reloaded = new AtomicReference<>();
+        this.messages = new ConcurrentLinkedQueue<>();
+        this.reloadCount = 0;
+    }
+
+    /**
+     * Starts watching the file on a daemon thread.
+     *
+     * @throws IOException if the directory of the file cannot be watched
+     */
+    public void start() throws IOException
+    {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread watcher = new Thread(this::watch, "labyrinth-watcher");
+        watcher.setDaemon(true); // Don't keep the program running after the game ends
+        watcher.start();
+    }
+
+    /**
+     * Stops watching the file.
+     */
+    public void stop()
+    {
+        try
+        {
+            if (this.watchService != null)
+            {
+                this.watchService.close();
+            }
+        }
+        catch (IOException e)
+        {
+            // Nothing more to stop
+        }
+    }
+
+    /**
+     * Takes the labyrinth loaded since the last call, if there is one.
+     * Called by the game thread at a safe point between caves.
+     *
+     * @return The reloaded labyrinth, or null if the file has not changed
+     */
+    public Labyrinth takeReloaded()
+    {
+        return this.reloaded.getAndSet(null);
+    }
+
+    /**
+     * Takes the next message about a reload, e.g. why an edit was rejected.
+     *
+     * @return The message, or null if there are none
+     */
+    public String takeMessage()
+    {
+        return this.messages.poll();
+    }
+
+    /**
+     * Gets the number of reloads published so far.
+     *
+     * @return The number of reloads
+     */
+    public int getReloadCount()
+    {
+        return this.reloadCount;
+    }
+
+    /**
+     * Waits for changes to the file and reloads it, until the watch service is closed.
+     */
+    private void watch()
+    {
+        try
+        {
+            while (true)
+            {
+                WatchKey key = this.watchService.take();
+                boolean changed = this.isFileChanged(key);
+
+                // Editors often write a file in several steps, so wait until it is quiet
+                WatchKey more;
+                while ((more = this.watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null)
+                {
+                    changed |= this.isFileChanged(more);
+                }
+
+                if (changed)
+                {
+                    this.reload();
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ClosedWatchServiceException e)
+        {
+            // Stopped
+        }
+    }
+
+    /**
+     * Checks the events of a watch key for a change to the watched file,
+     * and resets the key for further events.
+     *
+     * @param key The watch key
+     * @return true if the watched file was created or modified
+     */
+    private boolean isFileChanged(WatchKey key)
+    {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            // An overflow means events were lost, so the file may have changed
+            changed |= event.kind() == StandardWatchEventKinds.OVERFLOW ||
+                    this.file.getFileName().equals(event.context());
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Loads and checks the file, publishing it if it can be played.
+     */
+    private void reload()
+    {
+        Labyrinth labyrinth;
+        try
+        {
+            labyrinth = Labyrinth.load(this.file.toString(), this.reorderMode);
+        }
+        catch (IOException e)
+        {
+            this.messages.add("The edited labyrinth could not be read (" + e.getMessage() +
+                    "), so the current one is kept.");
+            return;
+        }
+
+        // Load warnings end with a full stop, report warnings do not
+        ArrayList<String> problems = new ArrayList<>(labyrinth.getLoadWarnings());
+        if (labyrinth.isEmpty())
+        {
+            problems.add("No valid caves were loaded.");
+        }
+        else if (!labyrinth.getReport().isPlayable())
+        {
+            for (String warning : labyrinth.getReport().getWarnings())
+            {
+                problems.add(warning + ".");
+            }
+        }
+        if (!problems.isEmpty())
+        {
+            this.messages.add("The edited labyrinth was not loaded, so the current one is kept. " +
+                    String.join(" ", problems));
+            return;
+        }
+
+        this.reloaded.set(labyrinth); // Replaces any reload the game has not taken yet
+        this.reloadCount++;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * MetricsServer serves GameMetrics in the Prometheus text format at
+ * http://localhost:PORT/metrics. It only listens on the loopback address,
+ * so the metrics cannot be read from another machine.
+ *
+ * To start the game with the metrics server, use:
+ *       java FellowshipOfCode --metrics-port=9400
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+public class MetricsServer
+{
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private HttpServer server;
+
+    /**
+     * Non-default constructor for MetricsServer. The server is not started
+     * until start() is called.
+     *
+     * @param port The localhost port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public MetricsServer(int port) throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/metrics", this::handleScrape);
+    }
+
+    /**
+     * Starts serving requests on a background thread.
+     */
+    public void start()
+    {
+        this.server.start();
+    }
+
+    /**
+     * Stops the server, waiting up to a second for requests in progress.
+     */
+    public void stop()
+    {
+        this.server.stop(1);
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The port number
+     */
+    public int getPort()
+    {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Answers a scrape of /metrics.
+     *
+     * @param exchange The request and response
+     * @throws IOException if the response cannot be written
+     */
+    private void handleScrape(HttpExchange exchange) throws IOException
+    {
+        try (exchange)
+        {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD"))
+            {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = GameMetrics.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (exchange.getRequestMethod().equals("HEAD"))
+            {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody())
+            {
+                out.write(body);
+            }
+        }
+    }
+}
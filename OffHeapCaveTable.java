@@ -0,0 +1,287 @@
+/**
+ * OffHeapCaveTable holds every cave of a very large labyrinth as a packed
+ * record of five ints (id, north, east, south, west) in direct byte buffers,
+ * outside the Java heap. A labyrinth of 10^8 caves takes 2 GB of native
+ * memory and no heap at all, so garbage collection pauses do not grow with
+ * the labyrinth.
+ *
+ * The game still works with Cave objects: a lookup makes a small Cave from
+ * the record, used while the Fellowship looks at that cave and then left to
+ * the young generation, and only caves that still hold a creature the
+ * Fellowship met are kept (see CaveStore). The table is loaded from the binary page file written by
+ * CavePageStore, so the cave ids are in increasing order and a lookup is a
+ * binary search over the records.
+ *
+ * Direct buffers count against -XX:MaxDirectMemorySize, which defaults to
+ * the maximum heap size, so raise it for labyrinths larger than the heap.
+ *
+ * To load a labyrinth off the heap and walk through it, use:
+ *       java -XX:MaxDirectMemorySize=4g OffHeapCaveTable [labyrinth file] [moves]
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Random;
+
+public class OffHeapCaveTable extends CaveStore
+{
+    private static final int CHUNK_SHIFT = 25; // 2^25 caves (640 MB) per buffer, under the 2 GB buffer limit
+    private static final int CHUNK_CAVES = 1 << CHUNK_SHIFT;
+    private static final int RECORD_BYTES = CavePageStore.RECORD_BYTES;
+    private static final int MOUNT_API_ID = 100; // ID for Mount Api
+    private static final int DEFAULT_MOVES = 1_000_000;
+
+    private ByteBuffer[] chunks; // direct buffers of records, CHUNK_CAVES caves each
+    private int caveCount; // not counting Mount Api
+    private Cave mountApi; // kept out of the table, or null if the labyrinth has none
+    private Cave startCave;
+
+    /**
+     * Non-default constructor for OffHeapCaveTable. Reads every record of a
+     * page file into native memory; use open() to convert the labyrinth
+     * file first if needed.
+     *
+     * @param pageFile The page file to read
+     * @throws IOException if the page file cannot be read or is not a page file
+     */
+    public OffHeapCaveTable(String pageFile) throws IOException
+    {
+        try (RandomAccessFile file = new RandomAccessFile(pageFile, "r"))
+        {
+            FileChannel channel = file.getChannel();
+            ByteBuffer header = CavePageStore.readHeader(channel, pageFile);
+            header.getInt(); // Caves per page, not needed here
+            this.caveCount = header.getInt();
+            this.mountApi = CavePageStore.readMountApi(header);
+
+            int chunkCount = (this.caveCount + CHUNK_CAVES - 1) / CHUNK_CAVES;
+            this.chunks = new ByteBuffer[chunkCount];
+            long position = CavePageStore.HEADER_BYTES;
+            for (int c = 0; c < chunkCount; c++)
+            {
+                int caves = Math.min(CHUNK_CAVES, this.caveCount - c * CHUNK_CAVES);
+                this.chunks[c] = ByteBuffer.allocateDirect(caves * RECORD_BYTES);
+                CavePageStore.readFully(channel, this.chunks[c], position);
+                position += (long) caves * RECORD_BYTES;
+            }
+        }
+
+        this.startCave = this.caveCount == 0 ? null : this.makeCave(0);
+        this.pin(this.startCave);
+    }
+
+    /**
+     * Loads a labyrinth file into native memory, converting it into a page
+     * file first if there is none or the labyrinth file is newer. Nothing is
+     * printed, so this can run on a background thread.
+     *
+     * @param filename The labyrinth file
+     * @param warnings List that receives a message for each invalid line (the first few only)
+     * @return The loaded table
+     * @throws FileNotFoundException if the labyrinth file is not found
+     * @throws IOException if the file cannot be converted or read
+     */
+    public static OffHeapCaveTable open(String filename, ArrayList<String> warnings)
+            throws FileNotFoundException, IOException
+    {
+        return new OffHeapCaveTable(CavePageStore.preparePageFile(filename, warnings));
+    }
+
+    /**
+     * Finds a cave by its id. A kept cave is returned as kept; any other
+     * cave is made fresh from its record.
+     *
+     * @param id The cave id
+     * @return The cave, or null if there is no cave with that id
+     */
+    @Override
+    public Cave findCave(int id)
+    {
+        if (id == MOUNT_API_ID && this.mountApi != null)
+        {
+            return this.mountApi;
+        }
+
+        Cave kept = this.getKeptCave(id);
+        if (kept != null)
+        {
+            return kept;
+        }
+
+        int index = this.indexOf(id);
+        return index < 0 ? null : this.makeCave(index);
+    }
+
+    /**
+     * Finds the record of a cave by binary search, as ids are in increasing order.
+     *
+     * @param id The cave id
+     * @return The index of the record, or -1 if there is no cave with that id
+     */
+    private int indexOf(int id)
+    {
+        int low = 0;
+        int high = this.caveCount - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int middleId = this.getInt(middle, 0);
+            if (middleId < id)
+            {
+                low = middle + 1;
+            }
+            else if (middleId > id)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Makes a cave from its record.
+     *
+     * @param index The index of the record
+     * @return A new cave with the record's id and passages
+     */
+    private Cave makeCave(int index)
+    {
+        return new Cave(this.getInt(index, 0), this.getInt(index, 1), this.getInt(index, 2),
+                this.getInt(index, 3), this.getInt(index, 4));
+    }
+
+    /**
+     * Reads one int of a record.
+     *
+     * @param index The index of the record
+     * @param field 0 for the id, 1 to 4 for the north, east, south and west passages
+     * @return The value
+     */
+    private int getInt(int index, int field)
+    {
+        return this.chunks[index >>> CHUNK_SHIFT].getInt((index & (CHUNK_CAVES - 1)) * RECORD_BYTES +
+                field * Integer.BYTES);
+    }
+
+    /**
+     * Gets the cave the quest starts in.
+     *
+     * @return The first cave in the file, or null if there are no caves
+     */
+    @Override
+    public Cave getStartCave()
+    {
+        return this.startCave;
+    }
+
+    /**
+     * Gets the number of caves.
+     *
+     * @return The number of caves
+     */
+    @Override
+    public int size()
+    {
+        return this.caveCount + (this.mountApi != null ? 1 : 0);
+    }
+
+    /**
+     * Gets the native memory used by the records.
+     *
+     * @return The size of the table in bytes
+     */
+    public long getTableBytes()
+    {
+        return (long) this.caveCount * RECORD_BYTES;
+    }
+
+    /**
+     * Nothing to close: the file is read in full when the table is made,
+     * and the native memory is freed with the table.
+     */
+    @Override
+    public void close()
+    {
+
+    }
+
+    /**
+     * Loads a labyrinth off the heap, walks through it at random and prints
+     * the memory and garbage collection figures.
+     *
+     * @param args Labyrinth file (labyrinth.txt if not given) and number of moves (1,000,000 if not given)
+     */
+    public static void main(String[] args)
+    {
+        String filename = args.length > 0 ? args[0] : "labyrinth.txt";
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MOVES;
+
+        ArrayList<String> warnings = new ArrayList<>();
+        long start = System.nanoTime();
+        OffHeapCaveTable table;
+        try
+        {
+            table = open(filename, warnings);
+        }
+        catch (IOException e)
+        {
+            System.out.println("Error loading labyrinth: " + e.getMessage());
+            return;
+        }
+        catch (OutOfMemoryError e)
+        {
+            System.out.println("Error: Not enough direct memory. Raise it with -XX:MaxDirectMemorySize.");
+            return;
+        }
+        long loaded = System.nanoTime();
+        for (String warning : warnings)
+        {
+            System.out.println("Warning: " + warning);
+        }
+        if (table.size() == 0)
+        {
+            System.out.println("Error: No valid caves were loaded from " + filename + ".");
+            return;
+        }
+
+        Random random = new Random(1);
+        Cave cave = table.getStartCave();
+        for (int move = 0; move < moves; move++)
+        {
+            int passage = cave.getPassage(random.nextInt(4));
+            Cave next = passage == 0 || passage == MOUNT_API_ID ? null : table.findCave(passage);
+            cave = next == null ? table.getStartCave() : next;
+        }
+        long walked = System.nanoTime();
+
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long collections = 0;
+        long collectionMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            collections += Math.max(0, collector.getCollectionCount());
+            collectionMillis += Math.max(0, collector.getCollectionTime());
+        }
+
+        System.out.println("=== OFF-HEAP LABYRINTH (" + table.size() + " caves) ===");
+        System.out.println(String.format("Loaded in %.1f ms, %d moves in %.1f ms", (loaded - start) / 1e6,
+                moves, (walked - loaded) / 1e6));
+        System.out.println(String.format("Off-heap table: %.1f MB, heap in use: %.1f MB",
+                table.getTableBytes() / 1e6, (runtime.totalMemory() - runtime.freeMemory()) / 1e6));
+        System.out.println(String.format("Garbage collections: %d, total time %d ms", collections,
+                collectionMillis));
+    }
+}
@@ -6,7 +6,7 @@
  */
 public class Orc extends EvilCreature
 {
-    private static final int ORC_POWER = 5;
+    private static final int ORC_POWER = GameRules.ORC_POWER;
     
     /**
      * Default constructor for Orc.
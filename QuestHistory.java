@@ -0,0 +1,179 @@
+/**
+ * QuestHistory records the caves the Fellowship has visited and the
+ * creatures that have died, for the game status and the quest summary.
+ *
+ * By default everything is kept. In bounded-memory mode only counts are
+ * kept, plus the most recently visited caves in a fixed-size ring and the
+ * deaths of Fellowship members by name, so memory stays the same however
+ * long the quest runs. Dead evil creatures are then only counted by type,
+ * and can be released from their caves.
+ *
+ * A revisit is found from a flag on the cave itself, so nothing grows with
+ * the cave ids visited. Each labyrinth of a campaign has its own caves, so
+ * visits start again in a new labyrinth. A cave that is read again from a
+ * page file after being let go (see CaveStore) counts as a new visit.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class QuestHistory
+{
+    public static final int DEFAULT_RECENT_CAVES = 20; // Caves kept for display in bounded-memory mode
+
+    private boolean bounded;
+    private int visitedCount;
+    private ArrayList<Cave> visitedCaves; // every visited cave, or null when bounded
+    private Cave[] recentCaves; // ring of the latest visited caves, or null when unbounded
+    private ArrayList<Creature> deadCreatures; // every dead creature, or only Fellowship members when bounded
+    private LinkedHashMap<String, Integer> deathsByType; // dead evil creatures by type, when bounded
+    private int deathCount;
+
+    /**
+     * Default constructor for QuestHistory. Keeps the whole history.
+     */
+    public QuestHistory()
+    {
+        this(0);
+    }
+
+    /**
+     * Non-default constructor for QuestHistory.
+     *
+     * @param recentCaves The number of recent caves to keep, or 0 to keep the whole history
+     */
+    public QuestHistory(int recentCaves)
+    {
+        this.bounded = recentCaves > 0;
+        this.visitedCount = 0;
+        this.visitedCaves = this.bounded ? null : new ArrayList<>();
+        this.recentCaves = this.bounded ? new Cave[recentCaves] : null;
+        this.deadCreatures = new ArrayList<>();
+        this.deathsByType = new LinkedHashMap<>();
+        this.deathCount = 0;
+    }
+
+    /**
+     * Checks if the history is kept in bounded memory.
+     *
+     * @return true if only counts and recent caves are kept
+     */
+    public boolean isBounded()
+    {
+        return this.bounded;
+    }
+
+    /**
+     * Records a visit to a cave. Caves are only counted the first time.
+     *
+     * @param cave The cave that was visited
+     * @return true if this was the first visit
+     */
+    public boolean addVisitedCave(Cave cave)
+    {
+        if (cave == null || cave.isVisited())
+        {
+            return false;
+        }
+
+        cave.setVisited(true);
+        if (this.bounded)
+        {
+            this.recentCaves[this.visitedCount % this.recentCaves.length] = cave;
+        }
+        else
+        {
+            this.visitedCaves.add(cave);
+        }
+        this.visitedCount++;
+        return true;
+    }
+
+    /**
+     * Gets the number of different caves visited.
+     *
+     * @return The number of caves visited
+     */
+    public int getVisitedCount()
+    {
+        return this.visitedCount;
+    }
+
+    /**
+     * Gets the position of the earliest visited cave still kept.
+     *
+     * @return 0 when the whole history is kept, otherwise the position of the oldest cave in the ring
+     */
+    public int getFirstKeptVisit()
+    {
+        return this.bounded ? Math.max(0, this.visitedCount - this.recentCaves.length) : 0;
+    }
+
+    /**
+     * Gets a visited cave by its position in visiting order.
+     *
+     * @param visit The position, from getFirstKeptVisit() to getVisitedCount() - 1
+     * @return The cave
+     */
+    public Cave getVisitedCave(int visit)
+    {
+        if (visit < this.getFirstKeptVisit() || visit >= this.visitedCount)
+        {
+            throw new IndexOutOfBoundsException("Visit " + visit + " is not kept");
+        }
+        return this.bounded ? this.recentCaves[visit % this.recentCaves.length] : this.visitedCaves.get(visit);
+    }
+
+    /**
+     * Records the death of a creature and marks it as dead.
+     *
+     * @param creature The creature that died
+     */
+    public void addDeadCreature(Creature creature)
+    {
+        creature.setDead(true);
+        this.deathCount++;
+        if (this.bounded && creature instanceof EvilCreature)
+        {
+            this.deathsByType.merge(creature.getClass().getSimpleName(), 1, Integer::sum);
+        }
+        else
+        {
+            this.deadCreatures.add(creature);
+        }
+    }
+
+    /**
+     * Gets the number of creatures that have died.
+     *
+     * @return The number of deaths
+     */
+    public int getDeathCount()
+    {
+        return this.deathCount;
+    }
+
+    /**
+     * Describes the creatures that died, one line each, for the quest
+     * summary. In bounded-memory mode dead evil creatures are listed as a
+     * count for each type.
+     *
+     * @return Lines such as "- Orc 7 (Orc)", or "- Orc x12" when bounded
+     */
+    public ArrayList<String> describeDeaths()
+    {
+        ArrayList<String> lines = new ArrayList<>();
+        for (Creature creature : this.deadCreatures)
+        {
+            lines.add("- " + creature.getName() + " (" + creature.getClass().getSimpleName() + ")");
+        }
+        for (Map.Entry<String, Integer> entry : this.deathsByType.entrySet())
+        {
+            lines.add("- " + entry.getKey() + " x" + entry.getValue());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * QuestResult records the outcome of one completed quest for the results store.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.Locale;
+
+public class QuestResult
+{
+    private static final char SEPARATOR = '\t';
+
+    private long sequence;
+    private long timestamp;
+    private String playerName;
+    private boolean success;
+    private int cavesVisited;
+    private int codeExchanges;
+    private double fightSuccessRate;
+    private int deaths;
+
+    /**
+     * Non-default constructor for QuestResult.
+     *
+     * @param timestamp The time the quest was completed, in milliseconds since the epoch
+     * @param playerName The name of the hobbit leading the fellowship
+     * @param success true if the code was delivered to Mount Api
+     * @param cavesVisited The number of caves visited during the quest
+     * @param codeExchanges The number of times the secret code changed hands
+     * @param fightSuccessRate The fellowship fight success rate as a percentage
+     * @param deaths The number of creatures that died during the quest
+     */
+    public QuestResult(long timestamp, String playerName, boolean success, int cavesVisited,
+                       int codeExchanges, double fightSuccessRate, int deaths)
+    {
+        this.sequence = 0;
+        this.timestamp = timestamp;
+        this.playerName = clean(playerName);
+        this.success = success;
+        this.cavesVisited = cavesVisited;
+        this.codeExchanges = codeExchanges;
+        this.fightSuccessRate = fightSuccessRate;
+        this.deaths = deaths;
+    }
+
+    /**
+     * Removes separators and line breaks from a name so it fits on one record line.
+     *
+     * @param name The name to clean
+     * @return The cleaned name
+     */
+    private static String clean(String name)
+    {
+        if (name == null || name.isEmpty())
+        {
+            return "Unknown";
+        }
+        return name.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * Parses a result from a line written by toRecord().
+     *
+     * @param line The record line, without the line terminator
+     * @return The parsed result, or null if the line is not a valid record
+     */
+    public static QuestResult fromRecord(String line)
+    {
+        String[] parts = line.split(String.valueOf(SEPARATOR));
+        if (parts.length != 7)
+        {
+            return null;
+        }
+
+        try
+        {
+            return new QuestResult(Long.parseLong(parts[0]), parts[1],
+                    parts[2].equals("SUCCESS"), Integer.parseInt(parts[3]),
+                    Integer.parseInt(parts[4]), Double.parseDouble(parts[5]),
+                    Integer.parseInt(parts[6]));
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the number of caves visited.
+     *
+     * @return The number of caves visited
+     */
+    public int getCavesVisited()
+    {
+        return this.cavesVisited;
+    }
+
+    /**
+     * Gets the number of times the secret code changed hands.
+     *
+     * @return The number of code exchanges
+     */
+    public int getCodeExchanges()
+    {
+        return this.codeExchanges;
+    }
+
+    /**
+     * Gets the number of creatures that died during the quest.
+     *
+     * @return The number of deaths
+     */
+    public int getDeaths()
+    {
+        return this.deaths;
+    }
+
+    /**
+     * Gets the fellowship fight success rate.
+     *
+     * @return The fight success rate as a percentage
+     */
+    public double getFightSuccessRate()
+    {
+        return this.fightSuccessRate;
+    }
+
+    /**
+     * Gets the name of the hobbit leading the fellowship.
+     *
+     * @return The player name
+     */
+    public String getPlayerName()
+    {
+        return this.playerName;
+    }
+
+    /**
+     * Gets the sequence number assigned when the result was indexed.
+     *
+     * @return The sequence number
+     */
+    public long getSequence()
+    {
+        return this.sequence;
+    }
+
+    /**
+     * Gets the time the quest was completed.
+     *
+     * @return The timestamp in milliseconds since the epoch
+     */
+    public long getTimestamp()
+    {
+        return this.timestamp;
+    }
+
+    /**
+     * Checks if the code was delivered to Mount Api.
+     *
+     * @return true if the quest succeeded, false otherwise
+     */
+    public boolean isSuccess()
+    {
+        return this.success;
+    }
+
+    /**
+     * Sets the sequence number used to order results with equal scores.
+     *
+     * @param sequence The sequence number
+     */
+    public void setSequence(long sequence)
+    {
+        if (sequence >= 0)
+        {
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Returns the result as a single tab-separated record line, including the line terminator.
+     *
+     * @return The record line
+     */
+    public String toRecord()
+    {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(this.timestamp).append(SEPARATOR)
+          .append(this.playerName).append(SEPARATOR)
+          .append(this.success ? "SUCCESS" : "FAILURE").append(SEPARATOR)
+          .append(this.cavesVisited).append(SEPARATOR)
+          .append(this.codeExchanges).append(SEPARATOR)
+          .append(String.format(Locale.ROOT, "%.2f", this.fightSuccessRate)).append(SEPARATOR)
+          .append(this.deaths).append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * Returns a string representation of the result.
+     *
+     * @return String representation
+     */
+    @Override
+    public String toString()
+    {
+        return this.playerName + " (" + (this.success ? "Success" : "Failure") +
+                ", Caves: " + this.cavesVisited +
+                ", Code exchanges: " + this.codeExchanges +
+                ", Fight success rate: " + String.format("%.2f", this.fightSuccessRate) + "%" +
+                ", Deaths: " + this.deaths + ")";
+    }
+}
@@ -0,0 +1,408 @@
+/**
+ * QuestSimulator plays whole quests without a player, to measure how hard a
+ * labyrinth or a set of rules is. The Fellowship is played the way
+ * RaceParty plays it: it wanders at random, fights the creature of every
+ * cave it enters with the member most likely to win, saves a special weapon
+ * for a fight it is likely to lose, and recovers in empty caves. The quest
+ * ends when the code is delivered, the code is lost with a dead member, the
+ * whole Fellowship dies, or it runs out of moves.
+ *
+ * A quest is played on primitive arrays rather than Cave and Creature
+ * objects, so millions of quests can be played in a sweep. The labyrinth is
+ * only read, so one LabyrinthGraph can be shared by simulators on many
+ * threads; each simulator keeps its own per-cave state and must only be
+ * used by one thread at a time.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.Arrays;
+import java.util.Random;
+
+public class QuestSimulator
+{
+    private static final int DIRECTION_COUNT = 4; // North, East, South, West
+    private static final int NO_CREATURE = -1; // Empty cave, or a creature that has died
+    private static final int MEMBER_COUNT = 4; // Hobbit, Elf, Dwarf 1 and Dwarf 2
+    private static final int SPECIAL_WEAPON_CHANCE = 50; // Win chance below which a special weapon is used
+    private static final boolean[] HAS_SPECIAL_WEAPON = {true, true, false, false}; // by member, Hobbit first
+
+    private LabyrinthGraph graph;
+    private GameRules rules;
+    private int maxMoves;
+    private Random random;
+
+    // Per-cave state, only valid where caveQuest matches the current quest
+    private int[] caveQuest;
+    private int[] creatureType;
+    private int[] creatureDamage;
+    private int quest;
+
+    private int[] memberPower;
+    private int[] memberDamage;
+    private boolean[] weaponUsed;
+    private int[] options; // passages to choose from, reused between moves
+    private int codeMember; // member holding the code, or NO_CREATURE
+    private int codeCave; // cave whose creature holds the code, or NO_CREATURE
+
+    private int cavesVisited;
+    private int moves;
+    private int fights;
+    private int codeExchanges;
+    private int memberDeaths;
+
+    /**
+     * Non-default constructor for QuestSimulator.
+     *
+     * @param graph The labyrinth to play, which is not changed
+     * @param rules The rules to play by, read at the start of each quest
+     * @param maxMoves The number of moves before the Fellowship gives up
+     */
+    public QuestSimulator(LabyrinthGraph graph, GameRules rules, int maxMoves)
+    {
+        this.graph = graph;
+        this.rules = rules;
+        this.maxMoves = maxMoves;
+        this.random = new Random();
+        this.caveQuest = new int[graph.size()];
+        this.creatureType = new int[graph.size()];
+        this.creatureDamage = new int[graph.size()];
+        this.quest = 0;
+        this.memberPower = new int[MEMBER_COUNT];
+        this.memberDamage = new int[MEMBER_COUNT];
+        this.weaponUsed = new boolean[MEMBER_COUNT];
+        this.options = new int[DIRECTION_COUNT];
+    }
+
+    /**
+     * Plays one quest. The seed decides both the creatures in the caves and
+     * the Fellowship's fights and choices, so a quest can be replayed.
+     *
+     * @param seed The seed of the quest
+     * @return true if the code was delivered to Mount Api
+     */
+    public boolean play(long seed)
+    {
+        this.startQuest(seed);
+        if (this.graph.size() == 0)
+        {
+            return false;
+        }
+
+        int cave = 0; // The start cave
+        while (true)
+        {
+            this.enterCave(cave, seed);
+            if (this.getActiveMembers() == 0 || this.isCodeLost())
+            {
+                return false;
+            }
+
+            if (this.codeMember != NO_CREATURE && this.hasExitToMountApi(cave))
+            {
+                return true;
+            }
+
+            if (this.moves >= this.maxMoves)
+            {
+                return false;
+            }
+            cave = this.chooseNextCave(cave);
+            if (cave == LabyrinthGraph.NO_CAVE)
+            {
+                return false; // No way on
+            }
+            this.moves++;
+        }
+    }
+
+    /**
+     * Resets the Fellowship and the counts for a new quest. Caves are reset
+     * lazily, when first entered, by moving on to a new quest number.
+     *
+     * @param seed The seed of the quest
+     */
+    private void startQuest(long seed)
+    {
+        this.quest++;
+        if (this.quest == 0)
+        {
+            Arrays.fill(this.caveQuest, 0); // Quest numbers wrapped around
+            this.quest = 1;
+        }
+        this.random.setSeed(seed);
+
+        this.memberPower[0] = this.rules.getHobbitPower();
+        this.memberPower[1] = this.rules.getElfPower();
+        this.memberPower[2] = this.rules.getDwarfPower();
+        this.memberPower[3] = this.rules.getDwarfPower();
+        for (int member = 0; member < MEMBER_COUNT; member++)
+        {
+            this.memberDamage[member] = 0;
+            this.weaponUsed[member] = false;
+        }
+        this.codeMember = 0; // Hobbit starts with the code
+        this.codeCave = NO_CREATURE;
+
+        this.cavesVisited = 0;
+        this.moves = 0;
+        this.fights = 0;
+        this.codeExchanges = 0;
+        this.memberDeaths = 0;
+    }
+
+    /**
+     * Deals with the creature of a cave, spawning it on the first visit.
+     *
+     * @param cave The index of the cave entered
+     * @param seed The seed of the quest, which decides the creatures
+     */
+    private void enterCave(int cave, long seed)
+    {
+        if (this.caveQuest[cave] != this.quest)
+        {
+            this.caveQuest[cave] = this.quest;
+            this.creatureType[cave] = CreatureSpawner.spawnType(seed, this.graph.getId(cave),
+                    this.rules.getSpawnChance());
+            this.creatureDamage[cave] = 0;
+            this.cavesVisited++;
+        }
+
+        if (this.creatureType[cave] != NO_CREATURE)
+        {
+            this.fight(this.chooseFighter(cave), cave);
+            return;
+        }
+
+        // The Fellowship recovers
+        for (int member = 0; member < MEMBER_COUNT; member++)
+        {
+            if (this.memberDamage[member] > 0 && this.memberDamage[member] < this.rules.getMaxDamagePoints())
+            {
+                this.memberDamage[member]--;
+            }
+        }
+    }
+
+    /**
+     * Chooses the active member most likely to win against the creature of
+     * a cave, preferring the least damaged on a tie.
+     *
+     * @param cave The index of the cave
+     * @return The member to fight
+     */
+    private int chooseFighter(int cave)
+    {
+        int fighter = NO_CREATURE;
+        int bestChance = -1;
+        for (int member = 0; member < MEMBER_COUNT; member++)
+        {
+            if (this.memberDamage[member] >= this.rules.getMaxDamagePoints())
+            {
+                continue; // Dead
+            }
+            int chance = this.getWinChance(member, cave);
+            if (chance > bestChance || (chance == bestChance &&
+                    this.memberDamage[member] < this.memberDamage[fighter]))
+            {
+                fighter = member;
+                bestChance = chance;
+            }
+        }
+        return fighter;
+    }
+
+    /**
+     * Fights the creature of a cave, following the rules of FellowshipOfCode.handleFight.
+     *
+     * @param member The member fighting
+     * @param cave The index of the cave
+     */
+    private void fight(int member, int cave)
+    {
+        this.fights++;
+        int maxDamage = this.rules.getMaxDamagePoints();
+        int winChance = this.getWinChance(member, cave);
+
+        // A special weapon is saved for a fight that is likely to be lost
+        boolean specialWeapon = false;
+        if (HAS_SPECIAL_WEAPON[member] && !this.weaponUsed[member] && winChance < SPECIAL_WEAPON_CHANCE)
+        {
+            this.weaponUsed[member] = true;
+            specialWeapon = true;
+        }
+
+        boolean memberWins = specialWeapon || this.random.nextInt(100) + 1 <= winChance;
+        if (memberWins)
+        {
+            if (specialWeapon)
+            {
+                this.creatureDamage[cave] = maxDamage;
+            }
+            else
+            {
+                this.memberDamage[member] += this.rules.getWinDamage();
+                this.creatureDamage[cave] += this.rules.getLossDamage();
+            }
+
+            if (this.codeCave == cave)
+            {
+                this.codeCave = NO_CREATURE;
+                this.codeMember = member;
+                this.codeExchanges++;
+            }
+        }
+        else
+        {
+            this.memberDamage[member] += this.rules.getLossDamage();
+            this.creatureDamage[cave] += this.rules.getWinDamage();
+
+            if (this.codeMember == member)
+            {
+                this.codeMember = NO_CREATURE;
+                this.codeCave = cave;
+                this.codeExchanges++;
+            }
+        }
+
+        if (this.memberDamage[member] >= maxDamage)
+        {
+            this.memberDeaths++;
+        }
+
+        if (this.creatureDamage[cave] >= maxDamage)
+        {
+            this.creatureType[cave] = NO_CREATURE;
+        }
+    }
+
+    /**
+     * Chooses a passage at random, leaving out Mount Api, which is only
+     * entered with the code.
+     *
+     * @param cave The index of the current cave
+     * @return The index of the next cave, or NO_CAVE if no passage leads anywhere
+     */
+    private int chooseNextCave(int cave)
+    {
+        int count = 0;
+        for (int direction = 0; direction < DIRECTION_COUNT; direction++)
+        {
+            int next = this.graph.getNeighbour(cave, direction);
+            if (next >= 0 && !this.graph.leadsToMountApi(cave, direction))
+            {
+                this.options[count++] = next;
+            }
+        }
+        return count == 0 ? LabyrinthGraph.NO_CAVE : this.options[this.random.nextInt(count)];
+    }
+
+    /**
+     * Checks if a cave has a passage leading directly to Mount Api.
+     *
+     * @param cave The index of the cave
+     * @return true if Mount Api can be reached from the cave
+     */
+    private boolean hasExitToMountApi(int cave)
+    {
+        for (int direction = 0; direction < DIRECTION_COUNT; direction++)
+        {
+            if (this.graph.leadsToMountApi(cave, direction))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the code died with the member carrying it, so it can never be delivered.
+     *
+     * @return true if the code is lost
+     */
+    private boolean isCodeLost()
+    {
+        return this.codeMember != NO_CREATURE && this.memberDamage[this.codeMember] >= this.rules.getMaxDamagePoints();
+    }
+
+    /**
+     * Counts the members that are still alive.
+     *
+     * @return The number of active members
+     */
+    private int getActiveMembers()
+    {
+        int active = 0;
+        for (int member = 0; member < MEMBER_COUNT; member++)
+        {
+            if (this.memberDamage[member] < this.rules.getMaxDamagePoints())
+            {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Gets the chance that a member beats the creature of a cave.
+     *
+     * @param member The member
+     * @param cave The index of the cave
+     * @return The win chance as a percentage
+     */
+    private int getWinChance(int member, int cave)
+    {
+        return this.rules.getWinChance(this.memberPower[member] -
+                this.rules.getEvilPower(this.creatureType[cave]));
+    }
+
+    /**
+     * Gets the number of different caves entered in the last quest.
+     *
+     * @return The number of caves visited
+     */
+    public int getCavesVisited()
+    {
+        return this.cavesVisited;
+    }
+
+    /**
+     * Gets the number of moves made in the last quest.
+     *
+     * @return The number of moves
+     */
+    public int getMoves()
+    {
+        return this.moves;
+    }
+
+    /**
+     * Gets the number of fights fought in the last quest.
+     *
+     * @return The number of fights
+     */
+    public int getFights()
+    {
+        return this.fights;
+    }
+
+    /**
+     * Gets the number of times the code changed hands in the last quest.
+     *
+     * @return The number of code exchanges
+     */
+    public int getCodeExchanges()
+    {
+        return this.codeExchanges;
+    }
+
+    /**
+     * Gets the number of Fellowship members who died in the last quest.
+     *
+     * @return The number of deaths
+     */
+    public int getMemberDeaths()
+    {
+        return this.memberDeaths;
+    }
+}
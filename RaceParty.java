@@ -0,0 +1,382 @@
+/**
+ * RaceParty is a computer-played Fellowship taking part in a FellowshipRace:
+ * a Hobbit carrying the secret code, an Elf and two Dwarves. The party
+ * wanders at random until it holds the code next to Mount Api, and follows
+ * the rules of the game: it fights the creature of every cave it enters
+ * with the member most likely to win, and recovers in empty caves.
+ *
+ * A party's own members and code are only touched by its own thread. The
+ * caves and their creatures are shared, so each cave is worked on only
+ * while holding its lock from the race.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class RaceParty
+{
+    public static final int DEFAULT_MAX_MOVES = 10_000; // Moves before a party gives up
+    private static final int MAX_DAMAGE_POINTS = FightOdds.MAX_DAMAGE_POINTS; // Maximum damage points before death
+    private static final int MOUNT_API_ID = 100; // ID for Mount Api
+    private static final double SPECIAL_WEAPON_CHANCE = 0.5; // Win chance below which a special weapon is used
+
+    private String name;
+    private Random random;
+    private int maxMoves;
+    private ArrayList<Creature> members;
+    private Creature codeHolder;
+    private int[] options; // passages to choose from, reused between moves
+    private int moves;
+    private int fights;
+    private int kills;
+    private int deaths;
+    private int codeExchanges;
+    private int place; // finishing place, or 0 if the code was not delivered
+    private boolean defeated;
+
+    /**
+     * Non-default constructor for RaceParty.
+     *
+     * @param name The name of the party
+     * @param seed The seed for the party's fights and choices
+     * @param maxMoves The number of moves before the party gives up
+     */
+    public RaceParty(String name, long seed, int maxMoves)
+    {
+        this.name = name;
+        this.random = new Random(seed);
+        this.maxMoves = maxMoves;
+        this.members = new ArrayList<>();
+        this.members.add(new Hobbit(name + " Hobbit"));
+        this.members.add(new Elf(name + " Elf"));
+        this.members.add(new Dwarf(name + " Dwarf 1"));
+        this.members.add(new Dwarf(name + " Dwarf 2"));
+        this.codeHolder = this.members.get(0); // Hobbit starts with the code
+        this.options = new int[4];
+        this.moves = 0;
+        this.fights = 0;
+        this.kills = 0;
+        this.deaths = 0;
+        this.codeExchanges = 0;
+        this.place = 0;
+        this.defeated = false;
+    }
+
+    /**
+     * Plays the party's quest until it delivers the code, every member has
+     * died, or it runs out of moves.
+     *
+     * @param race The race the party takes part in
+     */
+    public void run(FellowshipRace race)
+    {
+        Cave cave = race.getLabyrinth().getStartCave();
+        while (this.moves < this.maxMoves)
+        {
+            this.enterCave(race, cave);
+            if (this.getActiveMembers().isEmpty())
+            {
+                this.defeated = true;
+                return;
+            }
+
+            if (this.hasCode() && cave.hasExitToMountApi())
+            {
+                this.place = race.finish();
+                return;
+            }
+
+            cave = this.chooseNextCave(race.getLabyrinth(), cave);
+            if (cave == null)
+            {
+                return; // No way on
+            }
+            this.moves++;
+        }
+    }
+
+    /**
+     * Deals with the creature of a cave, holding the cave's lock throughout.
+     *
+     * @param race The race
+     * @param cave The cave entered
+     */
+    private void enterCave(FellowshipRace race, Cave cave)
+    {
+        ReentrantLock lock = race.getLock(cave);
+        lock.lock();
+        try
+        {
+            race.spawnCreature(cave);
+            Creature creature = cave.getCreature();
+            if (creature != null && !creature.isDead())
+            {
+                this.fight(race, this.chooseFighter(creature), creature);
+                return;
+            }
+
+            // Another party may have killed the creature that took the code
+            if (creature != null && creature == this.codeHolder)
+            {
+                this.codeHolder = this.getActiveMembers().get(0);
+                this.codeExchanges++;
+            }
+
+            // The Fellowship recovers
+            for (Creature member : this.getActiveMembers())
+            {
+                if (member.getDamagePoints() > 0)
+                {
+                    member.setDamagePoints(member.getDamagePoints() - 1);
+                }
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Chooses the active member most likely to win against a creature,
+     * preferring the least damaged on a tie.
+     *
+     * @param creature The cave creature
+     * @return The member to fight
+     */
+    private Creature chooseFighter(Creature creature)
+    {
+        Creature fighter = null;
+        double bestChance = -1;
+        for (Creature member : this.getActiveMembers())
+        {
+            double chance = FightOdds.getWinChance(member, creature);
+            if (chance > bestChance || (chance == bestChance &&
+                    member.getDamagePoints() < fighter.getDamagePoints()))
+            {
+                fighter = member;
+                bestChance = chance;
+            }
+        }
+        return fighter;
+    }
+
+    /**
+     * Fights a cave creature, following the rules of FellowshipOfCode.handleFight.
+     * The caller holds the lock of the creature's cave.
+     *
+     * @param race The race
+     * @param member The member fighting
+     * @param creature The cave creature
+     */
+    private void fight(FellowshipRace race, Creature member, Creature creature)
+    {
+        race.startFight(creature);
+        try
+        {
+            this.fights++;
+
+            // A special weapon is saved for a fight that is likely to be lost
+            boolean specialWeapon = false;
+            if (member instanceof GoodCreature && ((GoodCreature) member).hasSpecialWeapon() &&
+                    !((GoodCreature) member).hasUsedSpecialWeapon() &&
+                    FightOdds.getWinChance(member, creature) < SPECIAL_WEAPON_CHANCE)
+            {
+                ((GoodCreature) member).setHasUsedSpecialWeapon(true);
+                specialWeapon = true;
+            }
+
+            int winChance = Creature.winChanceForDifference(member.getPower() - creature.getPower());
+            boolean memberWins = specialWeapon || this.random.nextInt(100) + 1 <= winChance;
+            if (memberWins)
+            {
+                if (specialWeapon)
+                {
+                    race.addDeadCreature(creature);
+                    this.kills++;
+                }
+                else
+                {
+                    member.setDamagePoints(member.getDamagePoints() + FightOdds.WIN_DAMAGE);
+                    creature.setDamagePoints(creature.getDamagePoints() + FightOdds.LOSS_DAMAGE);
+                }
+
+                if (this.codeHolder == creature)
+                {
+                    this.codeHolder = member;
+                    this.codeExchanges++;
+                }
+            }
+            else
+            {
+                member.setDamagePoints(member.getDamagePoints() + FightOdds.LOSS_DAMAGE);
+                creature.setDamagePoints(creature.getDamagePoints() + FightOdds.WIN_DAMAGE);
+
+                if (this.codeHolder == member)
+                {
+                    this.codeHolder = creature;
+                    this.codeExchanges++;
+                }
+            }
+
+            if (member.getDamagePoints() >= MAX_DAMAGE_POINTS)
+            {
+                race.addDeadCreature(member);
+                this.deaths++;
+            }
+
+            if (!creature.isDead() && creature.getDamagePoints() >= MAX_DAMAGE_POINTS)
+            {
+                race.addDeadCreature(creature);
+                this.kills++;
+            }
+        }
+        finally
+        {
+            race.endFight(creature);
+        }
+    }
+
+    /**
+     * Chooses a passage at random, leaving out Mount Api, which is only
+     * entered with the code.
+     *
+     * @param labyrinth The labyrinth
+     * @param cave The current cave
+     * @return The next cave, or null if no passage leads anywhere
+     */
+    private Cave chooseNextCave(Labyrinth labyrinth, Cave cave)
+    {
+        int count = 0;
+        for (int direction = 0; direction < this.options.length; direction++)
+        {
+            int passage = cave.getPassage(direction);
+            if (passage != 0 && passage != MOUNT_API_ID)
+            {
+                this.options[count++] = passage;
+            }
+        }
+        while (count > 0)
+        {
+            int choice = this.random.nextInt(count);
+            Cave next = labyrinth.findCave(this.options[choice]);
+            if (next != null)
+            {
+                return next;
+            }
+            this.options[choice] = this.options[--count]; // Leads to an unknown cave, try another
+        }
+        return null;
+    }
+
+    /**
+     * Checks if an active member holds the code.
+     *
+     * @return true if the party can deliver the code
+     */
+    private boolean hasCode()
+    {
+        return this.members.contains(this.codeHolder) && !this.codeHolder.isDead();
+    }
+
+    /**
+     * Gets the members that are still alive.
+     *
+     * @return The active members
+     */
+    private ArrayList<Creature> getActiveMembers()
+    {
+        ArrayList<Creature> active = new ArrayList<>();
+        for (Creature member : this.members)
+        {
+            if (!member.isDead())
+            {
+                active.add(member);
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Gets the name of the party.
+     *
+     * @return The name
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Gets the number of moves made.
+     *
+     * @return The number of moves
+     */
+    public int getMoves()
+    {
+        return this.moves;
+    }
+
+    /**
+     * Gets the number of fights fought.
+     *
+     * @return The number of fights
+     */
+    public int getFights()
+    {
+        return this.fights;
+    }
+
+    /**
+     * Gets the number of evil creatures the party killed.
+     *
+     * @return The number of kills
+     */
+    public int getKills()
+    {
+        return this.kills;
+    }
+
+    /**
+     * Gets the number of members who died.
+     *
+     * @return The number of deaths
+     */
+    public int getDeaths()
+    {
+        return this.deaths;
+    }
+
+    /**
+     * Gets the number of times the code changed hands.
+     *
+     * @return The number of code exchanges
+     */
+    public int getCodeExchanges()
+    {
+        return this.codeExchanges;
+    }
+
+    /**
+     * Gets the party's finishing place.
+     *
+     * @return 1 for the first party to deliver its code, and so on, or 0 if the code was not delivered
+     */
+    public int getPlace()
+    {
+        return this.place;
+    }
+
+    /**
+     * Checks if every member of the party died.
+     *
+     * @return true if the party was defeated
+     */
+    public boolean isDefeated()
+    {
+        return this.defeated;
+    }
+}
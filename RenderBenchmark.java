@@ -0,0 +1,161 @@
+/**
+ * RenderBenchmark measures the bytes allocated to render one move of the
+ * game. It drives the game's own rendering methods in FellowshipOfCode, the
+ * ones exploreLabyrinth calls on every move: the cave and its passages, the
+ * direction choices with the safest route hint and the menu, and the status
+ * update. Fights and answers are left out, as they wait for the player.
+ * Output is discarded and the typing effect is turned off, so only
+ * rendering is measured.
+ *
+ * A move should allocate nothing. Printing a String, even a constant,
+ * allocates while PrintStream encodes it, so text on the move path goes
+ * through a TextBuffer, whose bytes and line break are written as they are.
+ * The one object left is the JFR event of the status update, which escape
+ * analysis removes once the moves have been compiled by C2; with too few
+ * moves to warm up, or with C1 only, it shows as 40 bytes per move.
+ *
+ * To run the benchmark from the command line, use:
+ *       java RenderBenchmark [labyrinth file] [moves]
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Scanner;
+
+public class RenderBenchmark
+{
+    private static final int DEFAULT_MOVES = 200_000;
+    private static final int DIRECTION_COUNT = 4; // North, East, South, West
+    private static final int MOUNT_API_ID = 100;
+
+    /**
+     * Main method to run the benchmark.
+     *
+     * @param args Labyrinth file (labyrinth.txt if not given) and number of moves (200,000 if not given)
+     */
+    public static void main(String[] args)
+    {
+        String filename = args.length > 0 ? args[0] : "labyrinth.txt";
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MOVES;
+        if (!new File(filename).isFile())
+        {
+            System.out.println("Error: Could not find the labyrinth file: " + filename);
+            return;
+        }
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        GameUtils.setTypingSpeed(0);
+
+        FellowshipOfCode game = new FellowshipOfCode(GameOptions.parse(new String[] {"--labyrinth=" + filename}),
+                new GameInput(new Scanner("")));
+        game.loadLabyrinth();
+        Labyrinth labyrinth = game.getLabyrinth();
+        if (labyrinth.isStored())
+        {
+            System.setOut(console);
+            System.out.println("Error: " + filename + " is too large to render moves from Cave objects.");
+            return;
+        }
+
+        ArrayList<Creature> fellowship = game.getFellowship();
+        fellowship.add(new Hobbit("Frodo"));
+        fellowship.add(new Elf("Legolas"));
+        fellowship.add(new Dwarf("Gimli"));
+        game.setCodeHolder(fellowship.get(0));
+        labyrinth.getRoutePlanner().setStrongestMember(fellowship.get(2));
+        for (int i = 0; i < labyrinth.size(); i++)
+        {
+            labyrinth.getCaves().get(i).setCreature(i % 2 == 0 ? new Orc("Orc " + i) : null);
+        }
+
+        // Visit every cave and show the full status first, so the measured moves are steady-state moves
+        for (Cave cave : labyrinth.getCaves())
+        {
+            game.addVisitedCave(cave);
+        }
+        game.displayGameStatus(labyrinth.getStartCave(), labyrinth.getStartCave());
+
+        // Warm up so the JIT has compiled the rendering before measuring
+        run(game, labyrinth, moves);
+        long bytes = run(game, labyrinth, moves);
+
+        System.setOut(console);
+        System.out.println("=== RENDER ALLOCATION BENCHMARK (" + moves + " moves, " +
+                labyrinth.size() + " caves) ===");
+        System.out.println(String.format("%-22s %18s", "Rendering", "Bytes per move"));
+        System.out.println(String.format("%-22s %18.1f", "FellowshipOfCode", (double) bytes / moves));
+    }
+
+    /**
+     * Renders a number of moves through the labyrinth with the game's own methods.
+     *
+     * @param game The game, with its labyrinth loaded and its Fellowship created
+     * @param labyrinth The labyrinth to walk through
+     * @param moves The number of moves to render
+     * @return The bytes allocated by this thread while rendering
+     */
+    private static long run(FellowshipOfCode game, Labyrinth labyrinth, int moves)
+    {
+        ArrayList<Creature> fellowship = game.getFellowship();
+        Cave cave = labyrinth.getStartCave();
+
+        long before = allocatedBytes();
+        for (int move = 0; move < moves; move++)
+        {
+            Cave next = nextCave(labyrinth, cave, move);
+
+            // One member recovers or is hurt each move, so every status has a change to show
+            Creature member = fellowship.get(move % fellowship.size());
+            member.setDamagePoints(member.getDamagePoints() == 0 ? 1 : 0);
+
+            game.displayCave(cave);
+            int optionCount = game.findDirectionOptions(cave);
+            if (optionCount > 1)
+            {
+                game.displayDirectionChoices(cave, optionCount, false);
+            }
+            game.displayGameStatus(cave, next);
+            cave = next;
+        }
+        return allocatedBytes() - before;
+    }
+
+    /**
+     * Picks the next cave to move to, cycling through the open passages.
+     *
+     * @param labyrinth The labyrinth
+     * @param cave The current cave
+     * @param move The move number
+     * @return The next cave, or the start cave if the passage leads out of the labyrinth
+     */
+    private static Cave nextCave(Labyrinth labyrinth, Cave cave, int move)
+    {
+        for (int d = 0; d < DIRECTION_COUNT; d++)
+        {
+            int caveId = cave.getPassage((move + d) % DIRECTION_COUNT);
+            Cave next = caveId == 0 || caveId == MOUNT_API_ID ? null : labyrinth.findCave(caveId);
+            if (next != null)
+            {
+                return next;
+            }
+        }
+        return labyrinth.getStartCave();
+    }
+
+    /**
+     * Gets the bytes allocated by the current thread so far.
+     *
+     * @return The allocated bytes
+     */
+    private static long allocatedBytes()
+    {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
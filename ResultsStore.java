@@ -0,0 +1,238 @@
+/**
+ * ResultsStore is an append-only, file-backed store of completed quests.
+ * Every quest is appended to results.txt as one record line, and in-memory
+ * indexes keep leaderboards ordered by fight success rate and by fewest caves.
+ *
+ * Appends are written to a channel opened in append mode while holding a
+ * lock on the file, so sessions in this process and in other processes can
+ * add results at the same time without their records interleaving. Reading
+ * the file into the indexes takes no file lock, as only complete lines are
+ * indexed.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ResultsStore
+{
+    private static final String DEFAULT_FILENAME = "results.txt";
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final Object APPEND_LOCK = new Object(); // A process can only hold one lock on a file, so its appends take turns
+
+    // Highest fight success rate first, then fewest caves, then oldest first
+    private static final Comparator<QuestResult> BY_SUCCESS_RATE =
+            Comparator.comparingDouble(QuestResult::getFightSuccessRate).reversed()
+                    .thenComparingInt(QuestResult::getCavesVisited)
+                    .thenComparingLong(QuestResult::getSequence);
+
+    // Fewest caves first, then highest fight success rate, then oldest first
+    private static final Comparator<QuestResult> BY_FEWEST_CAVES =
+            Comparator.comparingInt(QuestResult::getCavesVisited)
+                    .thenComparing(Comparator.comparingDouble(QuestResult::getFightSuccessRate).reversed())
+                    .thenComparingLong(QuestResult::getSequence);
+
+    private final Path path;
+    private final ConcurrentSkipListSet<QuestResult> bySuccessRate;
+    private final ConcurrentSkipListSet<QuestResult> byFewestCaves;
+    private final AtomicLong nextSequence;
+    private long indexedLength;
+
+    /**
+     * Non-default constructor for ResultsStore. Use open() to create a store
+     * with its indexes loaded.
+     *
+     * @param path The path of the results file
+     */
+    private ResultsStore(Path path)
+    {
+        this.path = path;
+        this.bySuccessRate = new ConcurrentSkipListSet<>(BY_SUCCESS_RATE);
+        this.byFewestCaves = new ConcurrentSkipListSet<>(BY_FEWEST_CAVES);
+        this.nextSequence = new AtomicLong();
+        this.indexedLength = 0;
+    }
+
+    /**
+     * Opens the default results.txt store and loads its indexes.
+     *
+     * @return The opened store
+     * @throws IOException if the results file cannot be read
+     */
+    public static ResultsStore open() throws IOException
+    {
+        return open(DEFAULT_FILENAME);
+    }
+
+    /**
+     * Opens a results store and loads its indexes from the existing records.
+     *
+     * @param filename The path of the results file, created on the first append if missing
+     * @return The opened store
+     * @throws IOException if the results file cannot be read
+     */
+    public static ResultsStore open(String filename) throws IOException
+    {
+        ResultsStore store = new ResultsStore(Paths.get(filename));
+        store.refresh();
+        return store;
+    }
+
+    /**
+     * Appends a completed quest to the results file, then refreshes the indexes
+     * so the new record and any records appended by other sessions are included.
+     *
+     * @param result The quest result to record
+     * @throws IOException if the record cannot be written
+     */
+    public void append(QuestResult result) throws IOException
+    {
+        ByteBuffer record = ByteBuffer.wrap(result.toRecord().getBytes(StandardCharsets.UTF_8));
+        synchronized (APPEND_LOCK)
+        {
+            try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+            {
+                // A record may take several writes; the lock keeps other appenders out
+                // between them, and is released when the channel is closed
+                channel.lock();
+                while (record.hasRemaining())
+                {
+                    channel.write(record);
+                }
+            }
+        }
+        this.refresh();
+    }
+
+    /**
+     * Gets the number of results currently indexed.
+     *
+     * @return The number of indexed results
+     */
+    public int getResultCount()
+    {
+        return this.bySuccessRate.size();
+    }
+
+    /**
+     * Gets the successful quests that visited the fewest caves.
+     *
+     * @param n The maximum number of results to return
+     * @return The top results, fewest caves first
+     */
+    public ArrayList<QuestResult> getFewestCaves(int n)
+    {
+        return top(this.byFewestCaves, n);
+    }
+
+    /**
+     * Gets the quests with the highest fight success rate.
+     *
+     * @param n The maximum number of results to return
+     * @return The top results, highest success rate first
+     */
+    public ArrayList<QuestResult> getTopBySuccessRate(int n)
+    {
+        return top(this.bySuccessRate, n);
+    }
+
+    /**
+     * Adds a result to the in-memory indexes.
+     *
+     * @param result The result to index
+     */
+    private void index(QuestResult result)
+    {
+        result.setSequence(this.nextSequence.getAndIncrement());
+        this.bySuccessRate.add(result);
+        if (result.isSuccess())
+        {
+            this.byFewestCaves.add(result);
+        }
+    }
+
+    /**
+     * Reads records appended to the file since the last refresh, including
+     * records written by other processes, and adds them to the indexes.
+     * Only complete lines are consumed, so a record still being written is
+     * picked up by a later refresh.
+     *
+     * @throws IOException if the results file cannot be read
+     */
+    public synchronized void refresh() throws IOException
+    {
+        if (!this.path.toFile().exists())
+        {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ))
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            byte[] pending = new byte[256];
+            int pendingLength = 0;
+            long position = this.indexedLength;
+
+            while (channel.read(buffer, position) > 0)
+            {
+                buffer.flip();
+                position += buffer.remaining();
+                while (buffer.hasRemaining())
+                {
+                    byte b = buffer.get();
+                    if (b == '\n')
+                    {
+                        QuestResult result = QuestResult.fromRecord(
+                                new String(pending, 0, pendingLength, StandardCharsets.UTF_8));
+                        if (result != null)
+                        {
+                            this.index(result);
+                        }
+                        this.indexedLength += pendingLength + 1;
+                        pendingLength = 0;
+                    }
+                    else
+                    {
+                        if (pendingLength == pending.length)
+                        {
+                            pending = Arrays.copyOf(pending, pending.length * 2);
+                        }
+                        pending[pendingLength++] = b;
+                    }
+                }
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * Copies the first n results from an index.
+     *
+     * @param index The index to read from
+     * @param n The maximum number of results to return
+     * @return The first n results in index order
+     */
+    private static ArrayList<QuestResult> top(ConcurrentSkipListSet<QuestResult> index, int n)
+    {
+        ArrayList<QuestResult> results = new ArrayList<>();
+        Iterator<QuestResult> iterator = index.iterator();
+        while (results.size() < n && iterator.hasNext())
+        {
+            results.add(iterator.next());
+        }
+        return results;
+    }
+}
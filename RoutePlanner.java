@@ -0,0 +1,503 @@
+/**
+ * RoutePlanner finds the route to Mount Api that minimises the expected damage
+ * taken by the Fellowship. Entering a cave costs the expected damage of the
+ * fight waiting there: known live creatures are weighed by the FightOdds of
+ * the strongest active member against them, and unvisited caves by the 75% chance
+ * that a random evil creature appears.
+ *
+ * Distances to Mount Api are kept for every cave, so a hint is a walk along
+ * the stored route. When a cave changes (a creature spawns or dies) only the
+ * caves whose distance depends on it are recomputed.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class RoutePlanner
+{
+    private static final int MOUNT_API_ID = 100; // ID for Mount Api
+    private static final int NO_CAVE = -1; // No passage, or a passage to an unknown cave
+    private static final int EXIT = -2; // Passage leading directly to Mount Api
+    private static final double SPAWN_CHANCE = GameRules.SPAWN_CHANCE / 100.0; // Chance of a creature in an unvisited cave
+
+    // Sample creatures used to look up the power of each evil creature type
+    private static final Creature[] EVIL_CREATURES = {new Orc(), new Troll(), new Goblin()};
+
+    private int[] ids;
+    private CaveIdIndex indexById; // shared with the Labyrinth, which built it from the same list
+    private int[] successors; // four passages per cave, as indices
+    private int[] predecessorStart;
+    private int[] predecessors;
+    private boolean[] visited;
+    private Creature[] liveCreatures; // known live creature in each visited cave
+    private double[] cost; // expected damage for entering each cave
+    private double[] distance; // expected damage from each cave to Mount Api
+    private int[] next; // next cave on the best route, or EXIT
+    private Creature strongestMember;
+    private double[] heapKeys;
+    private int[] heapNodes;
+    private int heapSize;
+    private boolean[] affected; // scratch space reused by propagateIncrease
+    private int[] affectedList;
+
+    /**
+     * Non-default constructor for RoutePlanner.
+     *
+     * @param labyrinth The caves of the labyrinth
+     * @param indexById The position of the first cave with each id in labyrinth
+     */
+    public RoutePlanner(ArrayList<Cave> labyrinth, CaveIdIndex indexById)
+    {
+        int size = labyrinth.size();
+        this.ids = new int[size];
+        this.indexById = indexById;
+        for (int i = 0; i < size; i++)
+        {
+            this.ids[i] = labyrinth.get(i).getId();
+        }
+
+        // Build forward passages and the reverse (predecessor) lists in compressed form
+        this.successors = new int[size * 4];
+        int[] predecessorCount = new int[size + 1];
+        for (int i = 0; i < size; i++)
+        {
+            Cave cave = labyrinth.get(i);
+            int[] passages = {cave.getNorth(), cave.getEast(), cave.getSouth(), cave.getWest()};
+            for (int d = 0; d < 4; d++)
+            {
+                int target = NO_CAVE;
+                if (passages[d] == MOUNT_API_ID)
+                {
+                    target = EXIT;
+                }
+                else if (passages[d] != 0)
+                {
+                    int index = this.indexById.get(passages[d]);
+                    if (index != CaveIdIndex.NOT_FOUND)
+                    {
+                        target = index;
+                        predecessorCount[target + 1]++;
+                    }
+                }
+                this.successors[i * 4 + d] = target;
+            }
+        }
+
+        this.predecessorStart = new int[size + 1];
+        for (int i = 0; i < size; i++)
+        {
+            this.predecessorStart[i + 1] = this.predecessorStart[i] + predecessorCount[i + 1];
+        }
+        this.predecessors = new int[this.predecessorStart[size]];
+        int[] fill = Arrays.copyOf(this.predecessorStart, size);
+        for (int i = 0; i < size; i++)
+        {
+            for (int d = 0; d < 4; d++)
+            {
+                int target = this.successors[i * 4 + d];
+                if (target >= 0)
+                {
+                    this.predecessors[fill[target]++] = i;
+                }
+            }
+        }
+
+        this.visited = new boolean[size];
+        this.liveCreatures = new Creature[size];
+        this.affected = new boolean[size];
+        this.affectedList = new int[size];
+        this.cost = new double[size];
+        this.distance = new double[size];
+        this.next = new int[size];
+        this.heapKeys = new double[16];
+        this.heapNodes = new int[16];
+        this.heapSize = 0;
+        this.strongestMember = null;
+    }
+
+    /**
+     * Updates the planner after a cave has been entered or its creature has
+     * spawned or died. Only caves whose best route depends on this cave are
+     * recomputed.
+     *
+     * @param cave The cave that changed
+     * @param creatureAlive true if the cave holds a creature that is still alive
+     */
+    public void updateCave(Cave cave, boolean creatureAlive)
+    {
+        int index = this.indexById.get(cave.getId());
+        if (index == CaveIdIndex.NOT_FOUND)
+        {
+            return;
+        }
+
+        this.visited[index] = true;
+        this.liveCreatures[index] = creatureAlive ? cave.getCreature() : null;
+        double newCost = this.expectedDamage(this.liveCreatures[index]);
+        double oldCost = this.cost[index];
+        this.cost[index] = newCost;
+
+        if (this.strongestMember == null || newCost == oldCost)
+        {
+            return;
+        }
+
+        if (newCost < oldCost)
+        {
+            this.propagateDecrease(index);
+        }
+        else
+        {
+            this.propagateIncrease(index);
+        }
+    }
+
+    /**
+     * Sets the fellowship member whose win chance is used to weigh fights, and
+     * recomputes every route if the member changed.
+     *
+     * @param member The strongest active fellowship member
+     */
+    public void setStrongestMember(Creature member)
+    {
+        if (member == null || member == this.strongestMember)
+        {
+            return;
+        }
+
+        this.strongestMember = member;
+        double unvisitedCost = this.unvisitedCost();
+        for (int i = 0; i < this.ids.length; i++)
+        {
+            this.cost[i] = this.visited[i] ? this.expectedDamage(this.liveCreatures[i]) : unvisitedCost;
+        }
+        this.recomputeAll();
+    }
+
+    /**
+     * Gets the expected damage of the best route from a cave to Mount Api.
+     *
+     * @param from The cave to start from
+     * @return The expected damage, or -1 if Mount Api cannot be reached
+     */
+    public double getExpectedDamage(Cave from)
+    {
+        int index = this.indexById.get(from.getId());
+        if (index == CaveIdIndex.NOT_FOUND || this.strongestMember == null ||
+                this.distance[index] == Double.POSITIVE_INFINITY)
+        {
+            return -1;
+        }
+        return this.distance[index];
+    }
+
+    /**
+     * Gets the best route from a cave to Mount Api as a list of cave ids,
+     * ending with the Mount Api id.
+     *
+     * @param from The cave to start from
+     * @return The ids of the caves to enter, or an empty list if Mount Api cannot be reached
+     */
+    public ArrayList<Integer> getRoute(Cave from)
+    {
+        ArrayList<Integer> route = new ArrayList<>();
+        if (this.getExpectedDamage(from) < 0)
+        {
+            return route;
+        }
+
+        int index = this.indexById.get(from.getId());
+        while (this.next[index] != EXIT && route.size() <= this.ids.length)
+        {
+            index = this.next[index];
+            route.add(this.ids[index]);
+        }
+        route.add(MOUNT_API_ID);
+        return route;
+    }
+
+    /**
+     * Appends the best route from a cave to Mount Api to a buffer, as cave
+     * labels joined with " -> ", without building a list of ids.
+     *
+     * @param from The cave to start from
+     * @param out The buffer to append to
+     * @return true if a route was appended, false if Mount Api cannot be reached
+     */
+    public boolean appendRoute(Cave from, TextBuffer out)
+    {
+        if (this.getExpectedDamage(from) < 0)
+        {
+            return false;
+        }
+
+        int index = this.indexById.get(from.getId());
+        int steps = 0;
+        while (this.next[index] != EXIT && steps <= this.ids.length)
+        {
+            index = this.next[index];
+            if (this.ids[index] == MOUNT_API_ID)
+            {
+                out.append("Mount Api -> ");
+            }
+            else
+            {
+                out.append("Cave ").append(this.ids[index]).append(" -> ");
+            }
+            steps++;
+        }
+        out.append("Mount Api");
+        return true;
+    }
+
+    /**
+     * Calculates the expected damage the strongest member takes fighting a creature.
+     *
+     * @param creature The creature to fight
+     * @return The expected damage points
+     */
+    private double expectedDamage(Creature creature)
+    {
+        if (this.strongestMember == null || creature == null)
+        {
+            return 0.0;
+        }
+        return FightOdds.getExpectedDamage(this.strongestMember, creature);
+    }
+
+    /**
+     * Calculates the expected damage of entering an unvisited cave.
+     *
+     * @return The expected damage points
+     */
+    private double unvisitedCost()
+    {
+        double total = 0.0;
+        for (Creature creature : EVIL_CREATURES)
+        {
+            total += this.expectedDamage(creature);
+        }
+        return SPAWN_CHANCE * total / EVIL_CREATURES.length;
+    }
+
+    /**
+     * Recomputes the distance of every cave with Dijkstra's algorithm run
+     * backwards from the caves with a passage to Mount Api.
+     */
+    private void recomputeAll()
+    {
+        this.heapSize = 0;
+        for (int i = 0; i < this.ids.length; i++)
+        {
+            this.resetDistance(i);
+            if (this.next[i] == EXIT)
+            {
+                this.push(i, 0.0);
+            }
+        }
+        this.run();
+    }
+
+    /**
+     * Propagates a lower entry cost for a cave to the caves that lead into it.
+     *
+     * @param index The cave whose cost decreased
+     */
+    private void propagateDecrease(int index)
+    {
+        this.heapSize = 0;
+        this.relaxPredecessors(index);
+        this.run();
+    }
+
+    /**
+     * Propagates a higher entry cost for a cave. Every cave whose best route
+     * passes through it is invalidated and recomputed from its unaffected
+     * neighbours; all other distances stay as they are.
+     *
+     * @param index The cave whose cost increased
+     */
+    private void propagateIncrease(int index)
+    {
+        // Collect the caves whose best route goes through the changed cave,
+        // using the affected list itself as the work queue
+        boolean[] affected = this.affected;
+        int[] affectedList = this.affectedList;
+        int affectedCount = 0;
+        int head = 0;
+        int node = index;
+        while (true)
+        {
+            for (int p = this.predecessorStart[node]; p < this.predecessorStart[node + 1]; p++)
+            {
+                int pred = this.predecessors[p];
+                if (this.next[pred] == node && !affected[pred])
+                {
+                    affected[pred] = true;
+                    affectedList[affectedCount++] = pred;
+                }
+            }
+            if (head == affectedCount)
+            {
+                break;
+            }
+            node = affectedList[head++];
+        }
+
+        // Seed each affected cave with its best unaffected neighbour
+        this.heapSize = 0;
+        for (int i = 0; i < affectedCount; i++)
+        {
+            node = affectedList[i];
+            this.distance[node] = Double.POSITIVE_INFINITY;
+            this.next[node] = NO_CAVE;
+            for (int d = 0; d < 4; d++)
+            {
+                int target = this.successors[node * 4 + d];
+                if (target >= 0 && !affected[target])
+                {
+                    double candidate = this.cost[target] + this.distance[target];
+                    if (candidate < this.distance[node])
+                    {
+                        this.distance[node] = candidate;
+                        this.next[node] = target;
+                    }
+                }
+            }
+            if (this.distance[node] < Double.POSITIVE_INFINITY)
+            {
+                this.push(node, this.distance[node]);
+            }
+        }
+        for (int i = 0; i < affectedCount; i++)
+        {
+            affected[affectedList[i]] = false;
+        }
+        this.run();
+    }
+
+    /**
+     * Resets a cave to its starting distance before a full recomputation.
+     *
+     * @param index The cave to reset
+     */
+    private void resetDistance(int index)
+    {
+        this.distance[index] = Double.POSITIVE_INFINITY;
+        this.next[index] = NO_CAVE;
+        for (int d = 0; d < 4; d++)
+        {
+            if (this.successors[index * 4 + d] == EXIT)
+            {
+                this.distance[index] = 0.0;
+                this.next[index] = EXIT;
+            }
+        }
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the caves currently in the heap.
+     */
+    private void run()
+    {
+        while (this.heapSize > 0)
+        {
+            double key = this.heapKeys[0];
+            int node = this.pop();
+            if (key > this.distance[node])
+            {
+                continue; // stale entry
+            }
+            this.relaxPredecessors(node);
+        }
+    }
+
+    /**
+     * Offers a shorter route through a cave to every cave that leads into it.
+     *
+     * @param node The cave to route through
+     */
+    private void relaxPredecessors(int node)
+    {
+        double candidate = this.cost[node] + this.distance[node];
+        for (int p = this.predecessorStart[node]; p < this.predecessorStart[node + 1]; p++)
+        {
+            int pred = this.predecessors[p];
+            if (candidate < this.distance[pred])
+            {
+                this.distance[pred] = candidate;
+                this.next[pred] = node;
+                this.push(pred, candidate);
+            }
+        }
+    }
+
+    /**
+     * Adds a cave to the binary min-heap.
+     *
+     * @param node The cave index
+     * @param key The distance of the cave
+     */
+    private void push(int node, double key)
+    {
+        if (this.heapSize == this.heapKeys.length)
+        {
+            this.heapKeys = Arrays.copyOf(this.heapKeys, this.heapSize * 2);
+            this.heapNodes = Arrays.copyOf(this.heapNodes, this.heapSize * 2);
+        }
+
+        int i = this.heapSize++;
+        while (i > 0)
+        {
+            int parent = (i - 1) / 2;
+            if (this.heapKeys[parent] <= key)
+            {
+                break;
+            }
+            this.heapKeys[i] = this.heapKeys[parent];
+            this.heapNodes[i] = this.heapNodes[parent];
+            i = parent;
+        }
+        this.heapKeys[i] = key;
+        this.heapNodes[i] = node;
+    }
+
+    /**
+     * Removes the cave with the smallest distance from the binary min-heap.
+     *
+     * @return The cave index
+     */
+    private int pop()
+    {
+        int result = this.heapNodes[0];
+        this.heapSize--;
+        double key = this.heapKeys[this.heapSize];
+        int node = this.heapNodes[this.heapSize];
+
+        int i = 0;
+        while (true)
+        {
+            int child = i * 2 + 1;
+            if (child >= this.heapSize)
+            {
+                break;
+            }
+            if (child + 1 < this.heapSize && this.heapKeys[child + 1] < this.heapKeys[child])
+            {
+                child++;
+            }
+            if (key <= this.heapKeys[child])
+            {
+                break;
+            }
+            this.heapKeys[i] = this.heapKeys[child];
+            this.heapNodes[i] = this.heapNodes[child];
+            i = child;
+        }
+        this.heapKeys[i] = key;
+        this.heapNodes[i] = node;
+        return result;
+    }
+}
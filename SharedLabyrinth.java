@@ -0,0 +1,204 @@
+/**
+ * SharedLabyrinth lets passages be opened, closed or rerouted while many
+ * games navigate the same labyrinth. Each version of the labyrinth is a
+ * LabyrinthGraph that is never changed once published. An edit copies the
+ * current graph, applies a whole batch of changes to the copy and then
+ * publishes it in a single volatile write.
+ *
+ * Readers never take a lock and never wait for an edit. A reader that takes
+ * the graph with getGraph() and keeps it for a move sees either every change
+ * of a batch or none of them, never half of one. The copy costs time in
+ * proportion to the size of the labyrinth, which is why changes are applied
+ * in batches rather than one at a time.
+ *
+ * To edit, fill an EditBatch and apply it:
+ *       SharedLabyrinth.EditBatch batch = new SharedLabyrinth.EditBatch();
+ *       batch.setEast(5, 0);
+ *       batch.setWest(6, 0);
+ *       shared.apply(batch);
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.Arrays;
+
+public class SharedLabyrinth
+{
+    private static final int DIRECTION_COUNT = 4; // North, East, South, West
+
+    private volatile LabyrinthGraph graph; // the current version, never changed once published
+    private volatile long version; // number of batches applied, written after the graph
+
+    /**
+     * Non-default constructor for SharedLabyrinth.
+     *
+     * @param graph The labyrinth as first loaded
+     */
+    public SharedLabyrinth(LabyrinthGraph graph)
+    {
+        this.graph = graph;
+        this.version = 0;
+    }
+
+    /**
+     * Gets the current version of the labyrinth. The graph returned is never
+     * changed, so it can be read for as long as needed without locking.
+     *
+     * @return The current graph
+     */
+    public LabyrinthGraph getGraph()
+    {
+        return this.graph;
+    }
+
+    /**
+     * Gets the number of batches applied so far. A graph taken after this
+     * call is at least this new.
+     *
+     * @return The version number
+     */
+    public long getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+     * Applies a batch of passage changes as one new version. Every change is
+     * checked first, and if any change names a cave that does not exist the
+     * whole batch is rejected. Edits are applied one batch at a time; readers
+     * are never held up.
+     *
+     * @param batch The changes to apply
+     * @return true if the batch was applied, false if it was rejected
+     */
+    public synchronized boolean apply(EditBatch batch)
+    {
+        LabyrinthGraph current = this.graph;
+        int[] indices = new int[batch.count];
+        for (int i = 0; i < batch.count; i++)
+        {
+            indices[i] = current.indexOf(batch.caveIds[i]);
+            if (indices[i] == LabyrinthGraph.NO_CAVE)
+            {
+                return false;
+            }
+        }
+
+        this.graph = current.withPassages(batch.count, indices, batch.directions, batch.targets);
+        this.version++;
+        return true;
+    }
+
+    /**
+     * EditBatch collects passage changes to be applied together. The setters
+     * follow those of Cave; changes are applied in the order they are added,
+     * so a later change to the same passage wins. A batch is filled by one
+     * thread and can be applied again after more changes are added.
+     */
+    public static class EditBatch
+    {
+        private static final int INITIAL_CAPACITY = 8;
+
+        private int count;
+        private int[] caveIds;
+        private int[] directions;
+        private int[] targets;
+
+        /**
+         * Default constructor for EditBatch.
+         */
+        public EditBatch()
+        {
+            this.count = 0;
+            this.caveIds = new int[INITIAL_CAPACITY];
+            this.directions = new int[INITIAL_CAPACITY];
+            this.targets = new int[INITIAL_CAPACITY];
+        }
+
+        /**
+         * Adds a change to a passage.
+         *
+         * @param caveId The id of the cave whose passage changes
+         * @param direction The direction (0 = north, 1 = east, 2 = south, 3 = west)
+         * @param target The id of the cave the passage leads to, or 0 to block it
+         * @return true if the change was added, false if the direction or target is invalid
+         */
+        public boolean setPassage(int caveId, int direction, int target)
+        {
+            if (direction < 0 || direction >= DIRECTION_COUNT || target < 0)
+            {
+                return false;
+            }
+
+            if (this.count == this.caveIds.length)
+            {
+                this.caveIds = Arrays.copyOf(this.caveIds, this.count * 2);
+                this.directions = Arrays.copyOf(this.directions, this.count * 2);
+                this.targets = Arrays.copyOf(this.targets, this.count * 2);
+            }
+            this.caveIds[this.count] = caveId;
+            this.directions[this.count] = direction;
+            this.targets[this.count] = target;
+            this.count++;
+            return true;
+        }
+
+        /**
+         * Adds a change to the passage to the north.
+         *
+         * @param caveId The id of the cave whose passage changes
+         * @param north The id of the cave to the north, or 0 to block the passage
+         * @return true if the change was added
+         */
+        public boolean setNorth(int caveId, int north)
+        {
+            return this.setPassage(caveId, 0, north);
+        }
+
+        /**
+         * Adds a change to the passage to the east.
+         *
+         * @param caveId The id of the cave whose passage changes
+         * @param east The id of the cave to the east, or 0 to block the passage
+         * @return true if the change was added
+         */
+        public boolean setEast(int caveId, int east)
+        {
+            return this.setPassage(caveId, 1, east);
+        }
+
+        /**
+         * Adds a change to the passage to the south.
+         *
+         * @param caveId The id of the cave whose passage changes
+         * @param south The id of the cave to the south, or 0 to block the passage
+         * @return true if the change was added
+         */
+        public boolean setSouth(int caveId, int south)
+        {
+            return this.setPassage(caveId, 2, south);
+        }
+
+        /**
+         * Adds a change to the passage to the west.
+         *
+         * @param caveId The id of the cave whose passage changes
+         * @param west The id of the cave to the west, or 0 to block the passage
+         * @return true if the change was added
+         */
+        public boolean setWest(int caveId, int west)
+        {
+            return this.setPassage(caveId, 3, west);
+        }
+
+        /**
+         * Gets the number of changes in the batch.
+         *
+         * @return The number of changes
+         */
+        public int size()
+        {
+            return this.count;
+        }
+    }
+}
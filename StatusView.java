@@ -0,0 +1,331 @@
+/**
+ * StatusView displays the game status between caves. The first status is
+ * shown in full; after that only what has changed since the last status is
+ * shown (newly visited caves, creatures found, damage changes, deaths and
+ * the code changing hands), so the output for each move stays short however
+ * long the quest runs. The full view can still be shown at any time.
+ *
+ * In bounded-memory mode only the most recently visited caves are kept, so
+ * the full view lists those, and only as many caves are remembered here.
+ * When a cave is forgotten its creature's damage stops being followed, so
+ * the creatures checked on each move do not grow with the length of the quest.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class StatusView
+{
+    private static final int INITIAL_CREATURES = 16; // Creatures tracked before the arrays grow
+
+    private boolean shown; // true once a full status has been shown
+    private int shownCaveCount; // visited caves already shown, in visiting order
+    private LinkedHashMap<Cave, Creature> shownCaveCreatures; // creature shown for each visited cave
+    private Creature[] shownCreatures; // live creatures whose damage is shown, in the order first shown
+    private int[] shownDamage; // damage last shown for each of shownCreatures
+    private int shownCreatureCount;
+    private Creature shownCodeHolder;
+    private TextBuffer text; // reused for every line rendered
+
+    /**
+     * Default constructor for StatusView. Remembers every visited cave.
+     */
+    public StatusView()
+    {
+        this(0);
+    }
+
+    /**
+     * Non-default constructor for StatusView.
+     *
+     * @param maxCaves The number of caves to remember, least recently shown first out, or 0 for every visited cave
+     */
+    public StatusView(int maxCaves)
+    {
+        this.shown = false;
+        this.shownCaveCount = 0;
+        this.shownCaveCreatures = new LinkedHashMap<>(16, 0.75f, maxCaves > 0)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Cave, Creature> eldest)
+            {
+                if (maxCaves > 0 && this.size() > maxCaves)
+                {
+                    StatusView.this.forgetCreature(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.shownCreatures = new Creature[INITIAL_CREATURES];
+        this.shownDamage = new int[INITIAL_CREATURES];
+        this.shownCreatureCount = 0;
+        this.shownCodeHolder = null;
+        this.text = new TextBuffer();
+    }
+
+    /**
+     * Displays the status, in full the first time and as changes after that.
+     *
+     * @param currentCave The cave the Fellowship is in
+     * @param nextCave The next cave to enter
+     * @param history The caves visited so far and the creatures that have died
+     * @param fellowship The members of the Fellowship
+     * @param codeHolder The creature holding the secret code
+     */
+    public void render(Cave currentCave, Cave nextCave, QuestHistory history,
+            ArrayList<Creature> fellowship, Creature codeHolder)
+    {
+        if (!this.shown)
+        {
+            this.renderFull(nextCave, history, fellowship, codeHolder);
+            return;
+        }
+
+        GameUtils.typeText(this.text.clear().append("\n--- STATUS UPDATE --- (type 'status' for the full view)"));
+        boolean changed = false;
+
+        //newly visited caves
+        for (int i = Math.max(this.shownCaveCount, history.getFirstKeptVisit()); i < history.getVisitedCount(); i++)
+        {
+            Cave cave = history.getVisitedCave(i);
+            GameUtils.typeText(appendCave(this.text.clear().append("New cave visited: "), cave));
+            this.shownCaveCreatures.put(cave, cave.getCreature());
+            this.trackCreature(cave.getCreature());
+            changed = true;
+        }
+        this.shownCaveCount = history.getVisitedCount();
+
+        //a creature can only appear in a visited cave when the Fellowship returns to it
+        //(a cave no longer remembered counts as shown empty)
+        if (currentCave.getCreature() != null &&
+                this.shownCaveCreatures.get(currentCave) != currentCave.getCreature())
+        {
+            Creature creature = currentCave.getCreature();
+            GameUtils.typeText(this.text.clear().append("Cave ").append(currentCave.getId())
+                    .append(" now contains ").append(creature.getClass().getSimpleName())
+                    .append(" - ").append(creature.getName()));
+            this.shownCaveCreatures.put(currentCave, currentCave.getCreature());
+            this.trackCreature(currentCave.getCreature());
+            changed = true;
+        }
+
+        //code holder
+        if (codeHolder != this.shownCodeHolder)
+        {
+            GameUtils.typeText(this.text.clear().append("Secret Code is now held by: ")
+                    .append(codeHolder.getDisplayPrefixBytes()));
+            this.shownCodeHolder = codeHolder;
+            changed = true;
+        }
+
+        //damage changes and deaths, in the order the creatures were first shown
+        int i = 0;
+        while (i < this.shownCreatureCount)
+        {
+            Creature creature = this.shownCreatures[i];
+            if (creature.isDead())
+            {
+                GameUtils.typeText(this.text.clear().append(creature.getDisplayPrefixBytes()).append(" has died"));
+                this.removeShownCreature(i);
+                changed = true;
+                continue;
+            }
+            if (creature.getDamagePoints() != this.shownDamage[i])
+            {
+                GameUtils.typeText(this.text.clear().append("Damage: ").append(creature.getDisplayPrefixBytes())
+                        .append(": ").append(this.shownDamage[i]).append(" -> ").append(creature.getDamagePoints()));
+                this.shownDamage[i] = creature.getDamagePoints();
+                changed = true;
+            }
+            i++;
+        }
+
+        if (!changed)
+        {
+            GameUtils.typeText(this.text.clear().append("No changes since the last status."));
+        }
+
+        //display next cave
+        GameUtils.typeText(this.text.clear().append("\nNext cave to enter: Cave ").append(nextCave.getId()));
+    }
+
+    /**
+     * Displays the full status: every visited cave, the code holder and the
+     * damage of every live creature.
+     *
+     * @param nextCave The next cave to enter, or null if it has not been chosen yet
+     * @param history The caves visited so far and the creatures that have died
+     * @param fellowship The members of the Fellowship
+     * @param codeHolder The creature holding the secret code
+     */
+    public void renderFull(Cave nextCave, QuestHistory history, ArrayList<Creature> fellowship,
+            Creature codeHolder)
+    {
+        GameUtils.typeText("\n--- CURRENT STATUS ---");
+        this.shownCaveCreatures.clear();
+        Arrays.fill(this.shownCreatures, 0, this.shownCreatureCount, null);
+        this.shownCreatureCount = 0;
+
+        //display visited caves
+        GameUtils.typeText("\nVisited Caves:");
+        if (history.getFirstKeptVisit() > 0)
+        {
+            GameUtils.typeText(this.text.clear().append("(").append(history.getFirstKeptVisit())
+                    .append(" earlier caves not shown)"));
+        }
+        for (int i = history.getFirstKeptVisit(); i < history.getVisitedCount(); i++)
+        {
+            Cave cave = history.getVisitedCave(i);
+            GameUtils.typeText(appendCave(this.text.clear(), cave));
+            this.shownCaveCreatures.put(cave, cave.getCreature());
+        }
+        this.shownCaveCount = history.getVisitedCount();
+
+        //display code holder
+        GameUtils.typeText(this.text.clear().append("\nSecret Code is held by: ")
+                .append(codeHolder.getDisplayPrefixBytes()));
+        this.shownCodeHolder = codeHolder;
+
+        //display damage points
+        GameUtils.typeText("\nDamage Points:");
+        for (Creature member : fellowship)
+        {
+            if (!member.isDead())
+            {
+                GameUtils.typeText(this.text.clear().append(member.getDisplayPrefixBytes())
+                        .append(": ").append(member.getDamagePoints()));
+                this.addShownCreature(member);
+            }
+        }
+
+        for (int i = history.getFirstKeptVisit(); i < history.getVisitedCount(); i++)
+        {
+            Creature creature = history.getVisitedCave(i).getCreature();
+            if (creature != null && !creature.isDead())
+            {
+                GameUtils.typeText(this.text.clear().append(creature.getDisplayPrefixBytes())
+                        .append(": ").append(creature.getDamagePoints()));
+                this.addShownCreature(creature);
+            }
+        }
+
+        //display next cave
+        if (nextCave != null)
+        {
+            GameUtils.typeText(this.text.clear().append("\nNext cave to enter: Cave ").append(nextCave.getId()));
+        }
+        this.shown = true;
+    }
+
+    /**
+     * Starts tracking the damage of a creature found in a newly shown cave,
+     * and shows its current damage, or its death if it has already been killed.
+     *
+     * @param creature The creature, or null if the cave is empty
+     */
+    private void trackCreature(Creature creature)
+    {
+        if (creature == null || this.indexOfShownCreature(creature) >= 0)
+        {
+            return;
+        }
+
+        if (creature.isDead())
+        {
+            GameUtils.typeText(this.text.clear().append(creature.getDisplayPrefixBytes()).append(" has died"));
+        }
+        else
+        {
+            GameUtils.typeText(this.text.clear().append("Damage: ").append(creature.getDisplayPrefixBytes())
+                    .append(": ").append(creature.getDamagePoints()));
+            this.addShownCreature(creature);
+        }
+    }
+
+    /**
+     * Starts showing the damage of a creature, with its current damage as the damage shown.
+     *
+     * @param creature The creature
+     */
+    private void addShownCreature(Creature creature)
+    {
+        if (this.shownCreatureCount == this.shownCreatures.length)
+        {
+            this.shownCreatures = Arrays.copyOf(this.shownCreatures, this.shownCreatureCount * 2);
+            this.shownDamage = Arrays.copyOf(this.shownDamage, this.shownCreatureCount * 2);
+        }
+        this.shownCreatures[this.shownCreatureCount] = creature;
+        this.shownDamage[this.shownCreatureCount] = creature.getDamagePoints();
+        this.shownCreatureCount++;
+    }
+
+    /**
+     * Stops showing the damage of a creature, keeping the others in the order they were first shown.
+     *
+     * @param index The index of the creature in shownCreatures
+     */
+    private void removeShownCreature(int index)
+    {
+        int after = this.shownCreatureCount - index - 1;
+        System.arraycopy(this.shownCreatures, index + 1, this.shownCreatures, index, after);
+        System.arraycopy(this.shownDamage, index + 1, this.shownDamage, index, after);
+        this.shownCreatureCount--;
+        this.shownCreatures[this.shownCreatureCount] = null;
+    }
+
+    /**
+     * Stops showing the damage of a creature left behind in a cave that is
+     * no longer remembered.
+     *
+     * @param creature The creature, or null if the cave was empty
+     */
+    private void forgetCreature(Creature creature)
+    {
+        int index = creature == null ? -1 : this.indexOfShownCreature(creature);
+        if (index >= 0)
+        {
+            this.removeShownCreature(index);
+        }
+    }
+
+    /**
+     * Finds a creature whose damage is shown.
+     *
+     * @param creature The creature
+     * @return The index of the creature in shownCreatures, or -1 if its damage is not shown
+     */
+    private int indexOfShownCreature(Creature creature)
+    {
+        for (int i = 0; i < this.shownCreatureCount; i++)
+        {
+            if (this.shownCreatures[i] == creature)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Appends a cave and the creature in it, as shown in the list of visited caves.
+     *
+     * @param text The buffer to append to
+     * @param cave The cave
+     * @return The buffer, with "Cave N (Contains type - name)" or "Cave N (Empty)" appended
+     */
+    private static TextBuffer appendCave(TextBuffer text, Cave cave)
+    {
+        text.append("Cave ").append(cave.getId());
+        if (cave.getCreature() == null)
+        {
+            return text.append(" (Empty)");
+        }
+        return text.append(" (Contains ").append(cave.getCreature().getClass().getSimpleName())
+                .append(" - ").append(cave.getCreature().getName()).append(')');
+    }
+}
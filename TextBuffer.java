@@ -0,0 +1,239 @@
+/**
+ * TextBuffer is a reusable buffer of UTF-8 encoded text. Game output is
+ * assembled in a TextBuffer from pre-formatted labels and numbers and then
+ * written out in one go, so rendering a line does not create any strings.
+ *
+ * @author Nicholas Battle
+ * @version 1.0
+ */
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class TextBuffer
+{
+    private static final int INITIAL_CAPACITY = 256;
+    private static final byte[] MIN_INT = bytes(String.valueOf(Integer.MIN_VALUE));
+
+    private byte[] bytes;
+    private int length;
+
+    /**
+     * Default constructor for TextBuffer.
+     */
+    public TextBuffer()
+    {
+        this.bytes = new byte[INITIAL_CAPACITY];
+        this.length = 0;
+    }
+
+    /**
+     * Encodes text as UTF-8, for labels that are formatted once and rendered often.
+     *
+     * @param text The text to encode
+     * @return The UTF-8 bytes
+     */
+    public static byte[] bytes(String text)
+    {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends pre-formatted text.
+     *
+     * @param text The UTF-8 bytes to append
+     * @return This buffer
+     */
+    public TextBuffer append(byte[] text)
+    {
+        this.ensureCapacity(text.length);
+        System.arraycopy(text, 0, this.bytes, this.length, text.length);
+        this.length += text.length;
+        return this;
+    }
+
+    /**
+     * Appends text, encoding it as UTF-8 without creating a byte array.
+     *
+     * @param text The text to append
+     * @return This buffer
+     */
+    public TextBuffer append(String text)
+    {
+        this.ensureCapacity(text.length() * 3);
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if (c < 0x80)
+            {
+                this.bytes[this.length++] = (byte) c;
+            }
+            else if (c < 0x800)
+            {
+                this.bytes[this.length++] = (byte) (0xC0 | (c >> 6));
+                this.bytes[this.length++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < text.length() &&
+                    Character.isLowSurrogate(text.charAt(i + 1)))
+            {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                this.bytes[this.length++] = (byte) (0xF0 | (codePoint >> 18));
+                this.bytes[this.length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                this.bytes[this.length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                this.bytes[this.length++] = (byte) (0x80 | (codePoint & 0x3F));
+            }
+            else
+            {
+                this.bytes[this.length++] = (byte) (0xE0 | (c >> 12));
+                this.bytes[this.length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                this.bytes[this.length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends a whole number in decimal.
+     *
+     * @param value The number to append
+     * @return This buffer
+     */
+    public TextBuffer append(int value)
+    {
+        if (value == Integer.MIN_VALUE)
+        {
+            return this.append(MIN_INT);
+        }
+
+        this.ensureCapacity(11);
+        if (value < 0)
+        {
+            this.bytes[this.length++] = '-';
+            value = -value;
+        }
+
+        // Write the digits backwards, then reverse them in place
+        int start = this.length;
+        do
+        {
+            this.bytes[this.length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        while (value > 0);
+        for (int i = start, j = this.length - 1; i < j; i++, j--)
+        {
+            byte swap = this.bytes[i];
+            this.bytes[i] = this.bytes[j];
+            this.bytes[j] = swap;
+        }
+        return this;
+    }
+
+    /**
+     * Appends a number rounded to one decimal place, as "%.1f" would format it.
+     *
+     * @param value The number to append
+     * @return This buffer
+     */
+    public TextBuffer appendOneDecimal(double value)
+    {
+        long tenths = Math.round(Math.abs(value) * 10);
+        if (value < 0 && tenths > 0)
+        {
+            this.append('-');
+        }
+        this.append((int) (tenths / 10));
+        this.append('.');
+        return this.append((char) ('0' + tenths % 10));
+    }
+
+    /**
+     * Appends a single ASCII character.
+     *
+     * @param c The character to append
+     * @return This buffer
+     */
+    public TextBuffer append(char c)
+    {
+        this.ensureCapacity(1);
+        this.bytes[this.length++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Empties the buffer so that it can be reused.
+     *
+     * @return This buffer
+     */
+    public TextBuffer clear()
+    {
+        this.length = 0;
+        return this;
+    }
+
+    /**
+     * Gets the byte at an index.
+     *
+     * @param index The index, less than length()
+     * @return The byte
+     */
+    public byte byteAt(int index)
+    {
+        return this.bytes[index];
+    }
+
+    /**
+     * Gets the number of bytes in the buffer.
+     *
+     * @return The length in bytes
+     */
+    public int length()
+    {
+        return this.length;
+    }
+
+    /**
+     * Writes part of the buffer.
+     *
+     * @param out The stream to write to
+     * @param from The index of the first byte to write
+     * @param to The index after the last byte to write
+     */
+    public void writeTo(OutputStream out, int from, int to)
+    {
+        try
+        {
+            out.write(this.bytes, from, to - from);
+        }
+        catch (IOException e)
+        {
+            // Console output errors are ignored, as System.out does
+        }
+    }
+
+    /**
+     * Returns the text in the buffer.
+     *
+     * @return The text, decoded from UTF-8
+     */
+    @Override
+    public String toString()
+    {
+        return new String(this.bytes, 0, this.length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Makes room for more bytes, growing the buffer if needed.
+     *
+     * @param extra The number of bytes about to be appended
+     */
+    private void ensureCapacity(int extra)
+    {
+        if (this.length + extra > this.bytes.length)
+        {
+            byte[] grown = new byte[Math.max(this.bytes.length * 2, this.length + extra)];
+            System.arraycopy(this.bytes, 0, grown, 0, this.length);
+            this.bytes = grown;
+        }
+    }
+}
@@ -6,7 +6,7 @@
  */
 public class Troll extends EvilCreature
 {
-    private static final int TROLL_POWER = 9;
+    private static final int TROLL_POWER = GameRules.TROLL_POWER;
     
     /**
      * Default constructor for Troll.